@@ -0,0 +1,116 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.domains.Page;
+import org.helmo.gbeditor.infrastructures.RepositoryFactory;
+import org.helmo.gbeditor.infrastructures.exception.UnableToTearDownException;
+import org.helmo.gbeditor.infrastructures.jdbc.BDRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure l'ajout, la sauvegarde et la recherche d'un livre dans une base de données Derby embarquée en mémoire.
+ * Les tables sont recréées à chaque itération afin que la taille de la base ne dépende pas du nombre de mesures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BDRepositoryBenchmark {
+    private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+    private static final String DB_URL = "jdbc:derby:memory:gbeditorBench;create=true";
+    private static final String CHOICE = "Retour au début";
+
+    @Param({"10", "100", "1000"})
+    public int pages;
+
+    private BDRepository repo;
+    private Book stored;
+    private Page storedFirst;
+    private Page storedLast;
+    private Book toAdd;
+    private int added;
+
+    /**
+     * Ouvre la base de données.
+     */
+    @Setup(Level.Trial)
+    public void openDatabase() {
+        repo = RepositoryFactory.of(DRIVER, DB_URL, "", "");
+        repo.setCurrentAuthor(BenchmarkBooks.generator(pages).authorNameOf(0));
+    }
+
+    /**
+     * Ferme les connexions à la base de données.
+     */
+    @TearDown(Level.Trial)
+    public void closeDatabase() {
+        repo.close();
+    }
+
+    /**
+     * Crée les tables et y ajoute le livre sauvegardé et recherché par les mesures.
+     */
+    @Setup(Level.Iteration)
+    public void createTables() {
+        try {
+            repo.tearDown();
+        } catch (UnableToTearDownException e) {
+            // Les tables n'existent pas encore.
+        }
+        repo.setUp();
+        stored = BenchmarkBooks.nth(added++, pages);
+        storedFirst = stored.iterator().next();
+        storedLast = BenchmarkBooks.last(stored);
+        repo.add(stored);
+    }
+
+    /**
+     * Prépare le prochain livre à ajouter et modifie un choix du livre à sauvegarder.
+     */
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        toAdd = BenchmarkBooks.nth(added++, pages);
+        if(storedLast.getPageForChoice(CHOICE) == null) {
+            storedLast.addChoice(CHOICE, storedFirst);
+        } else {
+            storedLast.removeChoice(CHOICE);
+        }
+    }
+
+    /**
+     * Ajoute un nouveau livre.
+     */
+    @Benchmark
+    public void add() {
+        repo.add(toAdd);
+    }
+
+    /**
+     * Sauvegarde le livre existant dont un choix a changé.
+     */
+    @Benchmark
+    public void save() {
+        repo.save(stored);
+    }
+
+    /**
+     * Recherche le livre existant à partir de son ISBN.
+     *
+     * @return  Le livre trouvé.
+     */
+    @Benchmark
+    public Book searchBookFor() {
+        return repo.searchBookFor(stored.get(BookFieldName.ISBN));
+    }
+}
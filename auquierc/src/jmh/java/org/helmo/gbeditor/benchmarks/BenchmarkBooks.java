@@ -0,0 +1,67 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.Page;
+import org.helmo.gbeditor.repositories.BookCorpusGenerator;
+
+/**
+ * Cette classe crée les livres utilisés par les benchmarks à l'aide d'un {@link BookCorpusGenerator}.
+ * La graine est fixe afin que les mesures soient faites sur les mêmes livres d'une exécution à l'autre.
+ */
+final class BenchmarkBooks {
+    private static final long SEED = 2022;
+    private static final int BRANCHING = 3;
+
+    private BenchmarkBooks() { }
+
+    /**
+     * Crée un générateur de livres ayant tous un nombre de pages donné.
+     *
+     * @param pages     Nombre de pages des livres.
+     *
+     * @return          Le générateur.
+     */
+    static BookCorpusGenerator generator(final int pages) {
+        return new BookCorpusGenerator(SEED).pages(pages, pages).branching(BRANCHING);
+    }
+
+    /**
+     * Crée un livre du premier auteur ayant un nombre de pages donné.
+     *
+     * @param nBook     Numéro du livre, de 1 à 99.
+     * @param pages     Nombre de pages du livre.
+     *
+     * @return          Le livre créé.
+     */
+    static Book of(final int nBook, final int pages) {
+        return generator(pages).generate(0, nBook);
+    }
+
+    /**
+     * Crée le n-ième livre d'une suite de livres ayant tous un ISBN différent.
+     * Au-delà de 99 livres, les livres sont attribués aux auteurs suivants.
+     *
+     * @param n         Position du livre dans la suite, à partir de 0.
+     * @param pages     Nombre de pages du livre.
+     *
+     * @return          Le livre créé.
+     */
+    static Book nth(final int n, final int pages) {
+        return generator(pages).generate(n / BookCorpusGenerator.MAX_BOOKS_BY_AUTHOR, n % BookCorpusGenerator.MAX_BOOKS_BY_AUTHOR + 1);
+    }
+
+    /**
+     * Récupère la dernière page d'un livre.
+     *
+     * @param book  Livre dont on veut la dernière page.
+     *
+     * @return      La dernière page du livre.
+     */
+    static Page last(final Book book) {
+        Page last = null;
+        for(final var p : book) {
+            last = p;
+        }
+        return last;
+    }
+}
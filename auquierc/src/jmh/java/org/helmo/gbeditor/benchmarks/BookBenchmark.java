@@ -0,0 +1,60 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.Page;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure la recherche d'une page d'un livre et le calcul du nombre de choix qui y mènent.
+ * La page recherchée est la dernière du livre, c'est le pire cas d'une recherche linéaire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int pages;
+
+    private Book book;
+    private Page last;
+    private String lastContent;
+
+    /**
+     * Crée le livre utilisé par les mesures.
+     */
+    @Setup
+    public void setUp() {
+        book = BenchmarkBooks.of(1, pages);
+        last = BenchmarkBooks.last(book);
+        lastContent = last.getContent();
+    }
+
+    /**
+     * Recherche la dernière page du livre à partir de son contenu.
+     *
+     * @return  La page trouvée.
+     */
+    @Benchmark
+    public Page getPageFor() {
+        return book.getPageFor(lastContent);
+    }
+
+    /**
+     * Compte les choix menant à la dernière page du livre.
+     *
+     * @return  Le nombre de choix menant à la page.
+     */
+    @Benchmark
+    public int getPageBranchment() {
+        return book.getPageBranchment(last);
+    }
+}
@@ -0,0 +1,35 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.ISBN;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure la validation d'un ISBN, valide ou non, sous sa forme avec ou sans tirets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ISBNBenchmark {
+    private static final String MATRICULE = "200106";
+
+    @Param({"2-200106-05-X", "2200106300", "2-200106-05-1", "2-200106-A5-X"})
+    public String isbn;
+
+    /**
+     * Valide l'ISBN pour l'auteur des livres des benchmarks.
+     *
+     * @return  Null si l'ISBN est valide, le message d'erreur sinon.
+     */
+    @Benchmark
+    public String isValid() {
+        return ISBN.isValid(isbn, MATRICULE);
+    }
+}
@@ -0,0 +1,90 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mesure la lecture et la sauvegarde d'un fichier Json contenant plusieurs livres.
+ * Le fichier est écrit dans un dossier temporaire supprimé à la fin des mesures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonRepositoryBenchmark {
+    private static final int BOOKS = 10;
+
+    @Param({"10", "100", "1000"})
+    public int pages;
+
+    private Path directory;
+    private JsonRepository repo;
+    private Book saved;
+
+    /**
+     * Crée le fichier Json contenant les livres utilisés par les mesures.
+     *
+     * @throws IOException  Si le dossier temporaire n'a pas pu être créé.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("gbeditor-bench");
+        repo = new JsonRepository(directory, "books");
+        repo.setCurrentAuthor(BenchmarkBooks.generator(pages).authorNameOf(0));
+        final var books = new Book[BOOKS];
+        for(int i = 0; i < BOOKS; i++) {
+            books[i] = BenchmarkBooks.of(i + 1, pages);
+        }
+        repo.add(books);
+        saved = books[BOOKS / 2];
+    }
+
+    /**
+     * Supprime le dossier temporaire et son contenu.
+     *
+     * @throws IOException  Si un fichier n'a pas pu être supprimé.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.walk(directory)) {
+            for(final var f : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(f);
+            }
+        }
+    }
+
+    /**
+     * Lit tous les livres du fichier.
+     *
+     * @return  Les livres lus.
+     */
+    @Benchmark
+    public List<BookDTO> getData() {
+        return repo.getData();
+    }
+
+    /**
+     * Sauvegarde un livre existant, ce qui réécrit tout le fichier.
+     */
+    @Benchmark
+    public void save() {
+        repo.save(saved);
+    }
+}
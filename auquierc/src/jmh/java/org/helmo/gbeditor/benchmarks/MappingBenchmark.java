@@ -0,0 +1,89 @@
+package org.helmo.gbeditor.benchmarks;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.infrastructures.Mapping;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure la conversion d'un livre en BookDTO et inversement.
+ * Le temps de conversion d'un BookDTO en livre doit croître linéairement avec le nombre de pages,
+ * que les choix désignent leur page cible par son contenu ou par son numéro.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MappingBenchmark {
+    @Param({"10", "100", "1000", "10000", "20000"})
+    public int pages;
+
+    private Book book;
+    private BookDTO dto;
+    private BookDTO dtoByNumber;
+
+    /**
+     * Crée le livre et le BookDTO utilisés par les mesures.
+     */
+    @Setup
+    public void setUp() {
+        book = BenchmarkBooks.of(1, pages);
+        dto = Mapping.convertToBookDTO(book);
+        dtoByNumber = withTargetsByNumber(dto);
+    }
+
+    private static BookDTO withTargetsByNumber(final BookDTO dto) {
+        final Map<String, Integer> numByContent = new HashMap<>();
+        dto.getPages().forEach(p -> numByContent.put(p.getContent(), p.getNumPage()));
+        final List<PageDTO> pages = new ArrayList<>();
+        for(final var p : dto.getPages()) {
+            final Map<String, String> choices = new HashMap<>();
+            p.getChoices().forEach((label, target) -> choices.put(label, String.valueOf(numByContent.get(target))));
+            pages.add(new PageDTO(p.getContent(), choices, p.getNumPage()));
+        }
+        return new BookDTO(dto.title, dto.isbn, dto.author, dto.resume, dto.imgPath, dto.version, pages);
+    }
+
+    /**
+     * Convertit un BookDTO en livre.
+     *
+     * @return  Le livre obtenu.
+     */
+    @Benchmark
+    public Book convertToBook() {
+        return Mapping.convertToBook(dto);
+    }
+
+    /**
+     * Convertit en livre un BookDTO dont les choix désignent leur page cible par son numéro.
+     *
+     * @return  Le livre obtenu.
+     */
+    @Benchmark
+    public Book convertToBookWithTargetsByNumber() {
+        return Mapping.convertToBook(dtoByNumber);
+    }
+
+    /**
+     * Convertit un livre en BookDTO.
+     *
+     * @return  Le BookDTO obtenu.
+     */
+    @Benchmark
+    public BookDTO convertToBookDTO() {
+        return Mapping.convertToBookDTO(book);
+    }
+}
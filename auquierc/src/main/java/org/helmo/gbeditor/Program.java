@@ -1,17 +1,22 @@
 package org.helmo.gbeditor;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import org.helmo.gbeditor.domains.Session;
 import org.helmo.gbeditor.infrastructures.RepositoryFactory;
 import org.helmo.gbeditor.infrastructures.RepositoryType;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
+import org.helmo.gbeditor.infrastructures.metrics.RepositoryMetrics;
 import org.helmo.gbeditor.presenter.*;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.views.*;
 
 /**
  * Classe principale s'occupant du lancement du programme.
  */
 public class Program extends Application {
+    private AsyncRepository repo;
 
     /**
      * Lance le programme.
@@ -22,6 +27,16 @@ public class Program extends Application {
         launch(args);
     }
 
+    /**
+     * Écrit les sauvegardes encore différées puis ferme le repository avant que l'application ne se ferme.
+     */
+    @Override
+    public void stop() {
+        if(repo != null) {
+            repo.close();
+        }
+    }
+
     @Override
     public void start(Stage stage) throws Exception {
         MainWindow mainWindow = getMainWindow();
@@ -37,13 +52,29 @@ public class Program extends Application {
         stage.show();
     }
 
+    /**
+     * Crée les mesures des repositories et les rend consultables par JMX (JConsole, VisualVM...).
+     *
+     * @return  Les mesures des repositories.
+     */
+    private static RepositoryMetrics getMetrics() {
+        final var metrics = new RepositoryMetrics();
+        Metrics.use(metrics);
+        metrics.register();
+        return metrics;
+    }
+
     /**
      * Instancie une nouvelle MainWindow
+     * Les presenters partagent un repository asynchrone dont les résultats sont transmis au thread de JavaFX.
      *
      * @return  Retourne une nouvelle MainWindow avec une Session et un Repository.
      */
-    private static MainWindow getMainWindow() {
-        var repo = new RepositoryFactory(RepositoryType.MY_SQL_DB).newRepository();
+    private MainWindow getMainWindow() {
+        repo = new AsyncRepository(
+                new RepositoryFactory(RepositoryType.MY_SQL_DB, RepositoryFactory.DEFAULT_CACHE_SIZE, getMetrics()).newRepository(),
+                Platform::runLater,
+                AsyncRepository.DEFAULT_SAVE_WINDOW);
         var session = new Session();
         return new MainWindow(
                 new LoginView(ViewName.LOGIN_VIEW, new LoginPresenter(session, repo)),
@@ -4,9 +4,10 @@ import org.helmo.gbeditor.domains.factory.BookFactory;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * S'occupe des opérations faites sur un livre.
@@ -17,7 +18,11 @@ public class Book implements Iterable<Page> {
     private final BookMetadata data;
     private String imgPath;
 
-    private final List<Page> pagesList = new LinkedList<>();
+    private final PageSequence pagesList = new PageSequence();
+    private BookGraph graph;
+    private int graphedAt;
+    private BookAnalysis analysis;
+    private BookGraph analysedGraph;
 
     /**
      * Crée un nuveau livre à partir d'un titre, un résumé, un auteur, un code ISBN et une image donné.
@@ -88,18 +93,63 @@ public class Book implements Iterable<Page> {
         this.data.set(BookFieldName.ISBN, data.get(BookFieldName.ISBN));
     }
 
+    /**
+     * Crée une copie indépendante du livre, pages et choix compris.
+     * Modifier la copie ne modifie pas le livre et inversement.
+     *
+     * @return  La copie du livre.
+     */
+    public Book copy() {
+        final var result = new Book(new BookMetadata(data.get(BookFieldName.TITLE), data.get(BookFieldName.ISBN),
+                data.get(BookFieldName.SUMMARY), data.get(BookFieldName.AUTHOR)), imgPath);
+        result.data.set(BookFieldName.PUBLISH_DATE, data.get(BookFieldName.PUBLISH_DATE));
+        result.copyPagesFrom(this);
+        return result;
+    }
+
+    /**
+     * Remplace les données, les pages et les choix du livre par une copie de ceux d'un autre livre.
+     * L'auteur ne change pas et la date de publication n'est reprise que si le livre n'est pas encore publié.
+     *
+     * @param from  Livre dont l'état est repris.
+     */
+    public void restore(final Book from) {
+        this.imgPath = from.imgPath;
+        this.data.set(BookFieldName.TITLE, from.get(BookFieldName.TITLE));
+        this.data.set(BookFieldName.SUMMARY, from.get(BookFieldName.SUMMARY));
+        this.data.set(BookFieldName.ISBN, from.get(BookFieldName.ISBN));
+        if(this.data.get(BookFieldName.PUBLISH_DATE) == null) {
+            this.data.set(BookFieldName.PUBLISH_DATE, from.get(BookFieldName.PUBLISH_DATE));
+        }
+        pagesList.clear();
+        copyPagesFrom(from);
+    }
+
+    /**
+     * Ajoute à la fin du livre une copie des pages d'un autre livre, dont les choix mènent aux copies de leurs cibles.
+     */
+    private void copyPagesFrom(final Book from) {
+        final Map<Page, Page> copies = new IdentityHashMap<>();
+        for(final var page : from) {
+            copies.put(page, new Page(page.getContent()));
+        }
+        for(final var page : from) {
+            final var copy = copies.get(page);
+            for(final var choice : page) {
+                final var target = page.getPageForChoice(choice);
+                copy.addChoice(choice, copies.computeIfAbsent(target, t -> new Page(t.getContent())));
+            }
+            pagesList.add(copy);
+        }
+    }
+
     /**
      * Ajoute une page donnée au début du livre.
      *
      * @param page  Page à ajouter.
      */
     public void addBegin(final Page page) {
-        if(page == null || containsPage(page)) { return; }
-        if(pagesList.isEmpty()) {
-            pagesList.add(page);
-        } else {
-            pagesList.add(0, page);
-        }
+        pagesList.insert(0, page);
     }
 
     /**
@@ -108,7 +158,6 @@ public class Book implements Iterable<Page> {
      * @param page  Page à ajouter.
      */
     public void addEnd(final Page page) {
-        if(page == null || containsPage(page)) { return; }
         pagesList.add(page);
     }
 
@@ -119,13 +168,8 @@ public class Book implements Iterable<Page> {
      * @param after Page après laquelle l'autre page va s'ajouter.
      */
     public void addAfter(final Page page, final Page after) {
-        if(page == null || containsPage(page) || after == null) { return; }
-        int index = indexOf(after);
-        pagesList.add(index + 1, page);
-    }
-
-    private int indexOf(final Page page) {
-        return pagesList.indexOf(page);
+        if(after == null) { return; }
+        pagesList.insertAfter(page, after);
     }
 
     /**
@@ -141,6 +185,35 @@ public class Book implements Iterable<Page> {
         return imgPath;
     }
 
+    /**
+     * Analyse le graphe des pages du livre : pages inaccessibles, pages sans issue, boucles et plus long chemin.
+     * Le résultat est gardé tant qu'aucune page ni aucun choix du livre n'a changé.
+     *
+     * @return  Le résultat de l'analyse du livre.
+     */
+    public BookAnalysis analyze() {
+        final var current = toGraph();
+        if(analysis == null || analysedGraph != current) {
+            analysis = BookAnalyzer.analyze(current);
+            analysedGraph = current;
+        }
+        return analysis;
+    }
+
+    /**
+     * Récupère le graphe des choix du livre sous une forme compacte, destinée à la lecture.
+     * Le graphe est gardé tant qu'aucune page ni aucun choix du livre n'a changé.
+     *
+     * @return  Le graphe des choix du livre.
+     */
+    public BookGraph toGraph() {
+        if(graph == null || graphedAt != pagesList.modCount()) {
+            graph = BookGraph.of(pagesList);
+            graphedAt = pagesList.modCount();
+        }
+        return graph;
+    }
+
     /**
      * Détermine si la page donnée est liée ou non à une ou plusieurs autres pages.
      *
@@ -150,15 +223,18 @@ public class Book implements Iterable<Page> {
      *              Si la page n'a pas de lien avec d'autres pages, renvoie false.
      */
     public int getPageBranchment(final Page page) {
-        var count = 0;
-        for(final var p : this) {
-            for(final var c : p) {
-                if(p.getPageForChoice(c).equals(page)) {
-                    count++;
-                }
-            }
-        }
-        return count;
+        return pagesList.inDegreeOf(page);
+    }
+
+    /**
+     * Récupère les pages du livre ayant au moins un choix qui mène à la page donnée.
+     *
+     * @param page  Page dont on cherche les pages qui y mènent.
+     *
+     * @return      Une liste des pages menant à la page donnée, chaque page n'y apparaissant qu'une fois.
+     */
+    public List<Page> getPagesLeadingTo(final Page page) {
+        return pagesList.sourcesOf(page);
     }
 
     /**
@@ -169,7 +245,7 @@ public class Book implements Iterable<Page> {
      * @return      Le numéro de la page donnée ou 0 si la page n'est pas dans le livre.
      */
     public int getNForPage(final Page page) {
-        return indexOf(page) + 1;
+        return pagesList.positionOf(page) + 1;
     }
 
     /**
@@ -181,10 +257,7 @@ public class Book implements Iterable<Page> {
      */
 
     public Page getPageFor(final String content) {
-        return pagesList.stream()
-                .filter(p -> p.getContent().compareToIgnoreCase(content) == 0)
-                .findFirst()
-                .orElse(null);
+        return pagesList.get(content);
     }
 
     /**
@@ -209,7 +282,7 @@ public class Book implements Iterable<Page> {
      *                  False si la page n'était pas présente dans le livre ou si elle est toujours présente après sa suppression.
      */
     public boolean removePage(final Page toRemove) {
-        forEach(p -> p.remove(toRemove));
+        pagesList.sourcesOf(toRemove).forEach(p -> p.remove(toRemove));
         return pagesList.remove(toRemove) && !containsPage(toRemove);
     }
 
@@ -0,0 +1,71 @@
+package org.helmo.gbeditor.domains;
+
+import java.util.List;
+
+/**
+ * Représente le résultat de l'analyse du graphe des pages d'un livre.
+ * Elle indique :
+ * <ul>
+ *     <li>Les pages qu'un lecteur ne peut pas atteindre en partant de la première page</li>
+ *     <li>Les pages sans choix, qui terminent donc la lecture</li>
+ *     <li>Les boucles, c'est-à-dire les groupes de pages depuis lesquelles on peut revenir sur ses pas</li>
+ *     <li>Le plus grand nombre de choix qu'un lecteur peut faire depuis la première page sans parcourir deux fois la même boucle</li>
+ * </ul>
+ */
+public class BookAnalysis {
+    private final List<Page> unreachablePages;
+    private final List<Page> deadEnds;
+    private final List<List<Page>> cycles;
+    private final int longestPath;
+
+    /**
+     * Crée un nouveau résultat d'analyse.
+     *
+     * @param unreachablePages  Pages inaccessibles depuis la première page.
+     * @param deadEnds          Pages n'ayant aucun choix.
+     * @param cycles            Groupes de pages formant une boucle.
+     * @param longestPath       Nombre de choix du plus long chemin partant de la première page.
+     */
+    public BookAnalysis(final List<Page> unreachablePages, final List<Page> deadEnds, final List<List<Page>> cycles, final int longestPath) {
+        this.unreachablePages = List.copyOf(unreachablePages);
+        this.deadEnds = List.copyOf(deadEnds);
+        this.cycles = List.copyOf(cycles);
+        this.longestPath = longestPath;
+    }
+
+    public List<Page> getUnreachablePages() {
+        return unreachablePages;
+    }
+
+    public List<Page> getDeadEnds() {
+        return deadEnds;
+    }
+
+    public List<List<Page>> getCycles() {
+        return cycles;
+    }
+
+    public int getLongestPath() {
+        return longestPath;
+    }
+
+    /**
+     * Détermine si toutes les pages du livre peuvent être lues en partant de la première page.
+     *
+     * @return  True si aucune page n'est inaccessible.
+     *          False sinon.
+     */
+    public boolean isFullyReachable() {
+        return unreachablePages.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "BookAnalysis{" +
+                "unreachablePages=" + unreachablePages.size() +
+                ", deadEnds=" + deadEnds.size() +
+                ", cycles=" + cycles.size() +
+                ", longestPath=" + longestPath +
+                '}';
+    }
+}
@@ -0,0 +1,208 @@
+package org.helmo.gbeditor.domains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cette classe analyse le graphe formé par les pages d'un livre et leurs choix (voir {@link BookGraph}).
+ * Tous les parcours sont itératifs afin de ne pas dépendre de la taille de la pile sur les gros livres.
+ * Les choix menant à une page qui n'est pas dans le livre sont ignorés.
+ */
+final class BookAnalyzer {
+    private final BookGraph graph;
+
+    private BookAnalyzer(final BookGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Analyse le graphe des choix d'un livre.
+     *
+     * @param graph     Graphe des choix du livre.
+     *
+     * @return          Le résultat de l'analyse.
+     */
+    static BookAnalysis analyze(final BookGraph graph) {
+        return new BookAnalyzer(graph).analyze();
+    }
+
+    /**
+     * Compte les choix d'une page menant à une page du livre.
+     */
+    private int outDegree(final int page) {
+        var count = 0;
+        for(int c = graph.choicesStart(page); c < graph.choicesEnd(page); c++) {
+            if(graph.isInBook(graph.targetOf(c))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private BookAnalysis analyze() {
+        final var n = graph.size();
+        if(n == 0) {
+            return new BookAnalysis(List.of(), List.of(), List.of(), 0);
+        }
+        final var reachable = reachableFromFirst();
+        final List<Page> unreachable = new ArrayList<>();
+        final List<Page> deadEnds = new ArrayList<>();
+        for(int u = 0; u < n; u++) {
+            if(!reachable[u]) {
+                unreachable.add(graph.getPage(u));
+            }
+            if(outDegree(u) == 0) {
+                deadEnds.add(graph.getPage(u));
+            }
+        }
+        final var components = new Components();
+        final List<List<Page>> cycles = new ArrayList<>();
+        for(int c = 0; c < components.count; c++) {
+            if(components.isCycle(c)) {
+                final List<Page> cycle = new ArrayList<>(components.start[c + 1] - components.start[c]);
+                for(int m = components.start[c]; m < components.start[c + 1]; m++) {
+                    cycle.add(graph.getPage(components.members[m]));
+                }
+                cycles.add(cycle);
+            }
+        }
+        return new BookAnalysis(unreachable, deadEnds, cycles, components.longestPathFrom(0));
+    }
+
+    /**
+     * Parcourt le livre en largeur à partir de la première page.
+     */
+    private boolean[] reachableFromFirst() {
+        final var reached = new boolean[graph.size()];
+        final var queue = new int[graph.size()];
+        var head = 0;
+        var tail = 0;
+        queue[tail++] = 0;
+        reached[0] = true;
+        while(head < tail) {
+            final var u = queue[head++];
+            for(int c = graph.choicesStart(u); c < graph.choicesEnd(u); c++) {
+                final var v = graph.targetOf(c);
+                if(graph.isInBook(v) && !reached[v]) {
+                    reached[v] = true;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Représente les composantes fortement connexes du graphe, calculées avec l'algorithme de Tarjan.
+     * Les composantes sont numérotées dans l'ordre où Tarjan les termine : une composante n'a de choix
+     * que vers des composantes de numéro inférieur.
+     */
+    private class Components {
+        private final int[] componentOf;
+        private final int[] members;
+        private final int[] start;
+        private int count;
+
+        private Components() {
+            final var n = graph.size();
+            componentOf = new int[n];
+            members = new int[n];
+            start = new int[n + 1];
+            final var index = new int[n];
+            final var low = new int[n];
+            final var onStack = new boolean[n];
+            final var stack = new int[n];
+            final var callStack = new int[n];
+            final var nextEdge = new int[n];
+            Arrays.fill(index, -1);
+            var counter = 0;
+            var sp = 0;
+            var added = 0;
+            for(int root = 0; root < n; root++) {
+                if(index[root] != -1) {
+                    continue;
+                }
+                var csp = 0;
+                index[root] = low[root] = counter++;
+                stack[sp++] = root;
+                onStack[root] = true;
+                callStack[csp] = root;
+                nextEdge[csp++] = graph.choicesStart(root);
+                while(csp > 0) {
+                    final var u = callStack[csp - 1];
+                    if(nextEdge[csp - 1] < graph.choicesEnd(u)) {
+                        final var v = graph.targetOf(nextEdge[csp - 1]++);
+                        if(!graph.isInBook(v)) {
+                            continue;
+                        }
+                        if(index[v] == -1) {
+                            index[v] = low[v] = counter++;
+                            stack[sp++] = v;
+                            onStack[v] = true;
+                            callStack[csp] = v;
+                            nextEdge[csp++] = graph.choicesStart(v);
+                        } else if(onStack[v]) {
+                            low[u] = Math.min(low[u], index[v]);
+                        }
+                        continue;
+                    }
+                    csp--;
+                    if(csp > 0) {
+                        final var parent = callStack[csp - 1];
+                        low[parent] = Math.min(low[parent], low[u]);
+                    }
+                    if(low[u] == index[u]) {
+                        start[count] = added;
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            componentOf[w] = count;
+                            members[added++] = w;
+                        } while(w != u);
+                        count++;
+                    }
+                }
+            }
+            start[count] = added;
+        }
+
+        /**
+         * Détermine si une composante forme une boucle : plusieurs pages, ou une seule page ayant un choix vers elle-même.
+         */
+        private boolean isCycle(final int component) {
+            if(start[component + 1] - start[component] > 1) {
+                return true;
+            }
+            final var u = members[start[component]];
+            for(int c = graph.choicesStart(u); c < graph.choicesEnd(u); c++) {
+                if(graph.targetOf(c) == u) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Calcule le plus grand nombre de choix menant d'une composante à une autre sur un chemin partant d'une page donnée.
+         * Chaque boucle compte comme une seule étape, le résultat est donc exact pour un livre sans boucle.
+         */
+        private int longestPathFrom(final int page) {
+            final var longest = new int[count];
+            for(int c = 0; c < count; c++) {
+                for(int m = start[c]; m < start[c + 1]; m++) {
+                    final var u = members[m];
+                    for(int e = graph.choicesStart(u); e < graph.choicesEnd(u); e++) {
+                        final var v = graph.targetOf(e);
+                        final var d = graph.isInBook(v) ? componentOf[v] : c;
+                        if(d != c) {
+                            longest[c] = Math.max(longest[c], longest[d] + 1);
+                        }
+                    }
+                }
+            }
+            return longest[componentOf[page]];
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.helmo.gbeditor.domains;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Représente, en lecture seule, le graphe des choix d'un livre sous une forme compacte.
+ * Les pages du livre sont numérotées de 0 à {@link #size()} - 1 dans l'ordre du livre et les choix sont rangés
+ * dans des tableaux d'entiers : les choix de la page i sont numérotés de {@link #choicesStart(int)} à
+ * {@link #choicesEnd(int)} - 1. Chaque libellé de choix n'est gardé qu'une seule fois, quel que soit le nombre
+ * de choix qui l'utilisent.
+ * Un choix peut mener à une page qui n'est pas dans le livre, cette page reçoit alors un numéro supérieur ou égal
+ * à {@link #size()}.
+ */
+public final class BookGraph {
+    private final Page[] pages;
+    private final int size;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] labels;
+    private final String[] labelPool;
+    private final int[] inDegrees;
+
+    private BookGraph(final Page[] pages, final int size, final int[] offsets, final int[] targets, final int[] labels, final String[] labelPool) {
+        this.pages = pages;
+        this.size = size;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.labels = labels;
+        this.labelPool = labelPool;
+        this.inDegrees = new int[size];
+        for(final var t : targets) {
+            if(t < size) {
+                inDegrees[t]++;
+            }
+        }
+    }
+
+    /**
+     * Construit le graphe des choix de pages données.
+     */
+    static BookGraph of(final PageSequence sequence) {
+        final List<Page> pages = new ArrayList<>(sequence.size());
+        final Map<Page, Integer> ids = new IdentityHashMap<>(sequence.size() * 2);
+        var choices = 0;
+        for(final var p : sequence) {
+            ids.put(p, pages.size());
+            pages.add(p);
+            choices += p.getChoicesCount();
+        }
+        final var size = pages.size();
+        final var offsets = new int[size + 1];
+        final var targets = new int[choices];
+        final var labels = new int[choices];
+        final Map<String, Integer> labelIds = new HashMap<>();
+        final List<String> labelPool = new ArrayList<>();
+        var c = 0;
+        for(int i = 0; i < size; i++) {
+            offsets[i] = c;
+            final var page = pages.get(i);
+            for(final var label : page) {
+                final var target = page.getPageForChoice(label);
+                if(target == null) {
+                    continue;
+                }
+                var id = ids.get(target);
+                if(id == null) {
+                    final var present = sequence.get(target.getContent());
+                    id = present == null ? null : ids.get(present);
+                }
+                if(id == null) {
+                    id = pages.size();
+                    ids.put(target, id);
+                    pages.add(target);
+                }
+                targets[c] = id;
+                labels[c++] = labelIds.computeIfAbsent(label, l -> {
+                    labelPool.add(l);
+                    return labelPool.size() - 1;
+                });
+            }
+        }
+        offsets[size] = c;
+        return new BookGraph(pages.toArray(new Page[0]), size, offsets,
+                c == choices ? targets : Arrays.copyOf(targets, c),
+                c == choices ? labels : Arrays.copyOf(labels, c),
+                labelPool.toArray(new String[0]));
+    }
+
+    /**
+     * Récupère le nombre de pages du livre.
+     *
+     * @return  Le nombre de pages du livre, sans compter les pages hors du livre ciblées par un choix.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Récupère le nombre total de choix du livre.
+     *
+     * @return  Le nombre de choix de toutes les pages du livre.
+     */
+    public int choicesCount() {
+        return targets.length;
+    }
+
+    /**
+     * Récupère le nombre de libellés différents utilisés par les choix du livre.
+     *
+     * @return  Le nombre de libellés distincts.
+     */
+    public int labelsCount() {
+        return labelPool.length;
+    }
+
+    /**
+     * Détermine si un numéro de page correspond à une page du livre.
+     *
+     * @param page  Numéro de la page.
+     *
+     * @return      True si la page fait partie du livre.
+     *              False si c'est une page hors du livre ciblée par un choix.
+     */
+    public boolean isInBook(final int page) {
+        return page < size;
+    }
+
+    /**
+     * Récupère la page ayant un numéro donné.
+     *
+     * @param page  Numéro de la page.
+     *
+     * @return      La page correspondante.
+     */
+    public Page getPage(final int page) {
+        return pages[page];
+    }
+
+    /**
+     * Compte les choix du livre qui mènent à une page du livre.
+     *
+     * @param page  Numéro de la page.
+     *
+     * @return      Le nombre de choix menant à la page.
+     */
+    public int inDegree(final int page) {
+        return inDegrees[page];
+    }
+
+    /**
+     * Récupère le numéro du premier choix d'une page du livre.
+     *
+     * @param page  Numéro de la page.
+     *
+     * @return      Le numéro de son premier choix.
+     */
+    public int choicesStart(final int page) {
+        return offsets[page];
+    }
+
+    /**
+     * Récupère le numéro qui suit celui du dernier choix d'une page du livre.
+     *
+     * @param page  Numéro de la page.
+     *
+     * @return      Le numéro qui suit celui de son dernier choix.
+     */
+    public int choicesEnd(final int page) {
+        return offsets[page + 1];
+    }
+
+    /**
+     * Récupère le numéro de la page ciblée par un choix.
+     *
+     * @param choice    Numéro du choix.
+     *
+     * @return          Le numéro de la page ciblée.
+     */
+    public int targetOf(final int choice) {
+        return targets[choice];
+    }
+
+    /**
+     * Récupère le libellé d'un choix.
+     *
+     * @param choice    Numéro du choix.
+     *
+     * @return          Le libellé du choix.
+     */
+    public String labelOf(final int choice) {
+        return labelPool[labels[choice]];
+    }
+}
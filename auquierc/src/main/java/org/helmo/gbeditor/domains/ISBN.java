@@ -1,9 +1,6 @@
 package org.helmo.gbeditor.domains;
 
-import org.helmo.gbeditor.domains.factory.ISBNFactory;
-
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 /**
  * Cette classe s'occupe de toutes les opérations liées à un ISBN.
@@ -36,7 +33,7 @@ public class ISBN {
         if(isbn == null) {
             throw new WrongFormattedISBNException("The ISBN cannot be null");
         }
-        return new ISBN(ISBNFactory.formatIsbn(isbn.replace("-", "")));
+        return new ISBN(ISBNCodec.format(isbn));
     }
 
     /**
@@ -50,112 +47,7 @@ public class ISBN {
      *          Si le code ISBN n'est pas valide, renvoie une chaine de caractères spécifiant ce qui ne va pas.
      */
     public static String isValid(String isbn, final String matriculeId) {
-        if(isbn == null || isbn.isBlank()) { return ISBNTypeError.EMTY_ISBN.message; }
-        final String isbnReplaced = isbn.replaceAll("-", "");
-        String validFormat = validFormatFor(isbnReplaced);
-        if(validFormat == null) {
-            return validDataFor(isbnReplaced, matriculeId);
-        }
-        return validFormat;
-    }
-
-    /**
-     * Valide les données contenue dans un ISBN donné.
-     *
-     * @param isbn          Code ISBN, du livre, que l'on cherche à valider
-     * @param matriculeId   Matricule de l'auteur, du livre.
-     *
-     * @return      Si le code ISBN n'a pas le code linguistique 2, retourne un message d'erreur
-     *              Si l'ISBN donnée ne contient pas le matricule donné, retourne un message d'erreur
-     *              Si le code de vérification de l'ISBN n'est pas valide, retourne un message d'erreur
-     *              Sinon, on considère que les données contenue dans l'ISBN sont valides, la méthode
-     *              retourne alors null.
-     */
-    private static String validDataFor(final String isbn, final String matriculeId) {
-        if(isbn.charAt(0) != LANG_CODE) {
-            return ISBNTypeError.WRONG_LANG_CODE.message;
-        } else if(!Pattern.matches("[0-9]" + matriculeId + "([0-9]+)[A-Za-z]?", isbn)) {
-            return ISBNTypeError.WRONG_AUTHOR.message;
-        } else if(getControlNumber(isbn) != controlNumberFor(isbn)) {
-            return ISBNTypeError.WRONG_CONTROL_NUMBER.message;
-        }
-        return null;
-    }
-
-    private static int getControlNumber(final String isbn) {
-        switch (isbn.substring(9)) {
-            case "X":
-            case "x":
-                return 10;
-            case "0":
-                return 11;
-            default:
-                return Integer.parseInt(isbn.substring(9));
-        }
-    }
-
-    /**
-     * Vérifie que le format de l'ISBN donné est valide.
-     *
-     * @param isbn  Code ISBN, du livre, que l'on cherche à valider
-     *
-     * @return      Si l'ISBN donné est null ou vide, retourne un message d'erreur.
-     *              Si l'ISBN contient des lettres autres que X, retourne un message d'erreur.
-     *              Si la longueur de l'ISBN et différente de 10 et de 11, retourne un message d'erreur.
-     *              Sinon, on considère que les données contenue dans l'ISBN sont valides, la méthode
-     *              retourne alors null.
-     */
-    private static String validFormatFor(final String isbn) {
-        if(containsLetter(isbn)) {
-            return ISBNTypeError.CONTAINS_LETTER.message;
-        } else if(isbn.length() != 10 && isbn.length() != 11) {
-            return ISBNTypeError.TOO_MANY_CHARACTER.message;
-        }
-        return null;
-    }
-
-    /**
-     * Vérifie qu'un ISBN donné ne contient que des chiffres avec ou sans la lettre X.
-     *
-     * @param isbn  Code ISBN, du livre, que l'on cherche à valider
-     *
-     * @return      False, si l'ISBN donné contient autre chose que des chiffres ou la lettre X
-     *              True, sinon.
-     */
-    private static boolean containsLetter(final String isbn) {
-        return Pattern.compile("[^0-9|Xx]+").matcher(isbn).find();
-    }
-
-    /**
-     * <p>Calcul le code de vérification pour un ISBN donné.</p>
-     * <p>
-     * Il se calcule de la manière suivante :
-     * <ul>
-     * <li>2 200106 30</li>
-     * <li>2 * 10 => 20</li>
-     * <li>2 * 9 => 18</li>
-     * <li>0 * 8 => 0</li>
-     * <li>0 * 7 => 0</li>
-     * <li>1 * 6 => 6</li>
-     * <li>0 * 5 => 0</li>
-     * <li>6 * 4 => 24</li>
-     * <li>3 * 3 => 9</li>
-     * <li>0 * 2 => 0</li>
-     * </ul>
-     * ===> 77 % 11 = 0 => 11 - 0 = 11
-     *</p>
-     *
-     * @param isbn  Code ISBN dont on veut connaitre le code de vérification.
-     *
-     * @return      Retourne le code de vérification correspondant à l'ISBN donné.
-     */
-    private static int controlNumberFor(final String isbn) {
-        int total = 0;
-        int i;
-        for(i = 0; i < 10 - 1; i++) {
-            total += Integer.parseInt(isbn.charAt(i) + "") * (10 - i);
-        }
-        return 11 - (total % 11);
+        return ISBNCodec.validate(isbn, matriculeId);
     }
 
     /**
@@ -0,0 +1,314 @@
+package org.helmo.gbeditor.domains;
+
+/**
+ * Cette classe valide, calcule et convertit les codes ISBN caractère par caractère.
+ * Un ISBN existe sous deux formes :
+ * <ul>
+ *     <li>La forme d'affichage, par exemple 2-200106-30-0, où les numéros de contrôle 10 et 11 sont écrits X et 0</li>
+ *     <li>La forme de stockage, par exemple 22001063011, sans tirets et où les numéros de contrôle 10 et 11 sont écrits en entier</li>
+ * </ul>
+ * Aucune expression régulière n'est utilisée et chaque conversion ne crée que la chaîne de caractères résultante.
+ */
+public final class ISBNCodec {
+    private static final char SEPARATOR = '-';
+
+    private ISBNCodec() { }
+
+    /**
+     * Vérifie qu'un code ISBN donné est valide pour un auteur donné.
+     *
+     * @param isbn          Code ISBN, avec ou sans tirets.
+     * @param matriculeId   Matricule de l'auteur.
+     *
+     * @return              Null si le code ISBN est valide.
+     *                      Sinon, le message désignant ce qui ne va pas avec l'ISBN donné.
+     */
+    public static String validate(final String isbn, final String matriculeId) {
+        if(isbn == null || isbn.isBlank()) {
+            return ISBN.ISBNTypeError.EMTY_ISBN.getMessage();
+        }
+        final var digits = strip(isbn);
+        for(final var c : digits) {
+            if(!isDigit(c) && c != 'X' && c != 'x' && c != '|') {
+                return ISBN.ISBNTypeError.CONTAINS_LETTER.getMessage();
+            }
+        }
+        if(digits.length != ISBN.ISBN_MIN_LENGTH && digits.length != ISBN.ISBN_MAX_LENGTH) {
+            return ISBN.ISBNTypeError.TOO_MANY_CHARACTER.getMessage();
+        }
+        if(digits[0] != ISBN.LANG_CODE) {
+            return ISBN.ISBNTypeError.WRONG_LANG_CODE.getMessage();
+        }
+        if(!belongsTo(digits, String.valueOf(matriculeId))) {
+            return ISBN.ISBNTypeError.WRONG_AUTHOR.getMessage();
+        }
+        if(controlNumberOf(digits) != checkDigit(digits)) {
+            return ISBN.ISBNTypeError.WRONG_CONTROL_NUMBER.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Détermine si un ISBN sans tirets est formé d'un chiffre, du matricule donné, d'au moins un chiffre
+     * et éventuellement d'une lettre finale.
+     */
+    private static boolean belongsTo(final char[] digits, final String matriculeId) {
+        final var start = 1 + matriculeId.length();
+        var end = digits.length;
+        if(end > 0 && isLetter(digits[end - 1])) {
+            end--;
+        }
+        if(end <= start || !isDigit(digits[0])) {
+            return false;
+        }
+        for(int i = 0; i < matriculeId.length(); i++) {
+            if(digits[i + 1] != matriculeId.charAt(i)) {
+                return false;
+            }
+        }
+        for(int i = start; i < end; i++) {
+            if(!isDigit(digits[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lit le numéro de contrôle écrit à la fin d'un ISBN sans tirets.
+     *
+     * @return  Le numéro de contrôle ou -1 s'il ne peut pas être lu.
+     */
+    private static int controlNumberOf(final char[] digits) {
+        if(digits.length == ISBN.ISBN_MIN_LENGTH) {
+            final var c = digits[9];
+            if(c == 'X' || c == 'x') {
+                return 10;
+            }
+            if(c == '0') {
+                return 11;
+            }
+            return isDigit(c) ? c - '0' : -1;
+        }
+        var result = 0;
+        for(int i = 9; i < digits.length; i++) {
+            if(!isDigit(digits[i])) {
+                return -1;
+            }
+            result = result * 10 + digits[i] - '0';
+        }
+        return result;
+    }
+
+    /**
+     * <p>Calcule le numéro de contrôle à partir des neuf premiers chiffres d'un ISBN.</p>
+     * <p>Chaque chiffre est multiplié par son poids, de 10 pour le premier à 2 pour le neuvième,
+     * le numéro de contrôle vaut alors 11 moins le reste de la division de leur somme par 11.</p>
+     *
+     * @return  Un numéro de contrôle compris entre 1 et 11.
+     */
+    private static int checkDigit(final char[] digits) {
+        var total = 0;
+        for(int i = 0; i < 9; i++) {
+            total += (digits[i] - '0') * (10 - i);
+        }
+        return 11 - (total % 11);
+    }
+
+    /**
+     * Calcule l'ISBN d'un livre à partir du code linguistique, du matricule de son auteur et de son numéro.
+     *
+     * @param langCode      Code du groupe linguistique auquel appartient le livre.
+     * @param authorMat     Matricule de l'auteur ayant encodé le livre.
+     * @param nBook         Numéro du livre.
+     *
+     * @return              L'ISBN du livre sous sa forme d'affichage.
+     */
+    public static String compute(final int langCode, final String authorMat, final int nBook) {
+        final var prefix = new char[20 + authorMat.length()];
+        var len = appendInt(prefix, 0, langCode);
+        authorMat.getChars(0, authorMat.length(), prefix, len);
+        len += authorMat.length();
+        if(nBook < 10) {
+            prefix[len++] = '0';
+        }
+        len = appendInt(prefix, len, nBook);
+        for(int i = 0; i < 9; i++) {
+            if(!isDigit(prefix[i])) {
+                throw new NumberFormatException("L'ISBN ne peut contenir que des chiffres : " + new String(prefix, 0, len));
+            }
+        }
+        len = appendInt(prefix, len, checkDigit(prefix));
+        if(len == ISBN.ISBN_MAX_LENGTH) {
+            prefix[9] = prefix[9] == '1' && prefix[10] == '0' ? 'X' : '0';
+            len = ISBN.ISBN_MIN_LENGTH;
+        }
+        return format(prefix, len);
+    }
+
+    /**
+     * Met en forme un ISBN, avec ou sans tirets, comme ici : 1-234567-89-0
+     * Les ISBN de moins de 10 chiffres sont renvoyés sans tirets.
+     *
+     * @param isbn  ISBN à mettre en forme.
+     *
+     * @return      L'ISBN mis en forme.
+     */
+    public static String format(final String isbn) {
+        final var digits = strip(isbn);
+        return format(digits, digits.length);
+    }
+
+    /**
+     * Convertit un ISBN sous sa forme d'affichage en sa forme de stockage.
+     * Exemple : 2-200106-30-0 devient 22001063011.
+     *
+     * @param isbn  ISBN à convertir.
+     *
+     * @return      L'ISBN sous sa forme de stockage.
+     */
+    public static String toStorage(final String isbn) {
+        final var digits = strip(isbn);
+        if(digits.length == ISBN.ISBN_MIN_LENGTH && (digits[9] == '0' || digits[9] == 'X')) {
+            final var result = new char[ISBN.ISBN_MAX_LENGTH];
+            System.arraycopy(digits, 0, result, 0, 9);
+            result[9] = '1';
+            result[10] = digits[9] == '0' ? '1' : '0';
+            return new String(result);
+        }
+        return digits.length == isbn.length() ? isbn : new String(digits);
+    }
+
+    /**
+     * Convertit un ISBN sous sa forme de stockage en sa forme d'affichage, sans tirets.
+     * Exemple : 22001063011 devient 2200106300.
+     *
+     * @param isbn  ISBN à convertir.
+     *
+     * @return      L'ISBN sous sa forme d'affichage, sans tirets.
+     */
+    public static String fromStorage(final String isbn) {
+        final var digits = strip(isbn);
+        final var len = shortenControlNumber(digits);
+        return len == isbn.length() ? isbn : new String(digits, 0, len);
+    }
+
+    /**
+     * Convertit un ISBN sous sa forme de stockage en sa forme d'affichage mise en forme.
+     * Exemple : 22001063011 devient 2-200106-30-0.
+     *
+     * @param isbn  ISBN à convertir.
+     *
+     * @return      L'ISBN sous sa forme d'affichage mise en forme.
+     */
+    public static String toDisplay(final String isbn) {
+        final var digits = strip(isbn);
+        return format(digits, shortenControlNumber(digits));
+    }
+
+    /**
+     * Lit le numéro du livre, c'est-à-dire les deux chiffres qui suivent le matricule de l'auteur, d'un ISBN
+     * sous l'une ou l'autre de ses formes.
+     *
+     * @param isbn  ISBN dont on veut le numéro du livre.
+     *
+     * @return      Le numéro du livre ou -1 si l'ISBN est trop court ou si ce numéro n'est pas formé de chiffres.
+     */
+    public static int bookNumberOf(final String isbn) {
+        final var digits = strip(isbn);
+        if(digits.length < 9 || !isDigit(digits[7]) || !isDigit(digits[8])) {
+            return -1;
+        }
+        return (digits[7] - '0') * 10 + digits[8] - '0';
+    }
+
+    /**
+     * Lit le matricule de l'auteur d'un ISBN sous l'une ou l'autre de ses formes.
+     *
+     * @param isbn  ISBN dont on veut le matricule de l'auteur.
+     *
+     * @return      Le matricule de l'auteur ou null si l'ISBN est trop court.
+     */
+    public static String matriculeOf(final String isbn) {
+        final var digits = strip(isbn);
+        return digits.length < 7 ? null : new String(digits, 1, 6);
+    }
+
+    /**
+     * Remplace, dans un ISBN sans tirets de 11 caractères, le numéro de contrôle 10 par X et 11 par 0.
+     *
+     * @return  La nouvelle longueur de l'ISBN.
+     */
+    private static int shortenControlNumber(final char[] digits) {
+        if(digits.length != ISBN.ISBN_MAX_LENGTH) {
+            return digits.length;
+        }
+        digits[9] = digits[9] == '1' && digits[10] == '0' ? 'X' : '0';
+        return ISBN.ISBN_MIN_LENGTH;
+    }
+
+    private static String format(final char[] digits, final int len) {
+        if(len < ISBN.ISBN_MIN_LENGTH) {
+            return new String(digits, 0, len);
+        }
+        final var result = new char[len + 3];
+        result[0] = digits[0];
+        result[1] = SEPARATOR;
+        System.arraycopy(digits, 1, result, 2, 6);
+        result[8] = SEPARATOR;
+        result[9] = digits[7];
+        result[10] = digits[8];
+        result[11] = SEPARATOR;
+        System.arraycopy(digits, 9, result, 12, len - 9);
+        return new String(result);
+    }
+
+    /**
+     * Récupère les caractères d'un ISBN sans ses tirets.
+     */
+    private static char[] strip(final String isbn) {
+        var count = 0;
+        for(int i = 0; i < isbn.length(); i++) {
+            if(isbn.charAt(i) != SEPARATOR) {
+                count++;
+            }
+        }
+        final var result = new char[count];
+        for(int i = 0, j = 0; i < isbn.length(); i++) {
+            final var c = isbn.charAt(i);
+            if(c != SEPARATOR) {
+                result[j++] = c;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Écrit un entier positif en base 10 à une position donnée.
+     *
+     * @return  La position qui suit le dernier chiffre écrit.
+     */
+    private static int appendInt(final char[] into, final int at, final int value) {
+        if(value < 0) {
+            throw new IllegalArgumentException("Le nombre ne peut pas être négatif : " + value);
+        }
+        var digits = 1;
+        for(int v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        var v = value;
+        for(int i = at + digits - 1; i >= at; i--) {
+            into[i] = (char) ('0' + v % 10);
+            v /= 10;
+        }
+        return at + digits;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
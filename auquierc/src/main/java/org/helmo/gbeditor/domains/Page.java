@@ -10,6 +10,7 @@ import java.util.Map;
 public class Page implements Iterable<String>, Comparable<Page> {
     private String content;
     private final Map<String, Page> choices = new HashMap<>();
+    private PageListener listener;
 
     /**
      * Crée une nouvelle page avec un contenu donné.
@@ -20,14 +21,48 @@ public class Page implements Iterable<String>, Comparable<Page> {
         this.content = content;
     }
 
+    /**
+     * Modifie le contenu de la page.
+     *
+     * @param content   Nouveau contenu de la page.
+     *
+     * @throws ContentAlreadyUsedException Si la page se trouve dans un livre dont une autre page a déjà ce contenu.
+     */
     public void setContent(String content) {
+        final var oldContent = this.content;
         this.content = content;
+        if(listener != null) {
+            try {
+                listener.onContentChanged(this, oldContent);
+            } catch (RuntimeException e) {
+                this.content = oldContent;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Définit qui sera prévenu des modifications de la page, c'est-à-dire le livre qui la contient.
+     *
+     * @param listener  Objet à prévenir ou null pour ne plus prévenir personne.
+     */
+    void setListener(final PageListener listener) {
+        this.listener = listener;
     }
 
     public Map<String, Page> getChoices() {
         return Map.copyOf(choices);
     }
 
+    /**
+     * Récupère le nombre de choix de la page sans copier ses choix.
+     *
+     * @return  Le nombre de choix de la page.
+     */
+    public int getChoicesCount() {
+        return choices.size();
+    }
+
     /**
      * Récupère la page liée au choix donné.
      *
@@ -45,7 +80,21 @@ public class Page implements Iterable<String>, Comparable<Page> {
      * @param page  Page à supprimer de choix.
      */
     public void remove(final Page page) {
-        choices.values().remove(page);
+        final var it = choices.values().iterator();
+        while(it.hasNext()) {
+            final var target = it.next();
+            if(target.equals(page)) {
+                it.remove();
+                notifyChoiceChanged(target, null);
+                return;
+            }
+        }
+    }
+
+    private void notifyChoiceChanged(final Page oldTarget, final Page newTarget) {
+        if(listener != null && oldTarget != newTarget) {
+            listener.onChoiceChanged(this, oldTarget, newTarget);
+        }
     }
 
     /**
@@ -61,7 +110,7 @@ public class Page implements Iterable<String>, Comparable<Page> {
             throw new TheTargetPageCannotBeTheSourcePage("Une page ne peut pas être liée à elle-même.");
         }
         if(choice != null && !choice.isEmpty() && target != null) {
-            choices.put(choice, target);
+            notifyChoiceChanged(choices.put(choice, target), target);
         }
     }
 
@@ -71,7 +120,7 @@ public class Page implements Iterable<String>, Comparable<Page> {
      * @param choices   Choix que la page aura.
      */
     public void setChoices(final Map<String, Page> choices) {
-        this.choices.putAll(choices);
+        choices.forEach((choice, target) -> notifyChoiceChanged(this.choices.put(choice, target), target));
     }
 
     /**
@@ -80,7 +129,7 @@ public class Page implements Iterable<String>, Comparable<Page> {
      * @param choice    Choix à supprimer.
      */
     public void removeChoice(final String choice) {
-        choices.remove(choice);
+        notifyChoiceChanged(choices.remove(choice), null);
     }
 
     public String getContent() {
@@ -139,4 +188,20 @@ public class Page implements Iterable<String>, Comparable<Page> {
         }
 
     }
+
+    /**
+     * Définit une exception qui sera lancée lorsqu'on cherchera à donner à une page le contenu d'une autre page du même livre.
+     */
+    public static class ContentAlreadyUsedException extends RuntimeException {
+
+        /**
+         * Crée une nouvelle ContentAlreadyUsedException avec un message donné.
+         *
+         * @param message   Message donné à l'exception.
+         */
+        public ContentAlreadyUsedException(final String message) {
+            super(message);
+        }
+
+    }
 }
@@ -0,0 +1,25 @@
+package org.helmo.gbeditor.domains;
+
+/**
+ * Définit les méthodes appelées par une page pour prévenir le livre qui la contient de ses modifications.
+ */
+interface PageListener {
+
+    /**
+     * Appelée lorsque le contenu d'une page a changé.
+     * Une exception lancée par cette méthode refuse le nouveau contenu : la page reprend alors son ancien contenu.
+     *
+     * @param page          Page dont le contenu a changé.
+     * @param oldContent    Ancien contenu de la page.
+     */
+    void onContentChanged(Page page, String oldContent);
+
+    /**
+     * Appelée lorsqu'un choix d'une page a été ajouté, a changé de cible ou a été supprimé.
+     *
+     * @param source        Page à laquelle appartient le choix.
+     * @param oldTarget     Ancienne cible du choix ou null si le choix vient d'être ajouté.
+     * @param newTarget     Nouvelle cible du choix ou null si le choix vient d'être supprimé.
+     */
+    void onChoiceChanged(Page source, Page oldTarget, Page newTarget);
+}
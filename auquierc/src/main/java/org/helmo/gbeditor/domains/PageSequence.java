@@ -0,0 +1,337 @@
+package org.helmo.gbeditor.domains;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cette classe range les pages d'un livre dans l'ordre et les indexe par leur contenu, sans tenir compte de la casse.
+ * Elle permet de :
+ * <ul>
+ *     <li>Retrouver une page à partir de son contenu en temps constant</li>
+ *     <li>Connaître la position d'une page en temps constant tant que les pages qui la précèdent n'ont pas changé</li>
+ *     <li>Insérer une page après une autre sans parcourir le livre pour retrouver cette dernière</li>
+ *     <li>Connaître les pages qui mènent à une page donnée sans parcourir les choix de tout le livre</li>
+ * </ul>
+ * Les positions sont mémorisées pour chaque page. Une insertion ou une suppression n'invalide que les positions
+ * des pages qui suivent, elles sont recalculées en une seule passe lors de la prochaine demande.
+ * Les liens entrants sont tenus à jour à chaque ajout, modification ou suppression d'un choix d'une page du livre.
+ */
+class PageSequence implements Iterable<Page>, PageListener {
+    private final List<Page> pages = new ArrayList<>();
+    private final Map<String, Slot> index = new HashMap<>();
+    private final Map<Page, Incoming> incoming = new IdentityHashMap<>();
+    private int validUpTo;
+    private int modCount;
+
+    /**
+     * Convertit un contenu de page en clé d'index.
+     * Deux contenus égaux sans tenir compte de la casse (voir {@link String#equalsIgnoreCase}) donnent la même clé.
+     */
+    static String keyFor(final String content) {
+        if(content == null) {
+            return null;
+        }
+        final var result = new char[content.length()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = Character.toLowerCase(Character.toUpperCase(content.charAt(i)));
+        }
+        return new String(result);
+    }
+
+    /**
+     * Détermine si une page ayant le même contenu que la page donnée est présente.
+     *
+     * @param page  Page cherchée.
+     *
+     * @return      True si la page est présente.
+     *              False sinon.
+     */
+    boolean contains(final Page page) {
+        return page != null && index.containsKey(keyFor(page.getContent()));
+    }
+
+    /**
+     * Récupère la page ayant le contenu donné, sans tenir compte de la casse.
+     *
+     * @param content   Contenu de la page cherchée.
+     *
+     * @return          La page ayant ce contenu ou null si aucune page ne correspond.
+     */
+    Page get(final String content) {
+        final var slot = index.get(keyFor(content));
+        return slot == null ? null : slot.page;
+    }
+
+    /**
+     * Récupère la position, à partir de 0, d'une page donnée.
+     *
+     * @param page  Page dont on cherche la position.
+     *
+     * @return      La position de la page ou -1 si elle n'est pas présente.
+     */
+    int positionOf(final Page page) {
+        if(page == null) {
+            return -1;
+        }
+        final var slot = index.get(keyFor(page.getContent()));
+        if(slot == null) {
+            return -1;
+        }
+        if(!isValid(slot)) {
+            reindex();
+        }
+        return slot.position;
+    }
+
+    private boolean isValid(final Slot slot) {
+        return slot.position < pages.size() && pages.get(slot.position) == slot.page;
+    }
+
+    /**
+     * Recalcule les positions des pages qui suivent la dernière position encore valide.
+     */
+    private void reindex() {
+        for(int i = validUpTo; i < pages.size(); i++) {
+            final var slot = index.get(keyFor(pages.get(i).getContent()));
+            if(slot != null && slot.page == pages.get(i)) {
+                slot.position = i;
+            }
+        }
+        validUpTo = pages.size();
+    }
+
+    /**
+     * Insère une page à une position donnée si aucune page n'a déjà le même contenu.
+     *
+     * @param position  Position à laquelle insérer la page.
+     * @param page      Page à insérer.
+     *
+     * @return          True si la page a été insérée.
+     *                  False sinon.
+     */
+    boolean insert(final int position, final Page page) {
+        if(page == null || contains(page)) {
+            return false;
+        }
+        pages.add(position, page);
+        index.put(keyFor(page.getContent()), new Slot(page, position));
+        validUpTo = Math.min(validUpTo, position);
+        if(validUpTo == position) {
+            validUpTo++;
+        }
+        page.setListener(this);
+        modCount++;
+        for(final var choice : page) {
+            link(page, page.getPageForChoice(choice));
+        }
+        return true;
+    }
+
+    /**
+     * Insère une page juste après une autre page.
+     * Si l'autre page n'est pas présente, la page est insérée au début.
+     *
+     * @param page  Page à insérer.
+     * @param after Page après laquelle insérer la page.
+     *
+     * @return      True si la page a été insérée.
+     *              False sinon.
+     */
+    boolean insertAfter(final Page page, final Page after) {
+        return !contains(page) && insert(positionOf(after) + 1, page);
+    }
+
+    /**
+     * Ajoute une page à la fin.
+     *
+     * @param page  Page à ajouter.
+     *
+     * @return      True si la page a été ajoutée.
+     *              False sinon.
+     */
+    boolean add(final Page page) {
+        return insert(pages.size(), page);
+    }
+
+    /**
+     * Retire la page ayant le même contenu que la page donnée.
+     *
+     * @param page  Page à retirer.
+     *
+     * @return      True si une page a été retirée.
+     *              False sinon.
+     */
+    boolean remove(final Page page) {
+        final var position = positionOf(page);
+        if(position == -1) {
+            return false;
+        }
+        final var removed = pages.remove(position);
+        index.remove(keyFor(removed.getContent()));
+        validUpTo = Math.min(validUpTo, position);
+        removed.setListener(null);
+        modCount++;
+        for(final var choice : removed) {
+            unlink(removed, removed.getPageForChoice(choice));
+        }
+        return true;
+    }
+
+    /**
+     * Compte le nombre de choix des pages présentes qui mènent à une page donnée.
+     *
+     * @param page  Page dont on compte les liens entrants.
+     *
+     * @return      Le nombre de choix menant à la page.
+     */
+    int inDegreeOf(final Page page) {
+        final var links = incoming.get(resolve(page));
+        return links == null ? 0 : links.total;
+    }
+
+    /**
+     * Récupère les pages présentes ayant au moins un choix qui mène à une page donnée.
+     *
+     * @param page  Page dont on cherche les pages qui y mènent.
+     *
+     * @return      Les pages menant à la page donnée, chacune n'apparaissant qu'une fois.
+     */
+    List<Page> sourcesOf(final Page page) {
+        final var links = incoming.get(resolve(page));
+        return links == null ? List.of() : new ArrayList<>(links.bySource.keySet());
+    }
+
+    /**
+     * Récupère l'instance présente ayant le même contenu que la page donnée, ou la page elle-même si elle est absente.
+     */
+    private Page resolve(final Page page) {
+        if(page == null) {
+            return null;
+        }
+        final var present = get(page.getContent());
+        return present == null ? page : present;
+    }
+
+    private void link(final Page source, final Page target) {
+        if(target == null) {
+            return;
+        }
+        final var links = incoming.computeIfAbsent(target, t -> new Incoming());
+        links.bySource.merge(source, 1, Integer::sum);
+        links.total++;
+    }
+
+    private void unlink(final Page source, final Page target) {
+        final var links = target == null ? null : incoming.get(target);
+        if(links == null) {
+            return;
+        }
+        final var count = links.bySource.get(source);
+        if(count == null) {
+            return;
+        }
+        if(count == 1) {
+            links.bySource.remove(source);
+        } else {
+            links.bySource.put(source, count - 1);
+        }
+        if(--links.total == 0) {
+            incoming.remove(target);
+        }
+    }
+
+    /**
+     * Récupère le nombre de modifications apportées aux pages ou à leurs choix depuis la création de la séquence.
+     * Deux valeurs identiques signifient que le graphe des pages n'a pas changé entre-temps.
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    int size() {
+        return pages.size();
+    }
+
+    /**
+     * Retire toutes les pages.
+     */
+    void clear() {
+        pages.forEach(p -> p.setListener(null));
+        pages.clear();
+        index.clear();
+        incoming.clear();
+        validUpTo = 0;
+        modCount++;
+    }
+
+    boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    /**
+     * Réindexe une page dont le contenu a changé alors qu'elle se trouve dans le livre.
+     *
+     * @throws Page.ContentAlreadyUsedException Si une autre page du livre a déjà le nouveau contenu.
+     */
+    @Override
+    public void onContentChanged(final Page page, final String oldContent) {
+        final var oldKey = keyFor(oldContent);
+        final var slot = index.get(oldKey);
+        if(slot == null || slot.page != page) {
+            return;
+        }
+        final var newKey = keyFor(page.getContent());
+        final var other = index.get(newKey);
+        if(other != null && other.page != page) {
+            throw new Page.ContentAlreadyUsedException("Une autre page du livre a déjà le contenu \"" + page.getContent() + "\".");
+        }
+        index.remove(oldKey);
+        index.put(newKey, slot);
+    }
+
+    /**
+     * Met à jour les liens entrants lorsqu'un choix d'une page du livre change.
+     */
+    @Override
+    public void onChoiceChanged(final Page source, final Page oldTarget, final Page newTarget) {
+        unlink(source, oldTarget);
+        link(source, newTarget);
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Page> iterator() {
+        return Collections.unmodifiableList(pages).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return pages.toString();
+    }
+
+    /**
+     * Représente une page indexée et sa dernière position connue.
+     */
+    private static class Slot {
+        private final Page page;
+        private int position;
+
+        private Slot(final Page page, final int position) {
+            this.page = page;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Représente les liens menant à une page : le nombre de choix de chaque page source et leur total.
+     */
+    private static class Incoming {
+        private final Map<Page, Integer> bySource = new IdentityHashMap<>();
+        private int total;
+    }
+}
@@ -0,0 +1,285 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.repositories.BooksPage;
+import org.helmo.gbeditor.repositories.DataRepository;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cette classe ajoute un cache devant un autre repository afin de ne pas relire des livres déjà récupérés.
+ * Elle garde :
+ * <ul>
+ *     <li>Un nombre borné de livres indexés par leur ISBN, les moins récemment utilisés étant retirés en premier</li>
+ *     <li>La liste des livres de l'auteur courant</li>
+ * </ul>
+ * Chaque ajout, sauvegarde ou suppression est transmis au repository décoré et invalide les entrées concernées.
+ * Lorsque le repository décoré recharge ses livres, les livres du cache sont oubliés car ce repository peut
+ * ne plus les suivre.
+ */
+public class CachedRepository implements DataRepository, AutoCloseable {
+    private final DataRepository repo;
+    private final Map<String, Book> byIsbn;
+    private final Map<Book, String> keys = new IdentityHashMap<>();
+    private List<Book> authorBooks;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Crée un nouveau CachedRepository devant un repository donné.
+     *
+     * @param repo          Repository dont les résultats seront mis en cache.
+     * @param maxEntries    Nombre maximum de livres gardés en cache.
+     */
+    public CachedRepository(final DataRepository repo, final int maxEntries) {
+        if(maxEntries < 1) {
+            throw new IllegalArgumentException("Le cache doit pouvoir contenir au moins un livre.");
+        }
+        this.repo = repo;
+        this.byIsbn = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Book> eldest) {
+                if(size() > maxEntries) {
+                    keys.remove(eldest.getValue());
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private static String keyFor(final String isbn) {
+        return Mapping.convertISBNToDTO(isbn);
+    }
+
+    @Override
+    public List<BookDTO> getData() {
+        return repo.getData();
+    }
+
+    @Override
+    public synchronized void setCurrentAuthor(final String author) {
+        repo.setCurrentAuthor(author);
+        clear();
+    }
+
+    @Override
+    public synchronized void add(final Book... books) {
+        try {
+            repo.add(books);
+        } finally {
+            authorBooks = null;
+            for(final var b : books) {
+                invalidate(b);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void save(final Book book) {
+        boolean saved = false;
+        try {
+            repo.save(book);
+            saved = true;
+        } finally {
+            authorBooks = null;
+            invalidate(book);
+            if(saved) {
+                cache(book);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(final String... books) {
+        try {
+            return repo.remove(books);
+        } finally {
+            authorBooks = null;
+            for(final var isbn : books) {
+                final var removed = byIsbn.remove(keyFor(isbn));
+                if(removed != null) {
+                    keys.remove(removed);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<Book> getBooks() {
+        if(authorBooks != null) {
+            hits++;
+            return new ArrayList<>(authorBooks);
+        }
+        misses++;
+        final var books = repo.getBooks();
+        forgetBooks();
+        authorBooks = new ArrayList<>(books);
+        return books;
+    }
+
+    @Override
+    public BooksPage getBooksPage(final String cursor, final int limit) {
+        return repo.getBooksPage(cursor, limit);
+    }
+
+    @Override
+    public synchronized void loadBooks() {
+        repo.loadBooks();
+        clear();
+    }
+
+    @Override
+    public String getLastIsbn() {
+        return repo.getLastIsbn();
+    }
+
+    @Override
+    public int getLastBookNumber(final String matricule) {
+        return repo.getLastBookNumber(matricule);
+    }
+
+    @Override
+    public int allocateBookNumber(final String matricule) {
+        return repo.allocateBookNumber(matricule);
+    }
+
+    @Override
+    public synchronized Book searchBookFor(final String isbn) {
+        final var cached = byIsbn.get(keyFor(isbn));
+        if(cached != null) {
+            hits++;
+            return cached;
+        }
+        misses++;
+        final var found = repo.searchBookFor(isbn);
+        if(found != null) {
+            cache(found);
+        }
+        return found;
+    }
+
+    private void cache(final Book book) {
+        final var key = keyFor(book.get(BookFieldName.ISBN));
+        final var previous = byIsbn.put(key, book);
+        if(previous != null && previous != book) {
+            keys.remove(previous);
+        }
+        keys.put(book, key);
+    }
+
+    /**
+     * Retire un livre du cache, qu'il y soit rangé sous son ISBN actuel ou sous l'ISBN qu'il avait auparavant.
+     */
+    private void invalidate(final Book book) {
+        final var oldKey = keys.remove(book);
+        if(oldKey != null) {
+            byIsbn.remove(oldKey);
+        }
+        final var current = byIsbn.remove(keyFor(book.get(BookFieldName.ISBN)));
+        if(current != null) {
+            keys.remove(current);
+        }
+    }
+
+    private void forgetBooks() {
+        byIsbn.clear();
+        keys.clear();
+    }
+
+    /**
+     * Vide entièrement le cache.
+     */
+    public synchronized void clear() {
+        authorBooks = null;
+        forgetBooks();
+    }
+
+    /**
+     * Vide le cache puis ferme le repository décoré.
+     */
+    @Override
+    public synchronized void close() {
+        clear();
+        DataRepository.closeIfNeeded(repo);
+    }
+
+    /**
+     * Récupère les statistiques d'utilisation du cache.
+     *
+     * @return  Le nombre de succès, d'échecs et d'évictions du cache.
+     */
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, byIsbn.size());
+    }
+
+    /**
+     * Représente les statistiques d'utilisation du cache à un instant donné.
+     */
+    public static class CacheStats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        /**
+         * Crée de nouvelles statistiques.
+         *
+         * @param hits      Nombre de demandes servies par le cache.
+         * @param misses    Nombre de demandes transmises au repository décoré.
+         * @param evictions Nombre de livres retirés du cache faute de place.
+         * @param size      Nombre de livres actuellement en cache.
+         */
+        public CacheStats(final long hits, final long misses, final long evictions, final int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Calcule la proportion de demandes servies par le cache.
+         *
+         * @return  Un nombre entre 0 et 1, 0 si aucune demande n'a été faite.
+         */
+        public double getHitRate() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+}
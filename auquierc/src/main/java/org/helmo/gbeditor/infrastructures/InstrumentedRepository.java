@@ -0,0 +1,117 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.metrics.MetricsSink;
+import org.helmo.gbeditor.repositories.BooksPage;
+import org.helmo.gbeditor.repositories.DataRepository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cette classe mesure la durée de chaque opération d'un autre repository et la transmet à un {@link MetricsSink}.
+ * Chaque opération est enregistrée sous le nom de la méthode appelée, qu'elle réussisse ou lance une exception.
+ */
+public class InstrumentedRepository implements DataRepository, AutoCloseable {
+    private final DataRepository repo;
+    private final MetricsSink sink;
+
+    /**
+     * Crée un nouvel InstrumentedRepository devant un repository donné.
+     *
+     * @param repo  Repository dont les opérations sont mesurées.
+     * @param sink  Destination des mesures.
+     */
+    public InstrumentedRepository(final DataRepository repo, final MetricsSink sink) {
+        this.repo = repo;
+        this.sink = sink;
+    }
+
+    private <T> T measure(final String operation, final Supplier<T> action) {
+        final var start = System.nanoTime();
+        var failed = true;
+        try {
+            final var result = action.get();
+            failed = false;
+            return result;
+        } finally {
+            sink.recordLatency(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    private void measure(final String operation, final Runnable action) {
+        measure(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    public List<BookDTO> getData() {
+        return measure("getData", repo::getData);
+    }
+
+    @Override
+    public void setCurrentAuthor(final String author) {
+        repo.setCurrentAuthor(author);
+    }
+
+    @Override
+    public void add(final Book... books) {
+        measure("add", () -> repo.add(books));
+    }
+
+    @Override
+    public void save(final Book book) {
+        measure("save", () -> repo.save(book));
+    }
+
+    @Override
+    public boolean remove(final String... books) {
+        return measure("remove", () -> repo.remove(books));
+    }
+
+    @Override
+    public List<Book> getBooks() {
+        return measure("getBooks", repo::getBooks);
+    }
+
+    @Override
+    public BooksPage getBooksPage(final String cursor, final int limit) {
+        return measure("getBooksPage", () -> repo.getBooksPage(cursor, limit));
+    }
+
+    @Override
+    public void loadBooks() {
+        measure("loadBooks", repo::loadBooks);
+    }
+
+    @Override
+    public String getLastIsbn() {
+        return measure("getLastIsbn", repo::getLastIsbn);
+    }
+
+    @Override
+    public int getLastBookNumber(final String matricule) {
+        return measure("getLastBookNumber", () -> repo.getLastBookNumber(matricule));
+    }
+
+    @Override
+    public int allocateBookNumber(final String matricule) {
+        return measure("allocateBookNumber", () -> repo.allocateBookNumber(matricule));
+    }
+
+    @Override
+    public Book searchBookFor(final String isbn) {
+        return measure("searchBookFor", () -> repo.searchBookFor(isbn));
+    }
+
+    /**
+     * Ferme le repository mesuré.
+     */
+    @Override
+    public void close() {
+        DataRepository.closeIfNeeded(repo);
+    }
+}
@@ -3,6 +3,7 @@ package org.helmo.gbeditor.infrastructures;
 import org.helmo.gbeditor.domains.*;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
 import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.helmo.gbeditor.repositories.BookSummary;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -81,12 +82,29 @@ public class Mapping {
                 dto.getImgPath()
         );
         result.setPublishDate(dto.getPublishDate());
-        convertToPages(dto.getPages()).forEach(
-                result::addEnd
-        );
+        addPages(result, dto.getPages());
         return result;
     }
 
+    /**
+     * Convertit un BookDTO en BookSummary sans convertir ses pages.
+     * Le résumé obtenu est le même que celui du Book qu'on obtiendrait avec {@link #convertToBook(BookDTO)}.
+     *
+     * @param dto   BookDTO qu'on veut résumer.
+     *
+     * @return      Le résumé du BookDTO donné.
+     */
+    public static BookSummary convertToSummary(final BookDTO dto) {
+        final var version = dto.getVersion();
+        return new BookSummary(
+                dto.getTitle(),
+                ISBNCodec.toDisplay(dto.getIsbn()),
+                dto.getAuthor(),
+                "1.1".equals(version) || "1.2".equals(version) ? dto.getImgPath() : "",
+                "1.2".equals(version) ? dto.publishDate : null
+        );
+    }
+
     /**
      * Convertit un Book en BookDTO
      *
@@ -103,50 +121,58 @@ public class Mapping {
                 b.get(BookFieldName.SUMMARY),
                 b.getImgPath(),
                 BookDTO.CURRENT_VERSION,
-                convertPages(b.iterator()),
+                convertPages(b.toGraph()),
                 date == null ? null : LocalDateTime.parse(date, DateTimeFormatter.ofPattern("dd-MM-yy à HH:mm"))
         );
     }
 
-    private static List<Page> convertToPages(final List<PageDTO> pages) {
-        final List<Page> result = new ArrayList<>();
-        pages.forEach(p -> result.add(new Page(p.getContent())));
-        for(int i = 0; i < result.size(); i++) {
-            var page = result.get(i);
-            var choices = pages.get(i).getChoices();
-            choices.forEach((c, v) -> {
-                if(v.matches("[0-9]+")) {
-                    page.addChoice(c, result.get(Integer.parseInt(v) - 1));
-                } else {
-                    page.addChoice(c, getPageFor(v, result));
-                }
-            });
+    /**
+     * Ajoute les pages données au livre puis leur ajoute leurs choix.
+     * Les cibles données par contenu sont retrouvées grâce à l'index des pages du livre,
+     * la conversion est donc linéaire en nombre de pages et de choix.
+     */
+    private static void addPages(final Book book, final List<PageDTO> pages) {
+        final List<Page> created = new ArrayList<>(pages.size());
+        for(final var p : pages) {
+            final var page = new Page(p.getContent());
+            created.add(page);
+            book.addEnd(page);
+        }
+        for(int i = 0; i < created.size(); i++) {
+            final var page = created.get(i);
+            pages.get(i).getChoices().forEach((c, v) -> page.addChoice(c,
+                    isPageNumber(v) ? created.get(Integer.parseInt(v) - 1) : book.getPageFor(v)
+            ));
         }
-        return result;
     }
 
-    private static Page getPageFor(final String pageContent, final List<Page> pages) {
-        for(final var p : pages) {
-            if(p.getContent().equalsIgnoreCase(pageContent)) {
-                return p;
+    private static boolean isPageNumber(final String value) {
+        if(value == null || value.isEmpty()) {
+            return false;
+        }
+        for(int i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+            if(c < '0' || c > '9') {
+                return false;
             }
         }
-        return null;
+        return true;
     }
 
-    private static Map<String, String> convertChoices(final Page page) {
+    private static Map<String, String> convertChoices(final BookGraph graph, final int page) {
         final Map<String, String> result = new TreeMap<>();
-        page.forEach(p -> result.put(p, page.getPageForChoice(p).getContent()));
+        for(int c = graph.choicesStart(page); c < graph.choicesEnd(page); c++) {
+            result.put(graph.labelOf(c), graph.getPage(graph.targetOf(c)).getContent());
+        }
         return result;
     }
 
-    private static List<PageDTO> convertPages(final Iterator<Page> choices) {
-        final List<PageDTO> result = new ArrayList<>();
-        for(int i = 0; choices.hasNext(); i++) {
-            final var page = choices.next();
+    private static List<PageDTO> convertPages(final BookGraph graph) {
+        final List<PageDTO> result = new ArrayList<>(graph.size());
+        for(int i = 0; i < graph.size(); i++) {
             result.add(new PageDTO(
-                    page.getContent(),
-                    convertChoices(page),
+                    graph.getPage(i).getContent(),
+                    convertChoices(graph, i),
                     i+1
             ));
         }
@@ -162,15 +188,7 @@ public class Mapping {
      *              Exemple : isbn côté affichage 2-200106-30-11 ==> isbn côté mémoire 2-200106-30-0
      */
     public static String convertISBNFromDTO(final String isbn) {
-        final var temp = isbn.replaceAll("-", "");
-        if(temp.length() == ISBN.ISBN_MAX_LENGTH) {
-            String result = temp.substring(0, 9);
-            if(temp.endsWith("10")) {
-                return result +  "X";
-            }
-            return result +  "0";
-        }
-        return temp;
+        return ISBNCodec.fromStorage(isbn);
     }
 
     /**
@@ -182,16 +200,7 @@ public class Mapping {
      *              Exemple : isbn côté affichage 2-200106-30-0 ==> isbn côté mémoire 2-200106-30-11
      */
     public static String convertISBNToDTO(final String isbn) {
-        final var temp = isbn.replaceAll("-", "");
-        if(temp.length() == ISBN.ISBN_MIN_LENGTH) {
-            String result = temp.substring(0, 9);
-            if(temp.endsWith("0")) {
-                return result +  "11";
-            } else if(temp.endsWith("X")) {
-                return result +  "10";
-            }
-        }
-        return temp;
+        return ISBNCodec.toStorage(isbn);
     }
 
 }
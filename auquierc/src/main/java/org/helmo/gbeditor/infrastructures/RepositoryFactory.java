@@ -3,7 +3,9 @@ package org.helmo.gbeditor.infrastructures;
 import org.helmo.gbeditor.infrastructures.exception.UnableToConnectException;
 import org.helmo.gbeditor.infrastructures.jdbc.BDRepository;
 import org.helmo.gbeditor.infrastructures.jdbc.ConnectionFactory;
+import org.helmo.gbeditor.infrastructures.jdbc.JournaledJsonRepository;
 import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
+import org.helmo.gbeditor.infrastructures.metrics.MetricsSink;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 import java.nio.file.Path;
@@ -15,8 +17,14 @@ import static org.helmo.gbeditor.infrastructures.jdbc.DBConfig.*;
  * Cette classe permet d'instancier une factory pour repository et de créer des repository cohérent.
  */
 public class RepositoryFactory {
+    /**
+     * Nombre de livres gardés en cache par défaut lorsque le cache est activé.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 64;
 
     private final RepositoryType type;
+    private final int cacheSize;
+    private final MetricsSink sink;
 
     /**
      * Créer une nouvelle RepositoryFactory en spécifiant si la ressources utilisée est le fichier Json ou non.
@@ -27,6 +35,8 @@ public class RepositoryFactory {
      */
     public RepositoryFactory(final boolean isJson) {
         type = isJson ? RepositoryType.JSON : RepositoryType.MY_SQL_DB;
+        cacheSize = 0;
+        sink = MetricsSink.NONE;
     }
 
     /**
@@ -35,19 +45,62 @@ public class RepositoryFactory {
      * @param repoType  Type de ressources.
      */
     public RepositoryFactory(final RepositoryType repoType) {
+        this(repoType, 0);
+    }
+
+    /**
+     * Crée une nouvelle factory mémorisant le type de ressource qui sera utilisée et la taille du cache
+     * placé devant les repository créés.
+     *
+     * @param repoType  Type de ressources.
+     * @param cacheSize Nombre maximum de livres gardés en cache, 0 pour ne pas utiliser de cache.
+     */
+    public RepositoryFactory(final RepositoryType repoType, final int cacheSize) {
+        this(repoType, cacheSize, MetricsSink.NONE);
+    }
+
+    /**
+     * Crée une nouvelle factory mémorisant le type de ressource qui sera utilisée, la taille du cache
+     * placé devant les repository créés et la destination des mesures de leurs opérations.
+     *
+     * @param repoType  Type de ressources.
+     * @param cacheSize Nombre maximum de livres gardés en cache, 0 pour ne pas utiliser de cache.
+     * @param sink      Destination des mesures des opérations des repository créés, {@link MetricsSink#NONE} pour ne pas les mesurer.
+     */
+    public RepositoryFactory(final RepositoryType repoType, final int cacheSize, final MetricsSink sink) {
         if(repoType == null) {
             throw new IllegalArgumentException("The repo type you give does not exist");
         }
+        if(cacheSize < 0) {
+            throw new IllegalArgumentException("The cache size cannot be negative");
+        }
         type = repoType;
+        this.cacheSize = cacheSize;
+        this.sink = sink == null ? MetricsSink.NONE : sink;
     }
+
     /**
      * Crée un repository sur base de la configuration donnée lors de l'initialisation de la factory.
+     * Si une destination des mesures a été donnée, les opérations du repository sont mesurées par un {@link InstrumentedRepository}.
+     * Si une taille de cache a été donnée, le repository est placé derrière un {@link CachedRepository}.
+     * Le repository créé doit être fermé avec {@link DataRepository#closeIfNeeded(DataRepository)} lorsqu'il n'est plus utilisé,
+     * ce que fait {@link org.helmo.gbeditor.repositories.AsyncRepository#close()} pour le repository qu'il utilise.
      *
      * @return  Un repository valide permettant d'interagir avec le type de ressources données en argument lors de l'initialisation de la factory.
      */
     public DataRepository newRepository() {
+        var repo = newStorageRepository();
+        if(sink != MetricsSink.NONE) {
+            repo = new InstrumentedRepository(repo, sink);
+        }
+        return cacheSize > 0 ? new CachedRepository(repo, cacheSize) : repo;
+    }
+
+    private DataRepository newStorageRepository() {
         if(type == RepositoryType.JSON) {
             return of(Paths.get(System.getProperty("user.home"), "ue36"), "e200106");
+        } else if(type == RepositoryType.JSON_JOURNAL) {
+            return new JournaledJsonRepository(Paths.get(System.getProperty("user.home"), "ue36"), "e200106");
         } else if(type == RepositoryType.MY_SQL_DB) {
             return of(DRIVER, DB_URL, DB_USER, DB_PASSWORD);
         }
@@ -6,6 +6,7 @@ package org.helmo.gbeditor.infrastructures;
 public enum RepositoryType {
 
     JSON,
+    JSON_JOURNAL,
     MY_SQL_DB,
     LOCAL_MY_SQL_DB;
 
@@ -4,34 +4,129 @@ import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.BookFieldName;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Permet de lier un livre avec sa représentation en base de donnée.
  * Cette liaison permet de récupérer à coup sûr l'identifiant en base de données du livre.
+ * Les livres sont indexés à la fois par identité et par ISBN normalisé, ce qui rend toutes les recherches immédiates.
+ * Lorsqu'un livre suivi change d'ISBN (voir {@link Book#setNewData}), il est réindexé sous son nouvel ISBN
+ * dès qu'on le recherche par identité, c'est-à-dire au plus tard lors de sa sauvegarde.
  */
 public class Tracker {
 
-    private final Map<Book, BookDTO> books = new HashMap<>();
+    private final Map<Book, Entry> byIdentity = new IdentityHashMap<>();
+    private final Map<String, Entry> byIsbn = new LinkedHashMap<>();
+
+    private static String keyFor(final String isbn) {
+        return Mapping.convertISBNToDTO(isbn);
+    }
+
+    private static String keyFor(final Book book) {
+        return keyFor(book.get(BookFieldName.ISBN));
+    }
 
     /**
      * Ajoute un livre et le dto lui correspondant au tracker.
+     * Les pages du dto ne sont pas considérées comme l'état sauvegardé du livre.
      *
      * @param book  Livre
      * @param dto   DTO du livre
      */
     public void put(final Book book, final BookDTO dto) {
-        books.put(book, dto);
+        track(book, dto, false);
+    }
+
+    /**
+     * Ajoute un livre et le dto, pages comprises, correspondant à son dernier état sauvegardé.
+     * Ce dto servira de référence pour ne sauvegarder que les changements lors de la prochaine sauvegarde du livre.
+     *
+     * @param book  Livre
+     * @param dto   DTO complet du livre tel qu'il est sauvegardé.
+     */
+    public void putSnapshot(final Book book, final BookDTO dto) {
+        track(book, dto, true);
+    }
+
+    private void track(final Book book, final BookDTO dto, final boolean snapshot) {
+        unlink(byIdentity.get(book));
+        final var entry = new Entry(book, dto, snapshot, keyFor(book));
+        unlink(byIsbn.get(entry.isbnKey));
+        byIdentity.put(book, entry);
+        byIsbn.put(entry.isbnKey, entry);
+    }
+
+    private void unlink(final Entry entry) {
+        if(entry == null) {
+            return;
+        }
+        byIdentity.remove(entry.book);
+        if(byIsbn.get(entry.isbnKey) == entry) {
+            byIsbn.remove(entry.isbnKey);
+        }
+    }
+
+    /**
+     * Recherche l'entrée d'un livre, d'abord par identité puis par ISBN.
+     * Si le livre a changé d'ISBN depuis qu'il est suivi, son entrée est réindexée sous son nouvel ISBN.
+     */
+    private Entry find(final Book book) {
+        final var entry = byIdentity.get(book);
+        if(entry != null) {
+            rekey(entry);
+            return entry;
+        }
+        return findByIsbn(keyFor(book));
+    }
+
+    /**
+     * Recherche l'entrée rangée sous un ISBN donné en vérifiant que son livre a toujours cet ISBN.
+     */
+    private Entry findByIsbn(final String key) {
+        final var entry = byIsbn.get(key);
+        if(entry == null) {
+            return null;
+        }
+        if(rekey(entry)) {
+            return byIsbn.get(key);
+        }
+        return entry;
+    }
+
+    private boolean rekey(final Entry entry) {
+        final var current = keyFor(entry.book);
+        if(current.equals(entry.isbnKey)) {
+            return false;
+        }
+        if(byIsbn.get(entry.isbnKey) == entry) {
+            byIsbn.remove(entry.isbnKey);
+        }
+        final var replaced = byIsbn.put(current, entry);
+        if(replaced != null && replaced != entry) {
+            byIdentity.remove(replaced.book);
+        }
+        entry.isbnKey = current;
+        return true;
+    }
+
+    /**
+     * Récupère le dernier état sauvegardé, pages comprises, d'un livre donné.
+     *
+     * @param book  Livre dont on cherche le dernier état sauvegardé.
+     *
+     * @return      Le DTO du livre tel qu'il a été sauvegardé ou null si ses pages n'ont pas été mémorisées.
+     */
+    public BookDTO getSnapshotFor(final Book book) {
+        final var entry = find(book);
+        return entry != null && entry.snapshot ? entry.dto : null;
     }
 
     /**
      * Vide le tracker.
      */
     public void clear() {
-        books.clear();
+        byIdentity.clear();
+        byIsbn.clear();
     }
 
     /**
@@ -54,13 +149,8 @@ public class Tracker {
      * @return      L'identifiant en base de donnée du livre recherché.
      */
     public int getIdBookFor(final Book book) {
-        var result = -1;
-        for (final var entry: books.entrySet()) {
-            if(entry.getKey() == book || entry.getKey().equals(book)) {
-                result = entry.getValue().id;
-            }
-        }
-        return result;
+        final var entry = find(book);
+        return entry == null ? -1 : entry.dto.id;
     }
 
     /**
@@ -69,16 +159,7 @@ public class Tracker {
      * @param isbn  Isbn du livre à supprimer.
      */
     public void remove(final String isbn) {
-        Book toRemove = null;
-        for(final var b : books.keySet()) {
-            if(b.get(BookFieldName.ISBN).equals(isbn)) {
-                toRemove = b;
-                break;
-            }
-        }
-        if(toRemove != null) {
-            books.remove(toRemove);
-        }
+        unlink(findByIsbn(keyFor(isbn)));
     }
 
     /**
@@ -87,7 +168,25 @@ public class Tracker {
      * @return  Une livre de tous les livres présents dans le tracker.
      */
     public List<Book> getAllBooks() {
-        return new ArrayList<>(books.keySet());
+        final List<Book> result = new ArrayList<>(byIsbn.size());
+        byIsbn.values().forEach(e -> result.add(e.book));
+        return result;
     }
 
+    /**
+     * Représente le lien entre un livre suivi et son DTO.
+     */
+    private static class Entry {
+        private final Book book;
+        private final BookDTO dto;
+        private final boolean snapshot;
+        private String isbnKey;
+
+        private Entry(final Book book, final BookDTO dto, final boolean snapshot, final String isbnKey) {
+            this.book = book;
+            this.dto = dto;
+            this.snapshot = snapshot;
+            this.isbnKey = isbnKey;
+        }
+    }
 }
@@ -7,16 +7,26 @@ import org.helmo.gbeditor.infrastructures.Tracker;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
 import org.helmo.gbeditor.infrastructures.dto.PageDTO;
 import org.helmo.gbeditor.infrastructures.exception.*;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
+import org.helmo.gbeditor.repositories.BooksPage;
 import org.helmo.gbeditor.repositories.DataRepository;
 import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
 import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 import org.helmo.gbeditor.repositories.exceptions.UnableToSavePageException;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.stream.Stream;
 
 import static org.helmo.gbeditor.infrastructures.jdbc.BookBDRepository.*;
 import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.*;
@@ -25,7 +35,7 @@ import static org.helmo.gbeditor.infrastructures.jdbc.SQLInstructions.*;
 /**
  * Cette classe s'occupe de sauvegarder et récupérer un livre en base de données.
  */
-public class BDRepository implements DataRepository {
+public class BDRepository implements DataRepository, AutoCloseable {
 
     private Connection connection;
     private final SortedSet<String> existingIsbn = new TreeSet<>();
@@ -33,6 +43,7 @@ public class BDRepository implements DataRepository {
     private String author;
     private final ConnectionFactory factory;
     private final Tracker tracker = new Tracker();
+    private boolean isbnCounterReady;
 
     /**
      * Créer un nouveau BDRepository sur base d'une factory et d'un auteur donnée.
@@ -51,10 +62,12 @@ public class BDRepository implements DataRepository {
         executeStmt(CREATE_BOOK_STMT);
         executeStmt(CREATE_PAGE_STMT);
         executeStmt(CREATE_CHOICES_STMT);
+        executeStmt(CREATE_ISBN_COUNTER_STMT);
+        isbnCounterReady = true;
     }
 
     private void executeStmt(final String stmt) {
-        try(Statement execStmt = factory.newConnection().createStatement()) {
+        try(Connection con = factory.newConnection(); Statement execStmt = con.createStatement()) {
             execStmt.executeUpdate(stmt);
         } catch (SQLException e) {
             throw new UnableToTearDownException(e.getMessage(), e);
@@ -69,6 +82,19 @@ public class BDRepository implements DataRepository {
         executeStmt(DROP_PAGE_STMT);
         executeStmt(DROP_BOOK_STMT);
         executeStmt(DROP_AUTHOR_STMT);
+        // Une base de données créée avant l'ajout des compteurs d'ISBN n'a pas cette table.
+        if(tableExists(ISBN_COUNTER_TABLE)) {
+            executeStmt(DROP_ISBN_COUNTER_STMT);
+        }
+        isbnCounterReady = false;
+    }
+
+    /**
+     * Ferme les connexions à la base de données ouvertes par le repository.
+     */
+    @Override
+    public void close() {
+        factory.close();
     }
 
     @Override
@@ -84,32 +110,151 @@ public class BDRepository implements DataRepository {
     private boolean containsBook(final String isbn) {
         try(PreparedStatement stmt = connection.prepareStatement(SELECT_ID_BOOK_STMT)) {
             stmt.setString(1, isbn);
-            return stmt.executeQuery().next();
+            final var found = executeQuery(stmt).next();
+            countRowsRead(found ? 1 : 0);
+            return found;
         } catch (SQLException e) {
             return false;
         }
     }
 
+    /**
+     * Crée la table des compteurs d'ISBN si elle n'existe pas encore dans la base de données.
+     * Si la création échoue, elle n'est ignorée que si la table a entre-temps été créée par une autre instance.
+     *
+     * @throws UnableToTearDownException Si la table n'existe pas et n'a pas pu être créée.
+     */
+    private void ensureIsbnCounter() {
+        if(isbnCounterReady) {
+            return;
+        }
+        if(!tableExists(ISBN_COUNTER_TABLE)) {
+            try {
+                executeStmt(CREATE_ISBN_COUNTER_STMT);
+            } catch (UnableToTearDownException e) {
+                if(!tableExists(ISBN_COUNTER_TABLE)) {
+                    throw e;
+                }
+            }
+        }
+        isbnCounterReady = true;
+    }
+
+    /**
+     * Détermine si une table existe, à l'aide des métadonnées de la base de données.
+     * Le nom de la table est converti dans la casse dans laquelle la base de données stocke ses identifiants.
+     */
+    private boolean tableExists(final String table) {
+        try(final var con = factory.newConnection()) {
+            final var meta = con.getMetaData();
+            var name = table;
+            if(meta.storesUpperCaseIdentifiers()) {
+                name = table.toUpperCase();
+            } else if(meta.storesLowerCaseIdentifiers()) {
+                name = table.toLowerCase();
+            }
+            try(final var tables = meta.getTables(con.getCatalog(), con.getSchema(), name, new String[] {"TABLE"})) {
+                return tables.next();
+            }
+        } catch (SQLException e) {
+            throw new DataManipulationException("Impossible de vérifier l'existence de la table " + table + ".", e);
+        }
+    }
+
     @Override
     public void add(final Book... books) {
-        Transaction
-                .from(connection = factory.newConnection())
-                .commit((con) -> {
-                    for(final var b : books) {
-                        verifyIfBookExists(containsBook(Mapping.convertISBNToDTO(b.get(BookFieldName.ISBN))));
-                        var dto = Mapping.convertToBookDTO(b);
-                        saveAuthorIfNotExists(dto.getAuthor());
-                        saveBook(dto);
-                        tracker.put(b, dto);
-                    }
-                })
-                .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde du livre.", ex);})
-                .execute();
+        ensureIsbnCounter();
+        try {
+            Transaction
+                    .from(connection = factory.newConnection())
+                    .commit((con) -> {
+                        for(final var b : books) {
+                            var dto = Mapping.convertToBookDTO(b);
+                            // Le numéro est attribué avant la vérification de l'ISBN, qui se fait alors sous le verrou du compteur.
+                            recordBookNumber(con, dto.getIsbn());
+                            verifyIfBookExists(containsBook(dto.getIsbn()));
+                            saveAuthorIfNotExists(dto.getAuthor());
+                            saveBook(dto);
+                            tracker.putSnapshot(b, dto);
+                        }
+                    })
+                    .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde du livre.", ex);})
+                    .execute();
+        } finally {
+            closeConnection();
+        }
         loadBooks();
-        closeConnection();
     }
 
+    /**
+     * Importe en masse des livres, par lots de {@link DBConfig#IMPORT_CHUNK_SIZE} livres.
+     *
+     * @param books Livres à importer, lus au fur et à mesure.
+     *
+     * @return      Le bilan de l'import.
+     *
+     * @see BookImporter
+     */
+    public BookImporter.Report importBooks(final Stream<BookDTO> books) {
+        return importBooks(books, DBConfig.IMPORT_CHUNK_SIZE);
+    }
+
+    /**
+     * Importe en masse des livres, chaque lot dans sa propre transaction.
+     * Les livres dont l'ISBN existe déjà sont ignorés.
+     *
+     * @param books     Livres à importer, lus au fur et à mesure.
+     * @param chunkSize Nombre maximum de livres écrits par transaction.
+     *
+     * @return          Le bilan de l'import.
+     *
+     * @see BookImporter
+     */
+    public BookImporter.Report importBooks(final Stream<BookDTO> books, final int chunkSize) {
+        ensureIsbnCounter();
+        return new BookImporter(factory, chunkSize).importBooks(books);
+    }
+
+    /**
+     * Écrit tous les livres de la base de données, de tous les auteurs, dans un flux au format JSON.
+     *
+     * @param writer    Flux dans lequel les livres sont écrits, qui n'est pas fermé.
+     *
+     * @return          Le nombre de livres écrits.
+     *
+     * @see BookExporter
+     */
+    public int exportBooks(final Writer writer) {
+        return new BookExporter(factory, DBConfig.EXPORT_FETCH_SIZE).exportTo(writer);
+    }
+
+    /**
+     * Écrit tous les livres de la base de données, de tous les auteurs, dans un fichier JSON lisible par {@link JsonRepository}.
+     *
+     * @param file  Fichier dans lequel les livres sont écrits, remplacé s'il existe.
+     *
+     * @return      Le nombre de livres écrits.
+     *
+     * @see BookExporter
+     */
+    public int exportBooks(final Path file) {
+        final int count;
+        try(Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            count = exportBooks(w);
+        } catch (IOException e) {
+            throw new DataManipulationException("Une erreur est survenue lors de l'export des livres.", e);
+        }
+        Metrics.incrementBy(Counter.BYTES_WRITTEN, file);
+        return count;
+    }
+
+    /**
+     * Rend la connexion courante au pool.
+     */
     private void closeConnection() {
+        if(connection == null) {
+            return;
+        }
         try {
             connection.close();
         } catch (SQLException e) {
@@ -120,7 +265,7 @@ public class BDRepository implements DataRepository {
     private void deletePageForBook(final int id_book) throws SQLException, UnableToSavePageException {
         try (PreparedStatement stmt = connection.prepareStatement(DELETE_PAGE_FROM_BOOK_STMT)) {
             stmt.setInt(1,id_book);
-            stmt.executeUpdate();
+            executeUpdate(stmt);
         }
     }
 
@@ -128,7 +273,7 @@ public class BDRepository implements DataRepository {
         int id_book = -1;
         try (PreparedStatement saveStmt = connection.prepareStatement(INSERT_BOOK_STMT, Statement.RETURN_GENERATED_KEYS)) {
             addDtoToInserStmt(dto, saveStmt);
-            saveStmt.executeUpdate();
+            executeUpdate(saveStmt);
             var key = saveStmt.getGeneratedKeys();
             if(key.next() && !key.wasNull()) {
                 dto.id = id_book = key.getInt(1);
@@ -142,17 +287,18 @@ public class BDRepository implements DataRepository {
     }
 
     private void saveAllPages(final BookDTO dto) throws SQLException {
-        try(final var stmt = connection.prepareStatement(INSERT_PAGE_STMT)) {
-            addPageToStmt(dto, stmt);
+        final Map<Integer, Integer> pageIds;
+        try(final var stmt = connection.prepareStatement(INSERT_PAGE_STMT, Statement.RETURN_GENERATED_KEYS)) {
+            pageIds = addPageToStmt(dto, stmt);
         }
-        addChoicesToPages(connection, dto, dto.id);
+        addChoicesToPages(connection, dto, pageIds);
     }
 
     private void saveAuthorIfNotExists(final String author) {
         if(!authorExists(author)) {
             try(PreparedStatement loadStmt = connection.prepareStatement(INSERT_AUTHOR_STMT, Statement.RETURN_GENERATED_KEYS)) {
                 loadStmt.setString(1, author);
-                loadStmt.executeUpdate();
+                executeUpdate(loadStmt);
             } catch (SQLException e) {
                 throw new DataManipulationException(e);
             }
@@ -162,8 +308,9 @@ public class BDRepository implements DataRepository {
     private boolean authorExists(final String author) {
         try(PreparedStatement loadStmt = connection.prepareStatement(AUTHOR_EXISTS_STMT)) {
             loadStmt.setString(1, author);
-            var keys = loadStmt.executeQuery();
-            return keys.next();
+            final var found = executeQuery(loadStmt).next();
+            countRowsRead(found ? 1 : 0);
+            return found;
         } catch (SQLException e) {
             throw new DataManipulationException(e);
         }
@@ -174,7 +321,7 @@ public class BDRepository implements DataRepository {
             var toRemove = Mapping.convertISBNToDTO(isbn.replaceAll("-", ""));
             deletePageForBook(getIdBookForIsbn(toRemove));
             loadStmt.setString(1, toRemove);
-            loadStmt.executeUpdate();
+            executeUpdate(loadStmt);
             existingIsbn.remove(toRemove);
         } catch (SQLException e) {
             throw new DataManipulationException("Une erreur est survenu dans la suppression du livre.", e);
@@ -190,13 +337,22 @@ public class BDRepository implements DataRepository {
 
     @Override
     public void save(Book book) {
-        verifyIfBookExists(!tracker.contains(book) && containsBook(book.get(BookFieldName.ISBN)));
-        Transaction
-                .from(connection = factory.newConnection())
-                .commit((con) -> updateBook(book))
-                .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde du livre.", ex);})
-                .execute();
-        closeConnection();
+        try {
+            connection = factory.newConnection();
+            verifyIfBookExists(!tracker.contains(book) && containsBook(book.get(BookFieldName.ISBN)));
+            final var dto = Mapping.convertToBookDTO(book);
+            dto.id = tracker.getIdBookFor(book);
+            Transaction
+                    .from(connection)
+                    .commit((con) -> updateBook(book, dto))
+                    .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde du livre.", ex);})
+                    .execute();
+            if(dto.id != -1) {
+                tracker.putSnapshot(book, dto);
+            }
+        } finally {
+            closeConnection();
+        }
     }
 
     private void verifyIfBookExists(boolean tracker) {
@@ -205,28 +361,36 @@ public class BDRepository implements DataRepository {
         }
     }
 
-    private void updateBook(final Book book) throws SQLException {
-        var dto = Mapping.convertToBookDTO(book);
+    /**
+     * Met à jour le livre et n'écrit que les pages et les choix qui ont changé depuis sa dernière sauvegarde.
+     * Si le dernier état sauvegardé du livre n'est pas connu, ses pages sont relues en une seule requête.
+     */
+    private void updateBook(final Book book, final BookDTO dto) throws SQLException {
         try (PreparedStatement saveStmt = connection.prepareStatement(UPDATE_BOOKS_STMT)) {
-            dto.id = tracker.getIdBookFor(book);
-            deletePageForBook(dto.id);
             addDtoToUpdateStmt(dto, saveStmt);
-            saveStmt.executeUpdate();
-            saveAllPages(dto);
+            executeUpdate(saveStmt);
+        }
+        if(dto.id == -1) {
+            return;
         }
+        final var previous = tracker.getSnapshotFor(book);
+        applyChanges(connection, dto.id, BookChanges.between(previous == null ? getPageFor(dto.id) : previous, dto));
     }
 
     @Override
     public boolean remove(String... books) {
-        Transaction
-                .from(connection = factory.newConnection())
-                .commit((con) -> List.of(books).forEach(b -> {
-                        removeBook(b);
-                        tracker.remove(b);
-                }))
-                .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la suppression du livre.", ex);})
-                .execute();
-        closeConnection();
+        try {
+            Transaction
+                    .from(connection = factory.newConnection())
+                    .commit((con) -> List.of(books).forEach(b -> {
+                            removeBook(b);
+                            tracker.remove(b);
+                    }))
+                    .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de la suppression du livre.", ex);})
+                    .execute();
+        } finally {
+            closeConnection();
+        }
         return true;
     }
 
@@ -245,13 +409,39 @@ public class BDRepository implements DataRepository {
             loadDataFromStmt(loadStmt);
         } catch (SQLException | UnableToConnectException e) {
             throw new DataManipulationException("Une erreur est survenue lors de la récupération des données.", e);
+        } finally {
+            closeConnection();
+        }
+    }
+
+    /**
+     * Récupère une page de livres en reprenant après le dernier livre de la page précédente (pagination par clé).
+     * Le curseur est l'id du dernier livre de la page précédente.
+     */
+    @Override
+    public BooksPage getBooksPage(final String cursor, final int limit) {
+        try(Connection con = factory.newConnection(); PreparedStatement stmt = con.prepareStatement(SELECT_BOOK_SUMMARIES_PAGE_STMT)) {
+            stmt.setString(1, author);
+            stmt.setInt(2, cursor == null ? Integer.MIN_VALUE : parseCursor(cursor));
+            stmt.setMaxRows(limit + 1);
+            return convertResultSetToSummaries(stmt, limit);
+        } catch (SQLException e) {
+            throw new DataManipulationException("Une erreur est survenue lors de la récupération des données.", e);
+        }
+    }
+
+    private static int parseCursor(final String cursor) {
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Le curseur " + cursor + " n'est pas valide.", e);
         }
-        closeConnection();
     }
 
     private void loadDataFromStmt(PreparedStatement loadStmt) throws SQLException {
-        try (final var rs = loadStmt.executeQuery()) {
+        try (final var rs = executeQuery(loadStmt)) {
             while (rs.next()) {
+                countRowsRead(1);
                 var tempDTO = convertResultSetToDTO(rs);
                 tracker.put(Mapping.convertToBook(tempDTO), tempDTO);
                 existingIsbn.add(tempDTO.getIsbn());
@@ -259,25 +449,53 @@ public class BDRepository implements DataRepository {
         }
     }
 
-    private List<PageDTO> getPageFor(final String isbn) throws SQLException {
-        try(PreparedStatement stmt = connection.prepareStatement(SELECT_PAGE_FROM_ISBN_STMT)) {
-            stmt.setString(1, isbn);
+    private List<PageDTO> getPageFor(final int idBook) throws SQLException {
+        try(PreparedStatement stmt = connection.prepareStatement(SELECT_PAGES_WITH_CHOICES_FROM_BOOK_STMT)) {
+            stmt.setInt(1, idBook);
             return getPageFromStmt(stmt);
         }
     }
 
     @Override
     public String getLastIsbn() {
-        try(Statement stmt = (connection = factory.newConnection()).createStatement()) {
+        try(Connection con = factory.newConnection(); Statement stmt = con.createStatement()) {
             return getIsbnFrom(stmt);
         } catch (SQLException e) {
             throw new DataManipulationException("Le livre n'a pas pu être récupéré.", e);
         }
     }
 
+    @Override
+    public int getLastBookNumber(final String matricule) {
+        ensureIsbnCounter();
+        try(Connection con = factory.newConnection()) {
+            return BookBDRepository.getLastBookNumber(con, matricule);
+        } catch (SQLException e) {
+            throw new DataManipulationException("Le numéro du dernier livre n'a pas pu être récupéré.", e);
+        }
+    }
+
+    @Override
+    public int allocateBookNumber(final String matricule) {
+        ensureIsbnCounter();
+        final int[] result = new int[1];
+        try {
+            Transaction
+                    .from(connection = factory.newConnection())
+                    .commit((con) -> result[0] = BookBDRepository.allocateBookNumber(con, matricule))
+                    .onRollback((ex) -> {throw new DataManipulationException("Le numéro du prochain livre n'a pas pu être attribué.", ex);})
+                    .execute();
+        } finally {
+            closeConnection();
+        }
+        return result[0];
+    }
+
     private String getIsbnFrom(final Statement stmt) throws SQLException {
+        Metrics.increment(Counter.STATEMENTS, 1);
         try(final var rs = stmt.executeQuery(SELECT_LAST_ISBN_STMT)) {
             if (rs.next() && !rs.wasNull()) {
+                countRowsRead(1);
                 return rs.getString("isbn");
             }
             return "0000000000";
@@ -291,15 +509,16 @@ public class BDRepository implements DataRepository {
             stmt.setString(1, Mapping.convertISBNToDTO(isbn));
             var tempDTO = convertResultSetToDTO(stmt);
             if(tempDTO != null) {
-                tempDTO.pages = getPageFor(tempDTO.getIsbn());
+                tempDTO.pages = getPageFor(tempDTO.id);
                 result = Mapping.convertToBook(tempDTO);
                 tracker.remove(isbn);
-                tracker.put(result, tempDTO);
+                tracker.putSnapshot(result, tempDTO);
             }
         } catch (SQLException e) {
             throw new DataManipulationException("Une erreur est survenue lors de la récupération du livre ayant l'ISBN: " + isbn, e);
+        } finally {
+            closeConnection();
         }
-        closeConnection();
         return result;
     }
 }
@@ -1,14 +1,26 @@
 package org.helmo.gbeditor.infrastructures.jdbc;
 
+import org.helmo.gbeditor.domains.ISBN;
+import org.helmo.gbeditor.domains.ISBNCodec;
+import org.helmo.gbeditor.infrastructures.Mapping;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.repositories.BookSummary;
+import org.helmo.gbeditor.repositories.BooksPage;
 
 import java.sql.*;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.List;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.countRowsRead;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.executeQuery;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.executeUpdate;
 
 /**
  * S'occupe de certaines des opérations en base se données liées aux livres.
  */
 public class BookBDRepository {
+    private static final DateTimeFormatter PUBLISH_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yy à HH:mm");
 
     /**
      * Convertit un ResultSet donné en BTO.
@@ -81,8 +93,167 @@ public class BookBDRepository {
      * @throws SQLException Si une des opérations avec la base de donnée a échoué.
      */
     protected static BookDTO convertResultSetToDTO(final PreparedStatement stmt) throws SQLException {
-        try(final var rs = stmt.executeQuery()) {
-            return rs.next() && !rs.wasNull() ? convertResultSetToDTO(rs) : null;
+        try(final var rs = executeQuery(stmt)) {
+            if(rs.next() && !rs.wasNull()) {
+                countRowsRead(1);
+                return convertResultSetToDTO(rs);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Convertit la ligne courante d'un ResultSet en résumé de livre.
+     * Seules les colonnes id_book, title, isbn, imgPath, author et datePublication sont lues.
+     *
+     * @param rs    ResultSet à convertir en résumé.
+     *
+     * @return      Le résumé du livre de la ligne courante.
+     *
+     * @throws SQLException Si une des opérations avec la base de donnée a échoué.
+     */
+    protected static BookSummary convertResultSetToSummary(final ResultSet rs) throws SQLException {
+        final var publishDate = rs.getTimestamp("datePublication");
+        return new BookSummary(
+                rs.getString("title"),
+                ISBNCodec.toDisplay(rs.getString("isbn")),
+                rs.getString("author"),
+                rs.getString("imgPath"),
+                publishDate == null ? null : publishDate.toLocalDateTime().format(PUBLISH_DATE_FORMAT));
+    }
+
+    /**
+     * Lit une page de résumés de livres à partir d'une requête triée par id_book et limitée à limit + 1 lignes.
+     * La ligne supplémentaire n'est pas lue, elle indique seulement qu'une page suivante existe.
+     *
+     * @param stmt  Requête à exécuter.
+     * @param limit Nombre maximum de livres de la page.
+     *
+     * @return      La page de résumés, dont le curseur suivant est l'id du dernier livre de la page.
+     *
+     * @throws SQLException Si une des opérations avec la base de donnée a échoué.
+     */
+    protected static BooksPage convertResultSetToSummaries(final PreparedStatement stmt, final int limit) throws SQLException {
+        final List<BookSummary> books = new ArrayList<>();
+        int lastId = 0;
+        try(final var rs = executeQuery(stmt)) {
+            while(rs.next()) {
+                if(books.size() == limit) {
+                    countRowsRead(books.size() + 1);
+                    return new BooksPage(books, String.valueOf(lastId));
+                }
+                books.add(convertResultSetToSummary(rs));
+                lastId = rs.getInt("id_book");
+            }
+        }
+        countRowsRead(books.size());
+        return new BooksPage(books, null);
+    }
+
+    /**
+     * Récupère le numéro du dernier livre attribué à un auteur.
+     * Si l'auteur n'a pas encore de compteur, le numéro est calculé à partir de ses livres existants.
+     *
+     * @param con       Connexion à la base de données.
+     * @param matricule Matricule de l'auteur.
+     *
+     * @return          Le numéro du dernier livre attribué à l'auteur ou 0 s'il n'en a aucun.
+     *
+     * @throws SQLException Si une des opérations avec la base de donnée a échoué.
+     */
+    protected static int getLastBookNumber(final Connection con, final String matricule) throws SQLException {
+        try(final var stmt = con.prepareStatement(SQLInstructions.SELECT_ISBN_COUNTER_STMT)) {
+            stmt.setString(1, matricule);
+            try(final var rs = executeQuery(stmt)) {
+                if(rs.next()) {
+                    countRowsRead(1);
+                    return rs.getInt("last_number");
+                }
+            }
+        }
+        return lastBookNumberAmongBooks(con, matricule);
+    }
+
+    private static int lastBookNumberAmongBooks(final Connection con, final String matricule) throws SQLException {
+        try(final var stmt = con.prepareStatement(SQLInstructions.SELECT_LAST_ISBN_FOR_AUTHOR_STMT)) {
+            stmt.setString(1, ISBN.LANG_CODE + matricule + "%");
+            try(final var rs = executeQuery(stmt)) {
+                final var isbn = rs.next() ? rs.getString("isbn") : null;
+                countRowsRead(1);
+                return isbn == null ? 0 : Math.max(0, ISBNCodec.bookNumberOf(isbn));
+            }
+        }
+    }
+
+    /**
+     * Attribue le numéro suivant à un auteur en incrémentant son compteur.
+     * La mise à jour verrouille la ligne du compteur jusqu'à la fin de la transaction, deux transactions
+     * ne peuvent donc pas recevoir le même numéro.
+     *
+     * @param con       Connexion à la base de données, dans une transaction.
+     * @param matricule Matricule de l'auteur.
+     *
+     * @return          Le numéro attribué.
+     *
+     * @throws SQLException Si une des opérations avec la base de donnée a échoué.
+     */
+    protected static int allocateBookNumber(final Connection con, final String matricule) throws SQLException {
+        if(!incrementBookNumber(con, matricule)) {
+            try(final var stmt = con.prepareStatement(SQLInstructions.INSERT_ISBN_COUNTER_STMT)) {
+                stmt.setString(1, matricule);
+                stmt.setInt(2, lastBookNumberAmongBooks(con, matricule) + 1);
+                executeUpdate(stmt);
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Le compteur vient d'être créé par une autre transaction.
+                incrementBookNumber(con, matricule);
+            }
+        }
+        return getLastBookNumber(con, matricule);
+    }
+
+    private static boolean incrementBookNumber(final Connection con, final String matricule) throws SQLException {
+        try(final var stmt = con.prepareStatement(SQLInstructions.INCREMENT_ISBN_COUNTER_STMT)) {
+            stmt.setString(1, matricule);
+            return executeUpdate(stmt) > 0;
+        }
+    }
+
+    /**
+     * Attribue le numéro d'un livre ajouté en relevant le compteur de son auteur afin qu'il ne soit jamais inférieur
+     * au numéro de ce livre. Le compteur est créé s'il n'existe pas encore.
+     * La mise à jour verrouille la ligne du compteur jusqu'à la fin de la transaction : un autre ajout d'un livre du même
+     * auteur attend donc que celui-ci soit terminé avant de vérifier si son ISBN est libre.
+     *
+     * @param con   Connexion à la base de données.
+     * @param isbn  ISBN du livre ajouté.
+     *
+     * @throws SQLException Si une des opérations avec la base de donnée a échoué.
+     */
+    protected static void recordBookNumber(final Connection con, final String isbn) throws SQLException {
+        final var number = ISBNCodec.bookNumberOf(isbn);
+        final var matricule = ISBNCodec.matriculeOf(isbn);
+        if(number == -1 || matricule == null) {
+            return;
+        }
+        if(raiseBookNumber(con, matricule, number)) {
+            return;
+        }
+        try(final var stmt = con.prepareStatement(SQLInstructions.INSERT_ISBN_COUNTER_STMT)) {
+            stmt.setString(1, matricule);
+            stmt.setInt(2, Math.max(number, lastBookNumberAmongBooks(con, matricule)));
+            executeUpdate(stmt);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Le compteur vient d'être créé par une autre transaction.
+            raiseBookNumber(con, matricule, number);
+        }
+    }
+
+    private static boolean raiseBookNumber(final Connection con, final String matricule, final int number) throws SQLException {
+        try(final var stmt = con.prepareStatement(SQLInstructions.RAISE_ISBN_COUNTER_STMT)) {
+            stmt.setInt(1, number);
+            stmt.setInt(2, number);
+            stmt.setString(3, matricule);
+            return executeUpdate(stmt) > 0;
         }
     }
 }
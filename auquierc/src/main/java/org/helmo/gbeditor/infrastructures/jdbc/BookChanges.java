@@ -0,0 +1,208 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+
+import java.util.*;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.getNumPageByContent;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.resolveTarget;
+
+/**
+ * Cette classe calcule les différences entre l'état d'un livre sauvegardé en base de données et son état actuel.
+ * Les pages sont identifiées par leur contenu et les choix par le contenu de leur page source et leur libellé.
+ * Elle permet de n'écrire en base de données que les pages et les choix qui ont réellement changé.
+ */
+public class BookChanges {
+    private final List<PageDTO> insertedPages = new ArrayList<>();
+    private final List<PageDTO> movedPages = new ArrayList<>();
+    private final List<String> deletedPages = new ArrayList<>();
+    private final List<ChoiceChange> insertedChoices = new ArrayList<>();
+    private final List<ChoiceChange> updatedChoices = new ArrayList<>();
+    private final List<ChoiceChange> deletedChoices = new ArrayList<>();
+
+    private BookChanges() { }
+
+    /**
+     * Calcule les changements à appliquer pour passer des pages sauvegardées aux pages actuelles d'un livre.
+     *
+     * @param previous  Pages du livre telles qu'elles ont été sauvegardées la dernière fois.
+     * @param current   Pages actuelles du livre.
+     *
+     * @return          Les pages et choix ajoutés, modifiés et supprimés.
+     */
+    public static BookChanges between(final Iterable<PageDTO> previous, final Iterable<PageDTO> current) {
+        final var result = new BookChanges();
+        final var before = indexByContent(previous);
+        final var after = indexByContent(current);
+        final var beforeChoices = choicesByContent(previous);
+        final var afterChoices = choicesByContent(current);
+
+        before.keySet().stream()
+                .filter(content -> !after.containsKey(content))
+                .forEach(result.deletedPages::add);
+        after.forEach((content, page) -> {
+            final var old = before.get(content);
+            if(old == null) {
+                result.insertedPages.add(page);
+            } else if(old.getNumPage() != page.getNumPage()) {
+                result.movedPages.add(page);
+            }
+        });
+        afterChoices.forEach((source, choices) -> result.compareChoices(source, beforeChoices.get(source), choices));
+        beforeChoices.forEach((source, choices) -> {
+            if(after.containsKey(source) && !afterChoices.containsKey(source)) {
+                result.compareChoices(source, choices, Map.of());
+            }
+        });
+        return result;
+    }
+
+    private void compareChoices(final String source, final Map<String, String> before, final Map<String, String> after) {
+        final Map<String, String> old = before == null ? Map.of() : before;
+        after.forEach((label, target) -> {
+            final var oldTarget = old.get(label);
+            if(oldTarget == null) {
+                insertedChoices.add(new ChoiceChange(source, label, target));
+            } else if(!oldTarget.equals(target)) {
+                updatedChoices.add(new ChoiceChange(source, label, target));
+            }
+        });
+        old.forEach((label, target) -> {
+            if(!after.containsKey(label)) {
+                deletedChoices.add(new ChoiceChange(source, label, target));
+            }
+        });
+    }
+
+    private static Map<String, PageDTO> indexByContent(final Iterable<PageDTO> pages) {
+        final Map<String, PageDTO> result = new LinkedHashMap<>();
+        for(final var p : pages) {
+            result.putIfAbsent(p.getContent(), p);
+        }
+        return result;
+    }
+
+    /**
+     * Indexe les choix de chaque page par le contenu de la page source.
+     * Les cibles des choix, qui peuvent être un numéro ou un contenu de page, sont toutes converties en contenu de page.
+     */
+    private static Map<String, Map<String, String>> choicesByContent(final Iterable<PageDTO> pages) {
+        final var numByContent = getNumPageByContent(pages);
+        final Map<Integer, String> contentByNum = new HashMap<>();
+        numByContent.forEach((content, num) -> contentByNum.put(num, content));
+        final Map<String, Map<String, String>> result = new HashMap<>();
+        for(final var p : pages) {
+            final Map<String, String> choices = new HashMap<>();
+            p.getChoices().forEach((label, target) -> {
+                final var content = contentByNum.get(resolveTarget(target, numByContent));
+                if(content != null) {
+                    choices.put(label, content);
+                }
+            });
+            if(!choices.isEmpty()) {
+                result.putIfAbsent(p.getContent(), choices);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Détermine si aucune page ni aucun choix n'a changé.
+     *
+     * @return  True si rien n'a changé.
+     *          False sinon.
+     */
+    public boolean isEmpty() {
+        return insertedPages.isEmpty() && movedPages.isEmpty() && deletedPages.isEmpty() && !hasChoiceChanges();
+    }
+
+    /**
+     * Détermine si au moins un choix a été ajouté, modifié ou supprimé.
+     *
+     * @return  True si au moins un choix a changé.
+     *          False sinon.
+     */
+    public boolean hasChoiceChanges() {
+        return !insertedChoices.isEmpty() || !updatedChoices.isEmpty() || !deletedChoices.isEmpty();
+    }
+
+    public List<PageDTO> getInsertedPages() {
+        return Collections.unmodifiableList(insertedPages);
+    }
+
+    public List<PageDTO> getMovedPages() {
+        return Collections.unmodifiableList(movedPages);
+    }
+
+    public List<String> getDeletedPages() {
+        return Collections.unmodifiableList(deletedPages);
+    }
+
+    public List<ChoiceChange> getInsertedChoices() {
+        return Collections.unmodifiableList(insertedChoices);
+    }
+
+    public List<ChoiceChange> getUpdatedChoices() {
+        return Collections.unmodifiableList(updatedChoices);
+    }
+
+    public List<ChoiceChange> getDeletedChoices() {
+        return Collections.unmodifiableList(deletedChoices);
+    }
+
+    /**
+     * Représente un choix qui a été ajouté, modifié ou supprimé.
+     */
+    public static class ChoiceChange {
+        private final String source;
+        private final String label;
+        private final String target;
+
+        /**
+         * Crée un nouveau ChoiceChange.
+         *
+         * @param source    Contenu de la page à laquelle appartient le choix.
+         * @param label     Libellé du choix.
+         * @param target    Contenu de la page ciblée par le choix.
+         */
+        public ChoiceChange(final String source, final String label, final String target) {
+            this.source = source;
+            this.label = label;
+            this.target = target;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) { return true; }
+            if (o == null || getClass() != o.getClass()) { return false; }
+            ChoiceChange that = (ChoiceChange) o;
+            return source.equals(that.source) && label.equals(that.label) && target.equals(that.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, label, target);
+        }
+
+        @Override
+        public String toString() {
+            return "ChoiceChange{" +
+                    "source='" + source + '\'' +
+                    ", label='" + label + '\'' +
+                    ", target='" + target + '\'' +
+                    '}';
+        }
+    }
+}
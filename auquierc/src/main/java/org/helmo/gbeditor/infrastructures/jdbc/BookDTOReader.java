@@ -0,0 +1,254 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cette classe lit un fichier JSON contenant une liste de livres sans charger tout le fichier en mémoire.
+ * Les pages et les choix d'un livre ne sont construits que si le livre est accepté par un filtre donné,
+ * les autres livres sont simplement parcourus.
+ */
+public class BookDTOReader {
+    private static final String PAGES = "pages";
+    private static final String BOOKS = "books";
+    private static final Type PAGES_TYPE = new TypeToken<List<PageDTO>>() {}.getType();
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Lit les livres d'un flux JSON qui sont acceptés par un filtre donné.
+     *
+     * @param reader    Flux contenant une liste de livres au format JSON.
+     * @param filter    Filtre décidant, à partir de l'auteur et de l'ISBN d'un livre, si celui-ci doit être construit.
+     * @param limit     Nombre maximum de livres à lire, la lecture s'arrête dès qu'il est atteint.
+     * @param isbns     Reçoit l'ISBN de chaque livre parcouru, accepté ou non.
+     *
+     * @return          Les livres acceptés par le filtre.
+     *
+     * @throws IOException          Si le flux n'a pas pu être lu.
+     * @throws JsonParseException   Si le flux n'est pas au bon format.
+     */
+    public List<BookDTO> read(final Reader reader, final BookFilter filter, final int limit, final Consumer<String> isbns) throws IOException {
+        return read(reader, filter, limit, isbns, true);
+    }
+
+    /**
+     * Lit les livres d'un flux JSON qui sont acceptés par un filtre donné sans jamais lire leurs pages.
+     * Les livres obtenus n'ont pas de pages, ils ne servent qu'à construire des résumés.
+     *
+     * @param reader    Flux contenant une liste de livres au format JSON.
+     * @param filter    Filtre décidant, à partir de l'auteur et de l'ISBN d'un livre, si celui-ci doit être construit.
+     * @param isbns     Reçoit l'ISBN de chaque livre parcouru, accepté ou non.
+     *
+     * @return          Les livres acceptés par le filtre, sans leurs pages.
+     *
+     * @throws IOException          Si le flux n'a pas pu être lu.
+     * @throws JsonParseException   Si le flux n'est pas au bon format.
+     */
+    public List<BookDTO> readWithoutPages(final Reader reader, final BookFilter filter, final Consumer<String> isbns) throws IOException {
+        return read(reader, filter, Integer.MAX_VALUE, isbns, false);
+    }
+
+    /**
+     * Lit tous les livres d'un flux JSON au fur et à mesure qu'ils sont demandés.
+     * Un seul livre est construit à la fois, le flux peut donc contenir un nombre quelconque de livres.
+     *
+     * @param reader    Flux contenant une liste de livres au format JSON, fermé par l'appelant.
+     *
+     * @return          Les livres du flux, dans leur ordre.
+     *                  Une erreur de lecture est levée sous forme d'{@link UncheckedIOException}.
+     */
+    public Stream<BookDTO> stream(final Reader reader) {
+        final var json = new JsonReader(reader);
+        json.setLenient(true);
+        final var books = new Iterator<BookDTO>() {
+            private Boolean started;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    if(started == null) {
+                        started = startArray(json);
+                    }
+                    return started && json.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public BookDTO next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return readBook(json, (author, isbn) -> true, true).toDTO(gson);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(books, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private List<BookDTO> read(final Reader reader, final BookFilter filter, final int limit, final Consumer<String> isbns,
+                               final boolean withPages) throws IOException {
+        final List<BookDTO> result = new ArrayList<>();
+        final var json = new JsonReader(reader);
+        json.setLenient(true);
+        if(!startArray(json)) {
+            return result;
+        }
+        while(json.hasNext() && result.size() < limit) {
+            final var book = readBook(json, filter, withPages);
+            final var isbn = book.isbn();
+            if(isbn != null) {
+                isbns.accept(isbn);
+            }
+            if(book.accepted) {
+                result.add(book.toDTO(gson));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Se place au début de la liste des livres.
+     * Le flux peut contenir cette liste ou un objet dont le champ "books" la contient, les autres champs sont ignorés.
+     */
+    private static boolean startArray(final JsonReader json) throws IOException {
+        try {
+            if(json.peek() == JsonToken.BEGIN_OBJECT && !findBooks(json)) {
+                return false;
+            }
+            if(json.peek() != JsonToken.BEGIN_ARRAY) {
+                return false;
+            }
+        } catch (EOFException e) {
+            return false;
+        }
+        json.beginArray();
+        return true;
+    }
+
+    private static boolean findBooks(final JsonReader json) throws IOException {
+        json.beginObject();
+        while(json.hasNext()) {
+            if(BOOKS.equals(json.nextName())) {
+                return true;
+            }
+            json.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * Lit un livre champ par champ.
+     * Lorsque l'auteur et l'ISBN sont connus avant les pages, celles-ci sont ignorées ou lues directement selon le filtre.
+     * Sinon elles sont gardées sous forme d'arbre JSON jusqu'à ce que le filtre puisse être appliqué.
+     * Si les pages ne sont pas voulues, elles sont toujours ignorées.
+     */
+    private PendingBook readBook(final JsonReader json, final BookFilter filter, final boolean withPages) throws IOException {
+        final var book = new PendingBook();
+        json.beginObject();
+        while(json.hasNext()) {
+            final var name = json.nextName();
+            if(!PAGES.equals(name)) {
+                book.header.add(name, JsonParser.parseReader(json));
+            } else if(!withPages) {
+                json.skipValue();
+            } else if(book.header.has("author") && book.header.has("isbn")) {
+                if(filter.accept(book.author(), book.isbn())) {
+                    book.pages = json.peek() == JsonToken.NULL ? skipNull(json) : gson.fromJson(json, PAGES_TYPE);
+                    book.pagesRead = true;
+                } else {
+                    json.skipValue();
+                }
+            } else {
+                book.pendingPages = JsonParser.parseReader(json);
+            }
+        }
+        json.endObject();
+        book.accepted = filter.accept(book.author(), book.isbn());
+        if(book.accepted && !book.pagesRead && book.pendingPages != null && !book.pendingPages.isJsonNull()) {
+            book.pages = gson.fromJson(book.pendingPages, PAGES_TYPE);
+            book.pagesRead = true;
+        }
+        return book;
+    }
+
+    private static List<PageDTO> skipNull(final JsonReader json) throws IOException {
+        json.nextNull();
+        return null;
+    }
+
+    /**
+     * Définit un filtre décidant si un livre doit être construit.
+     */
+    @FunctionalInterface
+    public interface BookFilter {
+
+        /**
+         * Détermine si un livre doit être construit.
+         *
+         * @param author    Auteur du livre ou null s'il n'est pas renseigné.
+         * @param isbn      ISBN du livre ou null s'il n'est pas renseigné.
+         *
+         * @return          True si le livre doit être construit.
+         *                  False sinon.
+         */
+        boolean accept(String author, String isbn);
+    }
+
+    /**
+     * Représente un livre en cours de lecture.
+     */
+    private static class PendingBook {
+        private final JsonObject header = new JsonObject();
+        private JsonElement pendingPages;
+        private List<PageDTO> pages;
+        private boolean pagesRead;
+        private boolean accepted;
+
+        private String author() {
+            return asString(header.get("author"));
+        }
+
+        private String isbn() {
+            return asString(header.get("isbn"));
+        }
+
+        private static String asString(final JsonElement element) {
+            return element == null || !element.isJsonPrimitive() ? null : element.getAsString();
+        }
+
+        private BookDTO toDTO(final Gson gson) {
+            final var dto = gson.fromJson(header, BookDTO.class);
+            dto.pages = pages;
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.BookBDRepository.convertResultSetToDTO;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.countRowsRead;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.executeQuery;
+import static org.helmo.gbeditor.infrastructures.jdbc.SQLInstructions.*;
+
+/**
+ * <p>Cette classe exporte tous les livres de la base de données en JSON, au format lu par {@link JsonRepository}.</p>
+ * <p>Les livres d'une part, et les pages avec leurs choix d'autre part, sont lus par deux curseurs qui n'avancent que vers
+ * l'avant, tous deux triés par livre et qui ne ramènent qu'un nombre limité de lignes à la fois. Les deux curseurs sont lus
+ * ensemble et chaque livre est écrit dès que toutes ses pages sont lues : un seul livre est gardé en mémoire à la fois,
+ * quelle que soit la taille de la bibliothèque.</p>
+ * <p>Les deux requêtes sont exécutées dans une même transaction afin de voir le même état de la base de données.</p>
+ */
+public class BookExporter {
+    private final ConnectionFactory factory;
+    private final int fetchSize;
+    private final Gson gson = new Gson();
+
+    /**
+     * Crée un nouvel exportateur lisant un nombre donné de lignes à la fois.
+     *
+     * @param factory   Factory qui gère la création de la connection à la base de données.
+     * @param fetchSize Nombre de lignes ramenées à la fois par les curseurs.
+     *
+     * @throws IllegalArgumentException Si la taille de lecture n'est pas valide.
+     */
+    public BookExporter(final ConnectionFactory factory, final int fetchSize) {
+        if(fetchSize < 1) {
+            throw new IllegalArgumentException("Les curseurs doivent lire au moins une ligne à la fois.");
+        }
+        this.factory = factory;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Écrit tous les livres, sous forme d'une liste JSON, dans un flux donné.
+     * Le flux est vidé à la fin de l'export mais n'est pas fermé.
+     *
+     * @param writer    Flux dans lequel les livres sont écrits.
+     *
+     * @return          Le nombre de livres écrits.
+     *
+     * @throws DataManipulationException Si les livres n'ont pas pu être lus ou écrits.
+     */
+    public int exportTo(final Writer writer) {
+        final int[] count = new int[1];
+        try(final var connection = factory.newConnection()) {
+            Transaction
+                    .from(connection)
+                    .commit((con) -> count[0] = writeBooks(con, new JsonWriter(writer)))
+                    .onRollback((ex) -> {throw new DataManipulationException("Une erreur est survenue lors de l'export des livres.", ex);})
+                    .execute();
+        } catch (SQLException e) {
+            throw new DataManipulationException("Erreur lors de la déconnexion à la base de donnée", e);
+        }
+        return count[0];
+    }
+
+    private int writeBooks(final Connection con, final JsonWriter json) throws SQLException, IOException {
+        var count = 0;
+        json.beginArray();
+        try(final var booksStmt = openCursor(con, SELECT_BOOKS_FOR_EXPORT_STMT);
+            final var pagesStmt = openCursor(con, SELECT_PAGES_WITH_CHOICES_FOR_EXPORT_STMT);
+            final var books = executeQuery(booksStmt);
+            final var pages = executeQuery(pagesStmt)) {
+            final var cursor = new PageCursor(pages);
+            while(books.next()) {
+                final var dto = convertResultSetToDTO(books);
+                cursor.readPagesOf(dto);
+                // L'identifiant en base de données n'a pas de sens dans un fichier JSON.
+                dto.id = 0;
+                gson.toJson(dto, BookDTO.class, json);
+                count++;
+            }
+            countRowsRead(count + cursor.rows);
+        }
+        json.endArray();
+        json.flush();
+        return count;
+    }
+
+    private PreparedStatement openCursor(final Connection con, final String sql) throws SQLException {
+        final var stmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        stmt.setFetchSize(fetchSize);
+        return stmt;
+    }
+
+    /**
+     * Parcourt les lignes des pages, une ligne par choix, triées par livre puis par page.
+     * Une ligne lue mais appartenant au livre suivant est gardée pour celui-ci.
+     */
+    private static final class PageCursor {
+        private final ResultSet rs;
+        private boolean hasRow;
+        private int rows;
+
+        private PageCursor(final ResultSet rs) throws SQLException {
+            this.rs = rs;
+            advance();
+        }
+
+        private void readPagesOf(final BookDTO dto) throws SQLException {
+            while(hasRow && rs.getInt("id_book") < dto.id) {
+                advance();
+            }
+            PageDTO current = null;
+            int currentId = -1;
+            while(hasRow && rs.getInt("id_book") == dto.id) {
+                final int idPage = rs.getInt("id_page");
+                if(current == null || idPage != currentId) {
+                    current = new PageDTO(rs.getString("content"), Map.of(), rs.getInt("num_page"));
+                    currentId = idPage;
+                    dto.pages.add(current);
+                }
+                final var choice = rs.getString("choice");
+                if(choice != null) {
+                    current.getChoices().put(choice, rs.getInt("targetP") + "");
+                }
+                advance();
+            }
+        }
+
+        private void advance() throws SQLException {
+            hasRow = rs.next();
+            if(hasRow) {
+                rows++;
+            }
+        }
+    }
+}
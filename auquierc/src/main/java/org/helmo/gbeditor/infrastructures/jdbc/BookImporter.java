@@ -0,0 +1,392 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import org.helmo.gbeditor.domains.ISBNCodec;
+import org.helmo.gbeditor.infrastructures.Mapping;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.*;
+import static org.helmo.gbeditor.infrastructures.jdbc.SQLInstructions.*;
+
+/**
+ * <p>Cette classe importe un grand nombre de livres en base de données, par exemple depuis un export JSON.</p>
+ * <p>Les livres sont lus un à un depuis un flux et écrits par lots d'une taille donnée, chaque lot dans sa propre transaction :
+ * seuls les livres du lot en cours sont gardés en mémoire. Pour chaque lot, les ISBN déjà utilisés sont cherchés en une seule
+ * requête, puis les auteurs manquants, les livres, les pages et les choix sont insérés en un seul lot chacun.
+ * Les identifiants des auteurs sont retenus pendant tout l'import, chaque auteur n'est donc cherché qu'une fois.</p>
+ * <p>Les livres dont l'ISBN existe déjà, en base ou plus tôt dans le même lot, sont ignorés.
+ * Si un lot échoue, il est annulé et l'import s'arrête, mais les lots précédents restent importés.</p>
+ */
+public class BookImporter {
+    private final ConnectionFactory factory;
+    private final int chunkSize;
+    private final Map<String, Integer> authorIds = new HashMap<>();
+
+    private final String selectAuthorsStmt;
+    private final String selectIsbnsStmt;
+    private final String selectBookIdsStmt;
+    private final String selectPageIdsStmt;
+
+    /**
+     * Crée un nouvel importateur écrivant les livres par lots d'une taille donnée.
+     *
+     * @param factory   Factory qui gère la création de la connection à la base de données.
+     * @param chunkSize Nombre maximum de livres écrits par transaction.
+     *
+     * @throws IllegalArgumentException Si la taille des lots n'est pas valide.
+     */
+    public BookImporter(final ConnectionFactory factory, final int chunkSize) {
+        if(chunkSize < 1) {
+            throw new IllegalArgumentException("Un lot doit contenir au moins un livre.");
+        }
+        this.factory = factory;
+        this.chunkSize = chunkSize;
+        // Les listes "IN" ont toujours la taille d'un lot afin que chaque requête ne soit préparée qu'une fois.
+        this.selectAuthorsStmt = in(SELECT_AUTHORS_IN_STMT, chunkSize);
+        this.selectIsbnsStmt = in(SELECT_ISBNS_IN_STMT, chunkSize);
+        this.selectBookIdsStmt = in(SELECT_BOOK_IDS_IN_STMT, chunkSize);
+        this.selectPageIdsStmt = in(SELECT_PAGE_IDS_IN_STMT, chunkSize);
+    }
+
+    /**
+     * Importe les livres d'un flux, lot par lot.
+     * Le flux n'est parcouru qu'une fois et n'est pas fermé.
+     *
+     * @param books Livres à importer.
+     *
+     * @return      Le bilan de l'import.
+     *
+     * @throws DataManipulationException Si un lot n'a pas pu être importé.
+     */
+    public Report importBooks(final Stream<BookDTO> books) {
+        final var report = new Report();
+        try(final var con = factory.newConnection()) {
+            final var it = books.iterator();
+            final List<BookDTO> chunk = new ArrayList<>(chunkSize);
+            while(it.hasNext()) {
+                chunk.add(it.next());
+                if(chunk.size() == chunkSize) {
+                    writeChunk(con, chunk, report);
+                    chunk.clear();
+                }
+            }
+            if(!chunk.isEmpty()) {
+                writeChunk(con, chunk, report);
+            }
+        } catch (SQLException e) {
+            throw new DataManipulationException("Erreur lors de la déconnexion à la base de donnée", e);
+        }
+        return report;
+    }
+
+    private void writeChunk(final Connection connection, final List<BookDTO> chunk, final Report report) {
+        final int[] written = new int[1];
+        Transaction
+                .from(connection)
+                .commit((con) -> written[0] = insertChunk(con, chunk))
+                .onRollback((ex) -> {
+                    // Les auteurs ajoutés par le lot annulé n'existent plus.
+                    authorIds.clear();
+                    throw new DataManipulationException("L'import a échoué après " + report.imported + " livres importés.", ex);
+                })
+                .execute();
+        report.imported += written[0];
+        report.skipped += chunk.size() - written[0];
+        report.chunks++;
+    }
+
+    private int insertChunk(final Connection con, final List<BookDTO> chunk) throws SQLException {
+        final var books = getNewBooks(con, chunk);
+        if(books.isEmpty()) {
+            return 0;
+        }
+        saveAuthors(con, books.values());
+        insertBooks(con, books);
+        insertChoices(con, books.values(), insertPages(con, books.values()));
+        raiseBookNumbers(con, books.keySet());
+        return books.size();
+    }
+
+    /**
+     * Garde les livres du lot dont l'ISBN n'est pas encore utilisé, indexés par ISBN sous sa forme de stockage.
+     */
+    private Map<String, BookDTO> getNewBooks(final Connection con, final List<BookDTO> chunk) throws SQLException {
+        final Map<String, BookDTO> result = new LinkedHashMap<>();
+        for(final var dto : chunk) {
+            if(dto.isbn != null) {
+                result.putIfAbsent(Mapping.convertISBNToDTO(dto.isbn), dto);
+            }
+        }
+        if(result.isEmpty()) {
+            return result;
+        }
+        try(final var stmt = con.prepareStatement(selectIsbnsStmt)) {
+            bindPadded(stmt, new ArrayList<>(result.keySet()));
+            var rows = 0;
+            try(final var rs = executeQuery(stmt)) {
+                while(rs.next()) {
+                    result.remove(rs.getString("isbn"));
+                    rows++;
+                }
+            }
+            countRowsRead(rows);
+        }
+        return result;
+    }
+
+    private void saveAuthors(final Connection con, final Collection<BookDTO> books) throws SQLException {
+        final Set<String> missing = new LinkedHashSet<>();
+        for(final var dto : books) {
+            if(dto.author != null && !authorIds.containsKey(dto.author)) {
+                missing.add(dto.author);
+            }
+        }
+        if(missing.isEmpty()) {
+            return;
+        }
+        loadAuthorIds(con, missing);
+        missing.removeAll(authorIds.keySet());
+        if(missing.isEmpty()) {
+            return;
+        }
+        try(final var stmt = con.prepareStatement(INSERT_AUTHOR_STMT)) {
+            for(final var name : missing) {
+                stmt.setString(1, name);
+                stmt.addBatch();
+            }
+            executeBatch(stmt);
+        }
+        loadAuthorIds(con, missing);
+    }
+
+    private void loadAuthorIds(final Connection con, final Set<String> names) throws SQLException {
+        try(final var stmt = con.prepareStatement(selectAuthorsStmt)) {
+            bindPadded(stmt, new ArrayList<>(names));
+            var rows = 0;
+            try(final var rs = executeQuery(stmt)) {
+                while(rs.next()) {
+                    authorIds.put(rs.getString("name"), rs.getInt("id_author"));
+                    rows++;
+                }
+            }
+            countRowsRead(rows);
+        }
+    }
+
+    /**
+     * Insère les livres en un seul lot et leur attribue leur identifiant.
+     * Si le driver ne retourne pas les clefs générées d'un lot, les identifiants sont relus en une seule requête.
+     */
+    private void insertBooks(final Connection con, final Map<String, BookDTO> books) throws SQLException {
+        try(final var stmt = con.prepareStatement(INSERT_IMPORTED_BOOK_STMT, Statement.RETURN_GENERATED_KEYS)) {
+            for(final var entry : books.entrySet()) {
+                addBookToStmt(entry.getValue(), entry.getKey(), stmt);
+            }
+            executeBatch(stmt);
+            final var keys = getGeneratedKeys(stmt, books.size());
+            if(keys != null) {
+                var i = 0;
+                for(final var dto : books.values()) {
+                    dto.id = keys.get(i++);
+                }
+                return;
+            }
+        }
+        try(final var stmt = con.prepareStatement(selectBookIdsStmt)) {
+            bindPadded(stmt, new ArrayList<>(books.keySet()));
+            var rows = 0;
+            try(final var rs = executeQuery(stmt)) {
+                while(rs.next()) {
+                    books.get(rs.getString("isbn")).id = rs.getInt("id_book");
+                    rows++;
+                }
+            }
+            countRowsRead(rows);
+        }
+    }
+
+    private void addBookToStmt(final BookDTO dto, final String isbn, final PreparedStatement stmt) throws SQLException {
+        stmt.setString(1, dto.getTitle());
+        stmt.setString(2, isbn);
+        stmt.setString(3, dto.getResume());
+        stmt.setString(4, dto.getImgPath());
+        final var publishDate = dto.getPublishDate();
+        stmt.setTimestamp(5, publishDate == null ? null : Timestamp.valueOf(publishDate));
+        final var idAuthor = dto.author == null ? null : authorIds.get(dto.author);
+        if(idAuthor == null) {
+            stmt.setNull(6, Types.INTEGER);
+        } else {
+            stmt.setInt(6, idAuthor);
+        }
+        stmt.addBatch();
+    }
+
+    /**
+     * Insère les pages de tous les livres du lot en un seul lot.
+     *
+     * @return  Les identifiants des pages, indexés par identifiant de livre puis par numéro de page.
+     */
+    private Map<Integer, Map<Integer, Integer>> insertPages(final Connection con, final Collection<BookDTO> books) throws SQLException {
+        final Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        final List<int[]> inserted = new ArrayList<>();
+        try(final var stmt = con.prepareStatement(INSERT_PAGE_STMT, Statement.RETURN_GENERATED_KEYS)) {
+            for(final var dto : books) {
+                for(final var page : dto) {
+                    addPageToStmt(page, dto.id, stmt);
+                    inserted.add(new int[]{dto.id, page.getNumPage()});
+                }
+            }
+            if(inserted.isEmpty()) {
+                return result;
+            }
+            executeBatch(stmt);
+            final var keys = getGeneratedKeys(stmt, inserted.size());
+            if(keys != null) {
+                for(int i = 0; i < inserted.size(); i++) {
+                    result.computeIfAbsent(inserted.get(i)[0], id -> new HashMap<>()).put(inserted.get(i)[1], keys.get(i));
+                }
+                return result;
+            }
+        }
+        final List<Integer> bookIds = new ArrayList<>();
+        for(final var dto : books) {
+            bookIds.add(dto.id);
+        }
+        try(final var stmt = con.prepareStatement(selectPageIdsStmt)) {
+            bindPadded(stmt, bookIds);
+            return readPageIds(stmt);
+        }
+    }
+
+    private void insertChoices(final Connection con, final Collection<BookDTO> books,
+                               final Map<Integer, Map<Integer, Integer>> pageIds) throws SQLException {
+        boolean hasChoices = false;
+        try(final var stmt = con.prepareStatement(INSERT_CHOICES_STMT)) {
+            for(final var dto : books) {
+                final var numByContent = getNumPageByContent(dto);
+                final var ids = pageIds.getOrDefault(dto.id, Map.of());
+                for(final var page : dto) {
+                    hasChoices |= addChoicesToStmt(page, ids, numByContent, stmt);
+                }
+            }
+            if(hasChoices) {
+                executeBatch(stmt);
+            }
+        }
+    }
+
+    private static boolean addChoicesToStmt(final PageDTO page, final Map<Integer, Integer> ids,
+                                            final Map<String, Integer> numByContent, final PreparedStatement stmt) throws SQLException {
+        if(page.getChoices() == null || page.getChoices().isEmpty()) {
+            return false;
+        }
+        for(final var choice : page.getChoices().entrySet()) {
+            stmt.setString(1, choice.getKey());
+            stmt.setInt(2, getPageId(ids, page.getNumPage()));
+            stmt.setInt(3, getPageId(ids, resolveTarget(choice.getValue(), numByContent)));
+            stmt.addBatch();
+        }
+        return true;
+    }
+
+    private static int getPageId(final Map<Integer, Integer> ids, final int numPage) throws SQLException {
+        final var id = ids.get(numPage);
+        if(id == null) {
+            throw new SQLException("La page n°" + numPage + " n'existe pas en base de données.");
+        }
+        return id;
+    }
+
+    /**
+     * Relève, en un seul lot, le compteur de chaque auteur au numéro de son dernier livre importé.
+     */
+    private static void raiseBookNumbers(final Connection con, final Collection<String> isbns) throws SQLException {
+        final Map<String, Integer> lastNumbers = new HashMap<>();
+        for(final var isbn : isbns) {
+            final var number = ISBNCodec.bookNumberOf(isbn);
+            final var matricule = ISBNCodec.matriculeOf(isbn);
+            if(number != -1 && matricule != null) {
+                lastNumbers.merge(matricule, number, Math::max);
+            }
+        }
+        if(lastNumbers.isEmpty()) {
+            return;
+        }
+        try(final var stmt = con.prepareStatement(RAISE_ISBN_COUNTER_STMT)) {
+            for(final var entry : lastNumbers.entrySet()) {
+                stmt.setInt(1, entry.getValue());
+                stmt.setInt(2, entry.getValue());
+                stmt.setString(3, entry.getKey());
+                stmt.addBatch();
+            }
+            executeBatch(stmt);
+        }
+    }
+
+    /**
+     * Donne les valeurs d'une liste "IN", dont les places libres sont occupées par la dernière valeur.
+     */
+    private void bindPadded(final PreparedStatement stmt, final List<?> values) throws SQLException {
+        for(int i = 0; i < chunkSize; i++) {
+            stmt.setObject(i + 1, values.get(Math.min(i, values.size() - 1)));
+        }
+    }
+
+    private static String in(final String stmt, final int count) {
+        return stmt + "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Représente le bilan d'un import.
+     */
+    public static final class Report {
+        private int imported;
+        private int skipped;
+        private int chunks;
+
+        /**
+         * Récupère le nombre de livres importés.
+         *
+         * @return  Le nombre de livres ajoutés en base de données.
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * Récupère le nombre de livres ignorés car leur ISBN existait déjà ou n'était pas renseigné.
+         *
+         * @return  Le nombre de livres ignorés.
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Récupère le nombre de lots écrits, chacun dans sa propre transaction.
+         *
+         * @return  Le nombre de lots.
+         */
+        public int getChunks() {
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import org.helmo.gbeditor.domains.ISBN;
+import org.helmo.gbeditor.domains.ISBNCodec;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cette classe retient, en mémoire, le numéro du dernier livre attribué à chaque auteur.
+ * Elle est utilisée par les repositories qui n'ont pas de base de données pour garder ce compteur.
+ * Le compteur d'un auteur est initialisé à partir de ses livres existants la première fois qu'on le demande.
+ */
+class BookNumberCounter {
+    private final Map<String, Integer> lastNumbers = new HashMap<>();
+
+    /**
+     * Récupère le numéro du dernier livre attribué à un auteur.
+     *
+     * @param matricule Matricule de l'auteur.
+     * @param seed      Calcule le numéro du dernier livre existant de l'auteur si son compteur n'existe pas encore.
+     *
+     * @return          Le numéro du dernier livre attribué à l'auteur.
+     */
+    synchronized int last(final String matricule, final ToIntFunction<String> seed) {
+        return lastNumbers.computeIfAbsent(matricule, seed::applyAsInt);
+    }
+
+    /**
+     * Attribue le numéro suivant à un auteur.
+     *
+     * @param matricule Matricule de l'auteur.
+     * @param seed      Calcule le numéro du dernier livre existant de l'auteur si son compteur n'existe pas encore.
+     *
+     * @return          Le numéro attribué, jamais rendu deux fois pour un même auteur.
+     */
+    synchronized int allocate(final String matricule, final ToIntFunction<String> seed) {
+        final var next = last(matricule, seed) + 1;
+        lastNumbers.put(matricule, next);
+        return next;
+    }
+
+    /**
+     * Prend en compte le numéro d'un livre ajouté afin que le compteur de son auteur ne lui soit jamais inférieur.
+     *
+     * @param isbn  ISBN du livre ajouté.
+     */
+    synchronized void record(final String isbn) {
+        final var number = ISBNCodec.bookNumberOf(isbn);
+        final var matricule = ISBNCodec.matriculeOf(isbn);
+        if(number != -1 && matricule != null) {
+            lastNumbers.computeIfPresent(matricule, (m, last) -> Math.max(last, number));
+        }
+    }
+
+    /**
+     * Oublie tous les compteurs, ils seront recalculés à partir des livres existants.
+     */
+    synchronized void clear() {
+        lastNumbers.clear();
+    }
+
+    /**
+     * Calcule le numéro du dernier livre d'un auteur parmi des ISBN triés, sous leur forme de stockage.
+     *
+     * @param isbns     ISBN triés des livres existants.
+     * @param matricule Matricule de l'auteur.
+     *
+     * @return          Le plus grand numéro de livre de l'auteur ou 0 s'il n'a aucun livre.
+     */
+    static int lastNumberAmong(final SortedSet<String> isbns, final String matricule) {
+        final var prefix = ISBN.LANG_CODE + matricule;
+        final var own = isbns.subSet(prefix, prefix + Character.MAX_VALUE);
+        return own.isEmpty() ? 0 : Math.max(0, ISBNCodec.bookNumberOf(own.last()));
+    }
+}
@@ -4,15 +4,19 @@ import org.helmo.gbeditor.infrastructures.exception.UnableToConnectException;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.SQLException;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.DBConfig.*;
 
 /**
  * Cette classe permet d'initialiser une nouvelle ConnectionFactory qui sauvegardera les données nécessaires pour la création d'une connection à la base de données.
+ * Les connexions sont fournies par un pool borné afin d'éviter d'ouvrir une nouvelle connexion physique à chaque opération,
+ * et chacune garde ses requêtes préparées afin de ne pas les préparer à nouveau à chaque opération.
  */
-public class ConnectionFactory {
+public class ConnectionFactory implements AutoCloseable {
     private final String bdUrl;
     private final String user;
     private final String password;
+    private final ConnectionPool pool;
 
     /**
      * Crée une nouvelle ConnectionFactory à partir d'une url de base de données, d'un login et d'un mot de passe donné.
@@ -25,21 +29,29 @@ public class ConnectionFactory {
         this.bdUrl = bdUrl;
         this.user = user;
         this.password = password;
+        this.pool = new ConnectionPool(() -> DriverManager.getConnection(this.bdUrl, this.user, this.password),
+                POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_MAX_LIFETIME_MS, POOL_LEAK_THRESHOLD_MS,
+                POOL_STATEMENT_CACHE_SIZE);
     }
 
     /**
-     * Créer une nouvelle connection à partir des informations sauvegardées par la ConnectionFactory.
+     * Récupère une connexion à partir des informations sauvegardées par la factory.
+     * La connexion doit être fermée après utilisation pour être rendue au pool.
      *
-     * @return  Une nouvelle connection à la base de données mémorisée par la factory.
+     * @return  Une connexion à la base de données mémorisée par la factory.
      *
      * @throws UnableToConnectException Si la connection n'a pas pu se faire.
      */
     public Connection newConnection() {
-        try {
-            return DriverManager.getConnection(bdUrl, user, password);
-        } catch (SQLException e) {
-            throw new UnableToConnectException("La connection avec la ressource n'a pas pu se faire.", e);
-        }
+        return pool.borrow();
+    }
+
+    /**
+     * Ferme toutes les connexions gérées par la factory.
+     */
+    @Override
+    public void close() {
+        pool.close();
     }
 
 }
@@ -0,0 +1,400 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import org.helmo.gbeditor.infrastructures.exception.UnableToConnectException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cette classe gère un nombre borné de connexions à la base de données afin de les réutiliser d'une opération à l'autre.
+ * Elle permet en outre de :
+ * <ul>
+ *     <li>Valider une connexion avant de la prêter</li>
+ *     <li>Fermer les connexions inactives depuis trop longtemps ou ayant dépassé leur durée de vie maximale</li>
+ *     <li>Signaler les connexions empruntées qui n'ont pas été rendues (fuites)</li>
+ *     <li>Garder les requêtes préparées de chaque connexion pour les réutiliser (voir {@link StatementCache})</li>
+ * </ul>
+ * Une connexion prêtée retourne dans le pool lorsqu'on appelle sa méthode close().
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long MIN_HOUSEKEEPING_PERIOD_MS = 1000;
+
+    private final ConnectionSource source;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Crée un nouveau ConnectionPool qui ne garde pas les requêtes préparées.
+     *
+     * @param source            Source des connexions physiques à la base de données.
+     * @param maxSize           Nombre maximum de connexions ouvertes en même temps.
+     * @param borrowTimeoutMs   Temps maximum d'attente pour obtenir une connexion (en millisecondes).
+     * @param idleTimeoutMs     Temps après lequel une connexion inactive est fermée (en millisecondes).
+     * @param maxLifetimeMs     Durée de vie maximale d'une connexion physique (en millisecondes).
+     * @param leakThresholdMs   Temps après lequel une connexion non rendue est signalée comme fuite (en millisecondes).
+     */
+    public ConnectionPool(final ConnectionSource source, final int maxSize, final long borrowTimeoutMs,
+                          final long idleTimeoutMs, final long maxLifetimeMs, final long leakThresholdMs) {
+        this(source, maxSize, borrowTimeoutMs, idleTimeoutMs, maxLifetimeMs, leakThresholdMs, 0);
+    }
+
+    /**
+     * Crée un nouveau ConnectionPool.
+     *
+     * @param source                Source des connexions physiques à la base de données.
+     * @param maxSize               Nombre maximum de connexions ouvertes en même temps.
+     * @param borrowTimeoutMs       Temps maximum d'attente pour obtenir une connexion (en millisecondes).
+     * @param idleTimeoutMs         Temps après lequel une connexion inactive est fermée (en millisecondes).
+     * @param maxLifetimeMs         Durée de vie maximale d'une connexion physique (en millisecondes).
+     * @param leakThresholdMs       Temps après lequel une connexion non rendue est signalée comme fuite (en millisecondes).
+     * @param statementCacheSize    Nombre maximum de requêtes préparées gardées par connexion, 0 pour n'en garder aucune.
+     */
+    public ConnectionPool(final ConnectionSource source, final int maxSize, final long borrowTimeoutMs,
+                          final long idleTimeoutMs, final long maxLifetimeMs, final long leakThresholdMs,
+                          final int statementCacheSize) {
+        if(maxSize < 1) {
+            throw new IllegalArgumentException("Le pool doit pouvoir contenir au moins une connexion.");
+        }
+        if(statementCacheSize < 0) {
+            throw new IllegalArgumentException("Le nombre de requêtes préparées gardées ne peut pas être négatif.");
+        }
+        this.statementCacheSize = statementCacheSize;
+        this.source = source;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            final var thread = new Thread(r, "gbeditor-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long period = Math.max(MIN_HOUSEKEEPING_PERIOD_MS, Math.min(idleTimeoutMs, leakThresholdMs) / 2);
+        housekeeper.scheduleAtFixedRate(this::evictExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion au pool.
+     * Une connexion inactive est réutilisée si elle est toujours valide, sinon une nouvelle connexion est ouverte.
+     *
+     * @return  Une connexion valide qui retournera dans le pool lors de sa fermeture.
+     *
+     * @throws UnableToConnectException Si aucune connexion n'a pu être obtenue dans le temps imparti ou si la connexion a échoué.
+     */
+    public Connection borrow() {
+        if(closed) {
+            throw new UnableToConnectException("Le pool de connexions est fermé.", new SQLException("Pool closed"));
+        }
+        acquirePermit();
+        try {
+            final var entry = nextValidEntry();
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowTrace = new Throwable("Connexion empruntée ici");
+            entry.leakReported = false;
+            borrowed.add(entry);
+            return entry.newHandle(this);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            if(!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new UnableToConnectException("Aucune connexion n'est disponible pour le moment.",
+                        new SQLTimeoutException("Timeout after " + borrowTimeoutMs + "ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnableToConnectException("L'attente d'une connexion a été interrompue.", e);
+        }
+    }
+
+    private PooledEntry nextValidEntry() {
+        PooledEntry entry;
+        while((entry = pollIdle()) != null) {
+            if(!isExpired(entry, System.currentTimeMillis()) && isValid(entry)) {
+                return entry;
+            }
+            closeQuietly(entry);
+        }
+        try {
+            return new PooledEntry(source.open(), statementCacheSize);
+        } catch (SQLException e) {
+            throw new UnableToConnectException("La connection avec la ressource n'a pas pu se faire.", e);
+        }
+    }
+
+    private synchronized PooledEntry pollIdle() {
+        return idle.pollFirst();
+    }
+
+    private static boolean isValid(final PooledEntry entry) {
+        try {
+            return entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(final PooledEntry entry, final long now) {
+        return now - entry.createdAt > maxLifetimeMs;
+    }
+
+    /**
+     * Remet dans le pool une connexion qui vient d'être fermée par son emprunteur.
+     * La connexion est remise en mode auto-commit et toute transaction non terminée est annulée.
+     */
+    private void giveBack(final PooledEntry entry) {
+        borrowed.remove(entry);
+        if(entry.statements != null) {
+            entry.statements.releaseAll();
+        }
+        try {
+            if(closed || isExpired(entry, System.currentTimeMillis()) || !resetState(entry)) {
+                closeQuietly(entry);
+            } else {
+                entry.lastUsedAt = System.currentTimeMillis();
+                synchronized (this) {
+                    idle.addFirst(entry);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static boolean resetState(final PooledEntry entry) {
+        try {
+            if(entry.physical.isClosed()) {
+                return false;
+            }
+            if(!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ferme les connexions inactives depuis trop longtemps ou ayant dépassé leur durée de vie maximale,
+     * et signale les connexions empruntées depuis plus longtemps que le seuil de fuite.
+     * Cette méthode est appelée périodiquement par le pool.
+     */
+    public void evictExpired() {
+        final long now = System.currentTimeMillis();
+        synchronized (this) {
+            final var it = idle.iterator();
+            while(it.hasNext()) {
+                final var entry = it.next();
+                if(now - entry.lastUsedAt > idleTimeoutMs || isExpired(entry, now)) {
+                    it.remove();
+                    closeQuietly(entry);
+                }
+            }
+        }
+        for(final var entry : borrowed) {
+            if(!entry.leakReported && now - entry.borrowedAt > leakThresholdMs) {
+                entry.leakReported = true;
+                LOGGER.log(Level.WARNING, "Une connexion est empruntée depuis plus de " + leakThresholdMs
+                        + "ms sans avoir été rendue au pool.", entry.borrowTrace);
+            }
+        }
+    }
+
+    /**
+     * Récupère le nombre de connexions inactives disponibles dans le pool.
+     *
+     * @return  Le nombre de connexions inactives.
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Récupère le nombre de connexions actuellement empruntées.
+     *
+     * @return  Le nombre de connexions empruntées.
+     */
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Récupère le nombre de requêtes préparées réutilisées par les connexions ouvertes du pool.
+     *
+     * @return  Le nombre de requêtes préparées trouvées dans les caches des connexions.
+     */
+    public synchronized long getStatementCacheHits() {
+        var hits = 0L;
+        for(final var entry : idle) {
+            hits += statementCacheHitsOf(entry);
+        }
+        for(final var entry : borrowed) {
+            hits += statementCacheHitsOf(entry);
+        }
+        return hits;
+    }
+
+    private static long statementCacheHitsOf(final PooledEntry entry) {
+        return entry.statements == null ? 0 : entry.statements.getHits();
+    }
+
+    /**
+     * Ferme le pool ainsi que toutes ses connexions inactives.
+     * Les connexions encore empruntées seront fermées lorsqu'elles seront rendues.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            idle.forEach(ConnectionPool::closeQuietly);
+            idle.clear();
+        }
+    }
+
+    private static void closeQuietly(final PooledEntry entry) {
+        if(entry.statements != null) {
+            entry.statements.clear();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+    /**
+     * Représente une connexion physique gérée par le pool.
+     */
+    private static class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statements;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsedAt = createdAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+
+        private PooledEntry(final Connection physical, final int statementCacheSize) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+        }
+
+        private Connection newHandle(final ConnectionPool pool) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(pool, this));
+        }
+    }
+
+    /**
+     * Intercepte les appels faits sur une connexion prêtée afin que sa fermeture la rende au pool
+     * au lieu de fermer la connexion physique, et que ses requêtes préparées passent par le cache de la connexion.
+     */
+    private static class Handle implements InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledEntry entry;
+        private boolean released;
+
+        private Handle(final ConnectionPool pool, final PooledEntry entry) {
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if(!released) {
+                        released = true;
+                        pool.giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                case "prepareStatement":
+                    if(!released && entry.statements != null && isCacheable(method)) {
+                        return entry.statements.prepare(entry.physical, (String) args[0], args.length == 2 ? (Integer) args[1] : null);
+                    }
+                    return forward(method, args);
+                default:
+                    return forward(method, args);
+            }
+        }
+
+        /**
+         * Détermine si une requête est préparée avec seulement son texte SQL et, éventuellement, le mode de récupération des clés générées.
+         */
+        private static boolean isCacheable(final Method method) {
+            final var types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        private Object forward(final Method method, final Object[] args) throws Throwable {
+            if(released) {
+                throw new SQLException("La connexion a déjà été rendue au pool.");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Définit la manière d'ouvrir une nouvelle connexion physique à la base de données.
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+
+        /**
+         * Ouvre une nouvelle connexion physique.
+         *
+         * @return  Une nouvelle connexion à la base de données.
+         *
+         * @throws SQLException Si la connexion n'a pas pu se faire.
+         */
+        Connection open() throws SQLException;
+    }
+}
@@ -7,16 +7,36 @@ public class DBConfig {
 
     public static final String DRIVER = "com.mysql.cj.jdbc.Driver";
 
+    // Requêtes préparées côté serveur, dont le connecteur MySQL garde les 250 dernières par connexion,
+    // lots d'insertions réécrits en insertions de plusieurs lignes et curseurs côté serveur pour les requêtes
+    // ayant une taille de lecture (sans eux, le connecteur charge tout le résultat en mémoire)
+    public static final String MYSQL_STATEMENT_OPTIONS = "useServerPrepStmts=true&cachePrepStmts=true" +
+            "&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048&rewriteBatchedStatements=true&useCursorFetch=true";
+
     // Accès BD distante
-    public static final String DB_URL = "jdbc:mysql://192.168.128.13:3306/in20b1001";
+    public static final String DB_URL = "jdbc:mysql://192.168.128.13:3306/in20b1001?" + MYSQL_STATEMENT_OPTIONS;
     public final static String DB_USER = "in20b1001";
     public final static String DB_PASSWORD = "4918";
 
     // Accès à la DB local
     public final static String LOCAL_DB_URL = "jdbc:mysql://localhost:3306/gbreader?useUnicode=true & " +
             "useJDBCCompliantTimezoneShift=true&useLegacyDatetimeCode=false & " +
-            "serverTimezone=UTC&useSSL=false";
+            "serverTimezone=UTC&useSSL=false&" + MYSQL_STATEMENT_OPTIONS;
     public final static String LOCAL_DB_USER = "u823384744_cyril";
     public final static String LOCAL_DB_PASSWORD = "Ca5wsd0e@";
 
+    // Configuration du pool de connexions
+    public final static int POOL_MAX_SIZE = 8;
+    public final static long POOL_BORROW_TIMEOUT_MS = 30_000;
+    public final static long POOL_IDLE_TIMEOUT_MS = 10 * 60_000;
+    public final static long POOL_MAX_LIFETIME_MS = 30 * 60_000;
+    public final static long POOL_LEAK_THRESHOLD_MS = 60_000;
+    public final static int POOL_STATEMENT_CACHE_SIZE = 64;
+
+    // Nombre de livres écrits par transaction lors d'un import en masse
+    public final static int IMPORT_CHUNK_SIZE = 500;
+
+    // Nombre de lignes lues à la fois par les curseurs d'un export complet
+    public final static int EXPORT_FETCH_SIZE = 500;
+
 }
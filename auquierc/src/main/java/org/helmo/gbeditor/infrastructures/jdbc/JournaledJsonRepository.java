@@ -0,0 +1,728 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.infrastructures.Mapping;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.helmo.gbeditor.infrastructures.jdbc.BookChanges.ChoiceChange;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
+import org.helmo.gbeditor.repositories.BookSummary;
+import org.helmo.gbeditor.repositories.BooksPage;
+import org.helmo.gbeditor.repositories.DataRepository;
+import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.getNumPageByContent;
+import static org.helmo.gbeditor.infrastructures.jdbc.PageBDRepository.resolveTarget;
+
+/**
+ * Cette classe permet de stocker les livres dans un fichier JSON en journalisant les modifications.
+ * <ul>
+ *     <li>Chaque modification est ajoutée, sous forme d'un petit enregistrement, à la fin d'un fichier journal.
+ *     Un livre ajouté est écrit en entier mais la sauvegarde d'un livre existant n'écrit que ses informations,
+ *     ainsi que les pages et les choix qui ont changé</li>
+ *     <li>Au démarrage, le fichier JSON est lu puis le journal est rejoué</li>
+ *     <li>Lorsque le journal devient trop long, il est compacté en arrière-plan : le fichier JSON est réécrit
+ *     dans un fichier temporaire qui remplace ensuite l'ancien fichier de manière atomique</li>
+ * </ul>
+ * Chaque enregistrement du journal porte un numéro de séquence et le fichier JSON retient le numéro du dernier
+ * enregistrement qu'il contient : un enregistrement déjà présent dans le fichier JSON n'est jamais rejoué une seconde fois.
+ * Le fichier JSON peut aussi être lu par {@link JsonRepository}, qui accepte ce format en plus d'une simple liste de livres.
+ */
+public class JournaledJsonRepository implements DataRepository, AutoCloseable {
+    private static final String PUT = "PUT";
+    private static final String REMOVE = "REMOVE";
+    private static final String CHANGE = "CHANGE";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 100;
+    private static final Type BOOKS_TYPE = new TypeToken<List<BookDTO>>() {}.getType();
+
+    private final Gson gson = new Gson();
+    private final Path dir;
+    private final Path snapshotFile;
+    private final Path tempSnapshotFile;
+    private final Path journalFile;
+    private final Path compactingJournalFile;
+    private final int compactionThreshold;
+
+    private final TreeMap<String, BookDTO> data = new TreeMap<>();
+    private final Map<Book, String> persistedIsbn = new IdentityHashMap<>();
+    private final BookNumberCounter bookNumbers = new BookNumberCounter();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        final var thread = new Thread(r, "gbeditor-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object compactionLock = new Object();
+
+    private FileChannel journal;
+    private int journalRecords;
+    private long lastSeq;
+    private boolean compactionScheduled;
+    private DataManipulationException compactionFailure;
+    private String currentAuthor = "";
+
+    /**
+     * Crée un nouveau JournaledJsonRepository avec un dossier et un nom de fichier donnés.
+     *
+     * @param path      Chemin du dossier contenant le fichier JSON et son journal.
+     * @param fileName  Nom du fichier (sans le ".json").
+     */
+    public JournaledJsonRepository(final Path path, final String fileName) {
+        this(path, fileName, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Crée un nouveau JournaledJsonRepository avec un dossier, un nom de fichier et un seuil de compaction donnés.
+     *
+     * @param path                  Chemin du dossier contenant le fichier JSON et son journal.
+     * @param fileName              Nom du fichier (sans le ".json").
+     * @param compactionThreshold   Nombre d'enregistrements du journal à partir duquel il est compacté.
+     */
+    public JournaledJsonRepository(final Path path, final String fileName, final int compactionThreshold) {
+        this.dir = path;
+        this.snapshotFile = path.resolve(fileName + ".json");
+        this.tempSnapshotFile = path.resolve(fileName + ".json.tmp");
+        this.journalFile = path.resolve(fileName + ".journal");
+        this.compactingJournalFile = path.resolve(fileName + ".journal.compacting");
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    private synchronized void open() {
+        if(journal != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            readSnapshot();
+            replay(compactingJournalFile);
+            journalRecords = replay(journalFile);
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new DataManipulationException("L'acquisition du fichier a échoué: " + e.getMessage(), e);
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Lit le fichier JSON ainsi que le numéro du dernier enregistrement du journal qu'il contient.
+     * Un fichier ne contenant qu'une liste de livres, tel que ceux écrits par {@link JsonRepository}, ne contient aucun enregistrement.
+     */
+    private void readSnapshot() throws IOException {
+        data.clear();
+        lastSeq = 0;
+        if(Files.notExists(snapshotFile)) {
+            return;
+        }
+        Metrics.incrementBy(Counter.BYTES_READ, snapshotFile);
+        try(Reader r = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            final var json = gson.fromJson(r, JsonElement.class);
+            if(json == null || json.isJsonNull()) {
+                return;
+            }
+            final var snapshot = json.isJsonArray() ? new Snapshot(0, gson.fromJson(json, BOOKS_TYPE)) : gson.fromJson(json, Snapshot.class);
+            lastSeq = snapshot.seq;
+            orEmpty(snapshot.books).forEach(dto -> data.put(dto.getIsbn(), dto));
+        } catch (JsonParseException e) {
+            throw new DataManipulationException("Le fichier " + snapshotFile + " n'est pas valide.", e);
+        }
+    }
+
+    /**
+     * Rejoue les enregistrements d'un journal donné.
+     * Les enregistrements dont le numéro de séquence est déjà contenu dans le fichier JSON sont ignorés.
+     * Seul un dernier enregistrement sans fin de ligne (écriture interrompue par un arrêt brutal) est ignoré et retiré du journal.
+     * Un enregistrement illisible suivi d'autres enregistrements signifie que le journal est corrompu : le journal est alors
+     * laissé intact afin de ne perdre aucun des enregistrements qui le suivent.
+     *
+     * @return  Le nombre d'enregistrements rejoués.
+     *
+     * @throws DataManipulationException Si un enregistrement complet du journal n'est pas valide, ne suit pas le précédent
+     *                                   ou ne s'applique pas à l'état du livre qu'il modifie.
+     */
+    private int replay(final Path file) throws IOException {
+        if(Files.notExists(file)) {
+            return 0;
+        }
+        final var content = Files.readAllBytes(file);
+        Metrics.increment(Counter.BYTES_READ, content.length);
+        int count = 0;
+        int start = 0;
+        int line = 1;
+        for(int i = 0; i < content.length; i++) {
+            if(content[i] == '\n') {
+                try {
+                    apply(new String(content, start, i - start, StandardCharsets.UTF_8));
+                } catch (JsonParseException e) {
+                    throw new DataManipulationException("Le journal " + file + " est corrompu à la ligne " + line + ".", e);
+                }
+                count++;
+                line++;
+                start = i + 1;
+            }
+        }
+        if(start < content.length) {
+            try(var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+                channel.force(true);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applique un enregistrement du journal à l'état en mémoire.
+     * Un journal peut être rejoué sur un fichier JSON qui contient déjà ses enregistrements (arrêt brutal entre l'écriture
+     * du fichier JSON et la suppression du journal compacté) : ces enregistrements sont reconnus à leur numéro de séquence
+     * et ne sont pas appliqués une seconde fois.
+     *
+     * @throws JsonParseException Si l'enregistrement n'est pas valide ou ne suit pas le dernier enregistrement appliqué.
+     */
+    private void apply(final String line) {
+        if(line.isBlank()) {
+            return;
+        }
+        final var rec = gson.fromJson(line, JournalRecord.class);
+        if(rec == null || rec.seq == null) {
+            throw new JsonParseException("Enregistrement inconnu : " + line);
+        }
+        if(rec.seq <= lastSeq) {
+            return;
+        }
+        if(rec.seq != lastSeq + 1) {
+            throw new JsonParseException("L'enregistrement " + rec.seq + " ne suit pas l'enregistrement " + lastSeq + ".");
+        }
+        if(PUT.equals(rec.op) && rec.book != null) {
+            data.put(rec.book.getIsbn(), rec.book);
+        } else if(REMOVE.equals(rec.op) && rec.isbn != null) {
+            data.remove(rec.isbn);
+        } else if(CHANGE.equals(rec.op) && rec.isbn != null && rec.book != null && rec.from != null) {
+            applyChange(rec);
+        } else {
+            throw new JsonParseException("Enregistrement inconnu : " + line);
+        }
+        lastSeq = rec.seq;
+    }
+
+    /**
+     * Applique les changements d'un livre, qui doit être dans l'état à partir duquel ils ont été calculés.
+     *
+     * @throws JsonParseException Si le livre n'existe pas ou n'est pas dans l'état attendu.
+     */
+    private void applyChange(final JournalRecord rec) {
+        final var previous = data.get(rec.isbn);
+        if(previous == null) {
+            throw new JsonParseException("Le livre " + rec.isbn + " modifié par l'enregistrement " + rec.seq + " n'existe pas.");
+        }
+        if(!fingerprint(previous).equals(rec.from)) {
+            throw new JsonParseException("Le livre " + rec.isbn + " n'est pas dans l'état modifié par l'enregistrement " + rec.seq + ".");
+        }
+        final var numByContent = getNumPageByContent(previous);
+        final Map<String, PageDTO> pages = new LinkedHashMap<>();
+        for(final var p : previous) {
+            pages.putIfAbsent(p.getContent(), new PageDTO(p.getContent(), choicesOf(p, numByContent), p.getNumPage()));
+        }
+        orEmpty(rec.deletedPages).forEach(pages::remove);
+        for(final var p : orEmpty(rec.movedPages)) {
+            final var page = pages.get(p.getContent());
+            if(page != null) {
+                page.numPage = p.getNumPage();
+            }
+        }
+        for(final var p : orEmpty(rec.insertedPages)) {
+            pages.put(p.getContent(), new PageDTO(p.getContent(), Map.of(), p.getNumPage()));
+        }
+        for(final var c : orEmpty(rec.deletedChoices)) {
+            final var page = pages.get(c.getSource());
+            if(page != null) {
+                page.getChoices().remove(c.getLabel());
+            }
+        }
+        for(final var c : concat(orEmpty(rec.updatedChoices), orEmpty(rec.insertedChoices))) {
+            final var page = pages.get(c.getSource());
+            if(page != null) {
+                page.getChoices().put(c.getLabel(), c.getTarget());
+            }
+        }
+        final List<PageDTO> ordered = new ArrayList<>(pages.values());
+        ordered.sort(Comparator.comparingInt(PageDTO::getNumPage));
+        final var meta = rec.book;
+        final var dto = new BookDTO(meta.title, meta.isbn, meta.author, meta.resume, meta.imgPath, meta.version, ordered);
+        dto.publishDate = meta.publishDate;
+        data.remove(rec.isbn);
+        data.put(dto.getIsbn(), dto);
+    }
+
+    /**
+     * Calcule une empreinte de l'état d'un livre.
+     * Les cibles des choix, qui peuvent être un numéro ou un contenu de page, sont toutes converties en contenu de page
+     * afin qu'un même état donne toujours la même empreinte.
+     */
+    private static String fingerprint(final BookDTO dto) {
+        final var numByContent = getNumPageByContent(dto);
+        final var state = new StringBuilder()
+                .append(dto.title).append('\0').append(dto.getIsbn()).append('\0').append(dto.author).append('\0')
+                .append(dto.resume).append('\0').append(dto.imgPath).append('\0').append(dto.publishDate);
+        final List<PageDTO> pages = new ArrayList<>(dto.getPages());
+        pages.sort(Comparator.comparingInt(PageDTO::getNumPage));
+        for(final var p : pages) {
+            state.append('\0').append(p.getNumPage()).append('\0').append(p.getContent());
+            choicesOf(p, numByContent).forEach((label, target) -> state.append('\0').append(label).append('\0').append(target));
+        }
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(state.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final var result = new StringBuilder(hash.length * 2);
+        for(final var b : hash) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    private static Map<String, String> choicesOf(final PageDTO page, final Map<String, Integer> numByContent) {
+        final Map<Integer, String> contentByNum = new HashMap<>();
+        numByContent.forEach((content, num) -> contentByNum.put(num, content));
+        final Map<String, String> result = new TreeMap<>();
+        page.getChoices().forEach((label, target) -> {
+            final var content = contentByNum.get(resolveTarget(target, numByContent));
+            result.put(label, content == null ? target : content);
+        });
+        return result;
+    }
+
+    private static <T> List<T> orEmpty(final List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    private static <T> List<T> concat(final List<T> first, final List<T> second) {
+        final List<T> result = new ArrayList<>(first);
+        result.addAll(second);
+        return result;
+    }
+
+    private void append(final JournalRecord rec) {
+        rec.seq = lastSeq + 1;
+        final var bytes = (gson.toJson(rec) + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            final var buffer = ByteBuffer.wrap(bytes);
+            while(buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            journalRecords++;
+            lastSeq = rec.seq;
+            Metrics.increment(Counter.BYTES_WRITTEN, bytes.length);
+        } catch (IOException e) {
+            throw new DataManipulationException("Une erreur est survenue lors de l'écriture du journal.", e);
+        }
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if(journalRecords >= compactionThreshold && !compactionScheduled) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        compactionScheduled = true;
+        compactor.execute(this::compactInBackground);
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (DataManipulationException e) {
+            synchronized (this) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Signale l'échec de la dernière compaction faite en arrière-plan et la relance.
+     *
+     * @throws DataManipulationException Si la dernière compaction a échoué.
+     */
+    private void reportCompactionFailure() {
+        if(compactionFailure == null) {
+            return;
+        }
+        final var failure = compactionFailure;
+        compactionFailure = null;
+        if(!compactionScheduled) {
+            scheduleCompaction();
+        }
+        throw new DataManipulationException("La compaction du journal a échoué, elle va être relancée.", failure);
+    }
+
+    /**
+     * Compacte le journal : réécrit le fichier JSON avec l'état actuel des livres puis vide le journal.
+     * Le fichier JSON est d'abord écrit dans un fichier temporaire qui remplace ensuite l'ancien de manière atomique.
+     * L'échec d'une compaction faite en arrière-plan est signalé par l'écriture suivante, qui relance la compaction.
+     *
+     * @throws DataManipulationException Si le journal n'a pas pu être compacté.
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            final List<BookDTO> state;
+            final long seq;
+            synchronized (this) {
+                compactionScheduled = false;
+                if(journal == null) {
+                    return;
+                }
+                state = new ArrayList<>(data.values());
+                seq = lastSeq;
+                rotateJournal();
+            }
+            try {
+                Collections.sort(state);
+                try(Writer w = Files.newBufferedWriter(tempSnapshotFile, StandardCharsets.UTF_8)) {
+                    gson.toJson(new Snapshot(seq, state), w);
+                }
+                try(var channel = FileChannel.open(tempSnapshotFile, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Metrics.incrementBy(Counter.BYTES_WRITTEN, tempSnapshotFile);
+                moveAtomically(tempSnapshotFile, snapshotFile);
+                Files.deleteIfExists(compactingJournalFile);
+            } catch (IOException e) {
+                throw new DataManipulationException("Une erreur est survenue lors de la compaction du journal.", e);
+            }
+        }
+    }
+
+    /**
+     * Met le journal courant de côté et en ouvre un nouveau.
+     * Les enregistrements du journal mis de côté sont tous présents dans l'état en mémoire qui va être écrit.
+     */
+    private void rotateJournal() {
+        try {
+            journal.close();
+            if(Files.exists(compactingJournalFile)) {
+                Files.write(compactingJournalFile, Files.readAllBytes(journalFile), StandardOpenOption.APPEND);
+                Files.delete(journalFile);
+            } else {
+                Files.move(journalFile, compactingJournalFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            journalRecords = 0;
+        } catch (IOException e) {
+            reopenJournal();
+            throw new DataManipulationException("Une erreur est survenue lors de la rotation du journal.", e);
+        }
+    }
+
+    /**
+     * Rouvre le journal après une rotation interrompue afin que les écritures suivantes puissent continuer.
+     */
+    private void reopenJournal() {
+        if(journal.isOpen()) {
+            return;
+        }
+        try {
+            journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new DataManipulationException("Le journal n'a pas pu être rouvert.", e);
+        }
+    }
+
+    private static void moveAtomically(final Path from, final Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public synchronized List<BookDTO> getData() {
+        open();
+        final var result = new ArrayList<>(data.values());
+        Collections.sort(result);
+        return result;
+    }
+
+    @Override
+    public void setCurrentAuthor(final String author) {
+        this.currentAuthor = author;
+    }
+
+    @Override
+    public synchronized void add(final Book... books) {
+        open();
+        reportCompactionFailure();
+        for(final var b : books) {
+            if(data.containsKey(Mapping.convertISBNToDTO(b.get(BookFieldName.ISBN)))) {
+                throw new BookAlreadyExistsException("The books already exists.");
+            }
+        }
+        for(final var b : books) {
+            put(b);
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    @Override
+    public synchronized void save(final Book book) {
+        open();
+        reportCompactionFailure();
+        var storedIsbn = persistedIsbn.get(book);
+        if(storedIsbn == null || !data.containsKey(storedIsbn)) {
+            storedIsbn = Mapping.convertISBNToDTO(book.get(BookFieldName.ISBN));
+        }
+        final var previous = data.get(storedIsbn);
+        if(previous == null) {
+            put(book);
+        } else {
+            final var dto = Mapping.convertToBookDTO(book);
+            append(JournalRecord.change(storedIsbn, previous, dto));
+            data.remove(storedIsbn);
+            store(book, dto);
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    private void put(final Book book) {
+        final var dto = Mapping.convertToBookDTO(book);
+        append(JournalRecord.put(dto));
+        store(book, dto);
+    }
+
+    private void store(final Book book, final BookDTO dto) {
+        data.put(dto.getIsbn(), dto);
+        bookNumbers.record(dto.getIsbn());
+        persistedIsbn.put(book, dto.getIsbn());
+    }
+
+    private boolean removeIsbn(final String isbn) {
+        if(!data.containsKey(isbn)) {
+            return false;
+        }
+        append(JournalRecord.remove(isbn));
+        data.remove(isbn);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(final String... books) {
+        open();
+        reportCompactionFailure();
+        boolean removed = false;
+        for(final var isbn : books) {
+            removed |= removeIsbn(Mapping.convertISBNToDTO(isbn));
+        }
+        persistedIsbn.values().removeIf(isbn -> !data.containsKey(isbn));
+        scheduleCompactionIfNeeded();
+        return removed;
+    }
+
+    @Override
+    public synchronized List<Book> getBooks() {
+        open();
+        final List<Book> result = new ArrayList<>();
+        for(final var dto : getData()) {
+            if(dto.getAuthor() != null && dto.getAuthor().equalsIgnoreCase(currentAuthor)) {
+                result.add(track(Mapping.convertToBook(dto), dto));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Récupère une page de livres en parcourant les livres triés par ISBN à partir de l'ISBN donné comme curseur.
+     */
+    @Override
+    public synchronized BooksPage getBooksPage(final String cursor, final int limit) {
+        open();
+        final var candidates = cursor == null ? data.values() : data.tailMap(cursor, false).values();
+        final List<BookSummary> result = new ArrayList<>();
+        String last = null;
+        for(final var dto : candidates) {
+            if(dto.getAuthor() == null || !dto.getAuthor().equalsIgnoreCase(currentAuthor)) {
+                continue;
+            }
+            if(result.size() == limit) {
+                return new BooksPage(result, last);
+            }
+            result.add(Mapping.convertToSummary(dto));
+            last = dto.getIsbn();
+        }
+        return new BooksPage(result, null);
+    }
+
+    private Book track(final Book book, final BookDTO dto) {
+        persistedIsbn.put(book, dto.getIsbn());
+        return book;
+    }
+
+    @Override
+    public void loadBooks() {
+        open();
+    }
+
+    @Override
+    public synchronized String getLastIsbn() {
+        open();
+        return data.isEmpty() ? "0000000000" : data.lastKey();
+    }
+
+    @Override
+    public synchronized int getLastBookNumber(final String matricule) {
+        return bookNumbers.last(matricule, this::lastNumberInData);
+    }
+
+    @Override
+    public synchronized int allocateBookNumber(final String matricule) {
+        return bookNumbers.allocate(matricule, this::lastNumberInData);
+    }
+
+    private int lastNumberInData(final String matricule) {
+        open();
+        return BookNumberCounter.lastNumberAmong(data.navigableKeySet(), matricule);
+    }
+
+    @Override
+    public synchronized Book searchBookFor(final String isbn) {
+        open();
+        final var dto = data.get(Mapping.convertISBNToDTO(isbn));
+        return dto == null ? null : track(Mapping.convertToBook(dto), dto);
+    }
+
+    /**
+     * Compacte le journal puis libère les ressources utilisées par le repository.
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compact();
+        synchronized (this) {
+            try {
+                if(journal != null) {
+                    journal.close();
+                    journal = null;
+                }
+            } catch (IOException e) {
+                throw new DataManipulationException("Une erreur est survenue lors de la fermeture du journal.", e);
+            }
+        }
+    }
+
+    /**
+     * Représente le contenu du fichier JSON : les livres et le numéro du dernier enregistrement du journal qu'ils contiennent.
+     */
+    private static class Snapshot {
+        @SerializedName("seq")
+        private long seq;
+        @SerializedName("books")
+        private List<BookDTO> books;
+
+        private Snapshot(final long seq, final List<BookDTO> books) {
+            this.seq = seq;
+            this.books = books;
+        }
+    }
+
+    /**
+     * Représente un enregistrement du journal, numéroté à la suite du précédent.
+     * Un enregistrement de changement ne contient que les informations du livre ainsi que les pages et les choix
+     * qui ont changé, avec l'empreinte de l'état du livre auquel ils s'appliquent.
+     */
+    private static class JournalRecord {
+        @SerializedName("seq")
+        private Long seq;
+        @SerializedName("op")
+        private String op;
+        @SerializedName("book")
+        private BookDTO book;
+        @SerializedName("isbn")
+        private String isbn;
+        @SerializedName("from")
+        private String from;
+        @SerializedName("insertedPages")
+        private List<PageDTO> insertedPages;
+        @SerializedName("movedPages")
+        private List<PageDTO> movedPages;
+        @SerializedName("deletedPages")
+        private List<String> deletedPages;
+        @SerializedName("insertedChoices")
+        private List<ChoiceChange> insertedChoices;
+        @SerializedName("updatedChoices")
+        private List<ChoiceChange> updatedChoices;
+        @SerializedName("deletedChoices")
+        private List<ChoiceChange> deletedChoices;
+
+        private static JournalRecord put(final BookDTO book) {
+            final var result = new JournalRecord();
+            result.op = PUT;
+            result.book = book;
+            return result;
+        }
+
+        private static JournalRecord change(final String isbn, final BookDTO previous, final BookDTO current) {
+            final var changes = BookChanges.between(previous, current);
+            final var result = new JournalRecord();
+            result.op = CHANGE;
+            result.isbn = isbn;
+            result.from = fingerprint(previous);
+            result.book = new BookDTO(current.title, current.isbn, current.author, current.resume, current.imgPath, current.version);
+            result.book.publishDate = current.publishDate;
+            result.book.pages = null;
+            result.insertedPages = nullIfEmpty(withoutChoices(changes.getInsertedPages()));
+            result.movedPages = nullIfEmpty(withoutChoices(changes.getMovedPages()));
+            result.deletedPages = nullIfEmpty(changes.getDeletedPages());
+            result.insertedChoices = nullIfEmpty(changes.getInsertedChoices());
+            result.updatedChoices = nullIfEmpty(changes.getUpdatedChoices());
+            result.deletedChoices = nullIfEmpty(changes.getDeletedChoices());
+            return result;
+        }
+
+        private static List<PageDTO> withoutChoices(final List<PageDTO> pages) {
+            final List<PageDTO> result = new ArrayList<>(pages.size());
+            for(final var p : pages) {
+                result.add(new PageDTO(p.getContent(), Map.of(), p.getNumPage()));
+            }
+            return result;
+        }
+
+        private static <T> List<T> nullIfEmpty(final List<T> list) {
+            return list.isEmpty() ? null : new ArrayList<>(list);
+        }
+
+        private static JournalRecord remove(final String isbn) {
+            final var result = new JournalRecord();
+            result.op = REMOVE;
+            result.isbn = isbn;
+            return result;
+        }
+    }
+}
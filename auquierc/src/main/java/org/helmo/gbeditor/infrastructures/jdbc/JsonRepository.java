@@ -1,13 +1,19 @@
 package org.helmo.gbeditor.infrastructures.jdbc;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.BookFieldName;
 import org.helmo.gbeditor.infrastructures.Mapping;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
 import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.helmo.gbeditor.repositories.BookSummary;
+import org.helmo.gbeditor.repositories.BooksPage;
 import org.helmo.gbeditor.repositories.DataRepository;
 import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 
@@ -27,10 +33,15 @@ import java.util.*;
  * </ul>
  */
 public class JsonRepository implements DataRepository {
+    private static final String BOOKS = "books";
+
     private final Path path;
     private final String file;
     private final List<Book> books = new ArrayList<>();
     private final SortedSet<String> existingISBN = new TreeSet<>();
+    private final List<BookSummary> summaries = new ArrayList<>();
+    private final BookDTOReader reader = new BookDTOReader();
+    private final BookNumberCounter bookNumbers = new BookNumberCounter();
     private String currentAuthor = "";
 
     /**
@@ -51,25 +62,74 @@ public class JsonRepository implements DataRepository {
     @Override
     public List<Book> getBooks() {
         loadBooks();
-        final List<Book> result = new ArrayList<>();
-        books.forEach(b -> {
-            if(b.get(BookFieldName.AUTHOR).equalsIgnoreCase(currentAuthor)) {
-                result.add(b);
-            }
-        });
-        return result;
+        return new ArrayList<>(books);
     }
 
+    /**
+     * Charge uniquement les livres de l'auteur courant.
+     * Les livres des autres auteurs sont parcourus sans être construits, seul leur ISBN est retenu.
+     */
     @Override
     public void loadBooks() {
         books.clear();
-        getData().forEach(dto -> {
-            books.add(Mapping.convertToBook(dto));
-            existingISBN.add(dto.getIsbn());
-        });
+        readBooks((author, isbn) -> author != null && author.equalsIgnoreCase(currentAuthor), Integer.MAX_VALUE)
+                .forEach(dto -> books.add(Mapping.convertToBook(dto)));
+    }
+
+    /**
+     * Récupère une page de livres en parcourant l'index des résumés des livres de l'auteur courant.
+     * Cet index est reconstruit lors de la demande de la première page, sans lire les pages des livres.
+     * Le curseur est la position du premier livre de la page dans cet index.
+     */
+    @Override
+    public BooksPage getBooksPage(final String cursor, final int limit) {
+        if(cursor == null) {
+            loadSummaries();
+        }
+        final int from = Math.min(summaries.size(), cursor == null ? 0 : parseCursor(cursor));
+        final int to = Math.min(summaries.size(), from + limit);
+        return new BooksPage(summaries.subList(from, to), to < summaries.size() ? String.valueOf(to) : null);
+    }
+
+    private void loadSummaries() {
+        Path pathFile = Paths.get(path.toString(), file);
+        fileExists(path.toString(), pathFile);
+        try (BufferedReader r = Files.newBufferedReader(pathFile)) {
+            summaries.clear();
+            reader.readWithoutPages(r, (author, isbn) -> author != null && author.equalsIgnoreCase(currentAuthor),
+                    isbn -> existingISBN.add(isbn.replaceAll("-", "")))
+                    .forEach(dto -> summaries.add(Mapping.convertToSummary(dto)));
+        } catch (IOException | JsonParseException e) {
+            throw new DataManipulationException(e);
+        }
+        Metrics.incrementBy(Counter.BYTES_READ, pathFile);
+    }
+
+    private static int parseCursor(final String cursor) {
+        try {
+            return Math.max(0, Integer.parseInt(cursor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Le curseur " + cursor + " n'est pas valide.", e);
+        }
+    }
+
+    private List<BookDTO> readBooks(final BookDTOReader.BookFilter filter, final int limit) {
+        Path pathFile = Paths.get(path.toString(), file);
+        fileExists(path.toString(), pathFile);
+        try (BufferedReader r = Files.newBufferedReader(pathFile)) {
+            return reader.read(r, filter, limit, isbn -> existingISBN.add(isbn.replaceAll("-", "")));
+        } catch (IOException | JsonParseException e) {
+            throw new DataManipulationException(e);
+        } finally {
+            Metrics.incrementBy(Counter.BYTES_READ, pathFile);
+        }
     }
 
     /**
+     * Lit tous les livres du fichier.
+     * Le fichier peut contenir une liste de livres ou un objet dont le champ "books" contient cette liste,
+     * comme le fichier compacté par {@link JournaledJsonRepository}.
+     *
      * Paths.get(System.getProperty("user.home"), "ue36", path)
      * ==> Permet de récupérer le dossier home de l'utilisateur et de récupérer un fichier dans le dossier ue36
      *
@@ -79,8 +139,14 @@ public class JsonRepository implements DataRepository {
     public List<BookDTO> getData() {
         Path pathFile = Paths.get(path.toString(), file);
         fileExists(path.toString(), pathFile);
+        Metrics.incrementBy(Counter.BYTES_READ, pathFile);
         try (BufferedReader r = Files.newBufferedReader(pathFile)) {
-            List<BookDTO> temp = new Gson().fromJson(r, new TypeToken<List<BookDTO>>() {}.getType());
+            final var gson = new Gson();
+            var json = gson.fromJson(r, JsonElement.class);
+            if(json != null && json.isJsonObject()) {
+                json = json.getAsJsonObject().get(BOOKS);
+            }
+            List<BookDTO> temp = json == null ? null : gson.fromJson(json, new TypeToken<List<BookDTO>>() {}.getType());
             if(temp == null) {
                 return new ArrayList<>();
             }  else {
@@ -126,6 +192,7 @@ public class JsonRepository implements DataRepository {
             }
             existingBooks.add(newB);
             existingISBN.add(newB.getIsbn());
+            bookNumbers.record(newB.getIsbn());
         });
         Collections.sort(existingBooks);
         try(Writer w = Files.newBufferedWriter(pathFile, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING)) {
@@ -135,6 +202,7 @@ public class JsonRepository implements DataRepository {
             this.books.removeAll(List.of(books));
             throw new DataManipulationException("Une erreur est survenue lors de la sauvegardes des livres.", e);
         }
+        Metrics.incrementBy(Counter.BYTES_WRITTEN, pathFile);
     }
 
     // TODO Mettre les mêmes messages dans les throw des implémentation de DataRepository
@@ -152,6 +220,7 @@ public class JsonRepository implements DataRepository {
             books.remove(book);
             throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde de la modification du livres.", e);
         }
+        Metrics.incrementBy(Counter.BYTES_WRITTEN, pathFile);
     }
 
     private void addDtoInBooks(final Book book, List<BookDTO> existingBooks) {
@@ -169,6 +238,28 @@ public class JsonRepository implements DataRepository {
         return existingISBN.isEmpty() ? "0000000000" : existingISBN.last();
     }
 
+    @Override
+    public int getLastBookNumber(final String matricule) {
+        return bookNumbers.last(matricule, this::lastNumberInFile);
+    }
+
+    @Override
+    public int allocateBookNumber(final String matricule) {
+        return bookNumbers.allocate(matricule, this::lastNumberInFile);
+    }
+
+    /**
+     * Parcourt le fichier sans construire aucun livre afin de connaître tous les ISBN existants.
+     */
+    private int lastNumberInFile(final String matricule) {
+        readBooks((author, isbn) -> false, Integer.MAX_VALUE);
+        return BookNumberCounter.lastNumberAmong(existingISBN, matricule);
+    }
+
+    /**
+     * Recherche un livre parmi les livres chargés puis, s'il n'y est pas, dans le fichier.
+     * La lecture du fichier s'arrête dès que le livre est trouvé.
+     */
     @Override
     public Book searchBookFor(String isbn) {
         for(final var b : books) {
@@ -176,7 +267,9 @@ public class JsonRepository implements DataRepository {
                 return b;
             }
         }
-        return null;
+        final var wanted = Mapping.convertISBNToDTO(isbn);
+        final var found = readBooks((author, bookIsbn) -> bookIsbn != null && bookIsbn.replaceAll("-", "").equalsIgnoreCase(wanted), 1);
+        return found.isEmpty() ? null : Mapping.convertToBook(found.get(0));
     }
 
     @Override
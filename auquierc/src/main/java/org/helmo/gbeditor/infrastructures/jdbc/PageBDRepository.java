@@ -2,66 +2,379 @@ package org.helmo.gbeditor.infrastructures.jdbc;
 
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
 import org.helmo.gbeditor.infrastructures.dto.PageDTO;
-import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import static org.helmo.gbeditor.infrastructures.jdbc.SQLInstructions.*;
 
 /**
  * S'occupe de certaines des opérations en base se données liées aux pages d'un livre
+ * Les requêtes sont exécutées par les méthodes {@link #executeQuery(PreparedStatement)}, {@link #executeUpdate(PreparedStatement)}
+ * et {@link #executeBatch(PreparedStatement)} qui les comptent, ainsi que les lignes lues et écrites (voir {@link Metrics}).
  */
 public class PageBDRepository {
 
     /**
-     * Ajoute les pages d'un livre à un PreparedStatement.
+     * Exécute une requête de lecture et la compte.
+     * Les lignes lues doivent être comptées avec {@link #countRowsRead(int)}.
+     *
+     * @param stmt  Requête à exécuter.
+     *
+     * @return      Le résultat de la requête.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite.
+     */
+    protected static ResultSet executeQuery(final PreparedStatement stmt) throws SQLException {
+        Metrics.increment(Counter.STATEMENTS, 1);
+        return stmt.executeQuery();
+    }
+
+    /**
+     * Exécute une requête de modification et la compte, ainsi que les lignes modifiées.
+     *
+     * @param stmt  Requête à exécuter.
+     *
+     * @return      Le nombre de lignes modifiées.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite.
+     */
+    protected static int executeUpdate(final PreparedStatement stmt) throws SQLException {
+        final var rows = stmt.executeUpdate();
+        Metrics.increment(Counter.STATEMENTS, 1);
+        Metrics.increment(Counter.ROWS_WRITTEN, rows);
+        return rows;
+    }
+
+    /**
+     * Exécute un lot de requêtes de modification, le compte comme une seule requête et compte les lignes modifiées.
+     * Une requête du lot dont le nombre de lignes modifiées n'est pas connu compte pour une ligne.
+     *
+     * @param stmt  Lot de requêtes à exécuter.
+     *
+     * @return      Le nombre de lignes modifiées par chaque requête du lot.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite.
+     */
+    protected static int[] executeBatch(final PreparedStatement stmt) throws SQLException {
+        final var counts = stmt.executeBatch();
+        Metrics.increment(Counter.STATEMENTS, 1);
+        if(Metrics.isEnabled()) {
+            var rows = 0L;
+            for(final var c : counts) {
+                rows += c == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, c);
+            }
+            Metrics.increment(Counter.ROWS_WRITTEN, rows);
+        }
+        return counts;
+    }
+
+    /**
+     * Compte des lignes lues dans le résultat d'une requête.
+     *
+     * @param rows  Nombre de lignes lues.
+     */
+    protected static void countRowsRead(final int rows) {
+        Metrics.increment(Counter.ROWS_READ, rows);
+    }
+
+    /**
+     * Ajoute les pages d'un livre à un PreparedStatement et les insère en un seul lot.
+     * Le PreparedStatement doit avoir été préparé avec {@link Statement#RETURN_GENERATED_KEYS}.
      *
      * @param dto   Livre qui contient les pages qu'on souhaite ajouter
      * @param stmt  Contient la requête pour l'ajout des pages.
      *
+     * @return      Les identifiants en base de données des pages insérées, indexés par numéro de page.
+     *
      * @throws SQLException Si une erreur SQL s'est produite.
      */
-    protected static void addPageToStmt(final BookDTO dto, final PreparedStatement stmt) throws SQLException {
+    protected static Map<Integer, Integer> addPageToStmt(final BookDTO dto, final PreparedStatement stmt) throws SQLException {
+        final List<Integer> numPages = new ArrayList<>();
         for(final var p : dto) {
             addPageToStmt(p, dto.id, stmt);
+            numPages.add(p.getNumPage());
+        }
+        if(numPages.isEmpty() || dto.id == -1) {
+            return new HashMap<>();
+        }
+        executeBatch(stmt);
+        final var keys = getGeneratedKeys(stmt, numPages.size());
+        if(keys == null) {
+            return getPageIdsFor(stmt.getConnection(), dto.id);
+        }
+        final Map<Integer, Integer> result = new HashMap<>();
+        for(int i = 0; i < numPages.size(); i++) {
+            result.put(numPages.get(i), keys.get(i));
         }
-        stmt.executeBatch();
+        return result;
+    }
+
+    /**
+     * Lit les clefs générées par un lot d'insertions.
+     * Certains drivers (comme celui de Derby) ne retournent pas les clefs générées d'un lot : les identifiants doivent
+     * alors être relus, par exemple avec {@link #readPageIds(PreparedStatement)} pour des pages.
+     *
+     * @param stmt      PreparedStatement, préparé avec {@link Statement#RETURN_GENERATED_KEYS}, dont le lot a été exécuté.
+     * @param expected  Nombre d'insertions du lot.
+     *
+     * @return          Les clefs dans l'ordre des insertions ou null si elles ne sont pas toutes disponibles.
+     */
+    protected static List<Integer> getGeneratedKeys(final PreparedStatement stmt, final int expected) {
+        final List<Integer> result = new ArrayList<>(expected);
+        try(final var keys = stmt.getGeneratedKeys()) {
+            while(keys != null && result.size() < expected && keys.next()) {
+                result.add(keys.getInt(1));
+            }
+        } catch (SQLException ignored) {
+            return null;
+        }
+        return result.size() == expected ? result : null;
     }
 
     /**
-     * Ajoute les choix d'une page à une page en base de données.
+     * Lit les identifiants en base de données des pages retournées par un PreparedStatement donné.
+     * Le PreparedStatement doit retourner les colonnes id_book, num_page et id_page.
+     *
+     * @param stmt  PreparedStatement, déjà paramétré, qui retourne les pages.
+     *
+     * @return      Les identifiants des pages, indexés par identifiant de livre puis par numéro de page.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite.
+     */
+    protected static Map<Integer, Map<Integer, Integer>> readPageIds(final PreparedStatement stmt) throws SQLException {
+        final Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        var rows = 0;
+        try(final var rs = executeQuery(stmt)) {
+            while(rs.next()) {
+                result.computeIfAbsent(rs.getInt("id_book"), id -> new HashMap<>()).put(rs.getInt("num_page"), rs.getInt("id_page"));
+                rows++;
+            }
+        }
+        countRowsRead(rows);
+        return result;
+    }
+
+    /**
+     * Récupère, en une seule requête, les identifiants en base de données des pages d'un livre donné.
      *
      * @param connection    Connection à la base de données.
-     * @param dto           Itérable contenant les pages que l'on souhaite ajouter.
-     * @param id_book       identifiant du livre en base de donnée, auquel les pages appartiennent.
+     * @param id_book       identifiant du livre en base de donnée.
+     *
+     * @return              Les identifiants des pages du livre, indexés par numéro de page.
      *
      * @throws SQLException Si une erreur SQL s'est produite.
      */
-    protected static void addChoicesToPages(final Connection connection, final Iterable<PageDTO> dto, final int id_book) throws SQLException {
+    protected static Map<Integer, Integer> getPageIdsFor(final Connection connection, final int id_book) throws SQLException {
+        try(final var stmt = connection.prepareStatement(SELECT_PAGE_IDS_FROM_BOOK_STMT)) {
+            stmt.setInt(1, id_book);
+            return readPageIds(stmt).getOrDefault(id_book, new HashMap<>());
+        }
+    }
+
+    /**
+     * Ajoute, en un seul lot, les choix des pages d'un livre en base de données.
+     *
+     * @param connection    Connection à la base de données.
+     * @param dto           Livre contenant les pages dont on souhaite ajouter les choix.
+     * @param pageIds       Identifiants en base de données des pages du livre, indexés par numéro de page.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite ou si la cible d'un choix n'existe pas.
+     */
+    protected static void addChoicesToPages(final Connection connection, final BookDTO dto, final Map<Integer, Integer> pageIds) throws SQLException {
+        final var numByContent = getNumPageByContent(dto);
+        boolean hasChoices = false;
         try(final var stmt = connection.prepareStatement(INSERT_CHOICES_STMT)) {
             for(final var page : dto) {
-                page.getChoices().forEach((c, p) -> {
-                    try {
-                        stmt.setString(1, c);
-                        stmt.setInt(2, getIdPageFor(connection, page.getContent(), id_book));
-                        stmt.setInt(3, getIdPageFor(connection, p, id_book));
-                        stmt.addBatch();
-                    } catch (SQLException e) {
-                        throw new DataManipulationException("Une erreur est survenue lors de la sauvegarde des choix du livre.", e);
-                    }
-                });
-                stmt.executeBatch();
+                for(final var choice : page.getChoices().entrySet()) {
+                    stmt.setString(1, choice.getKey());
+                    stmt.setInt(2, getIdFor(pageIds, page.getNumPage()));
+                    stmt.setInt(3, getIdFor(pageIds, resolveTarget(choice.getValue(), numByContent)));
+                    stmt.addBatch();
+                    hasChoices = true;
+                }
+            }
+            if(hasChoices) {
+                executeBatch(stmt);
             }
         }
     }
 
+    /**
+     * Indexe les numéros des pages d'un livre par leur contenu.
+     *
+     * @param dto   Livre dont on veut indexer les pages.
+     *
+     * @return      Les numéros de page, indexés par contenu de page.
+     */
+    protected static Map<String, Integer> getNumPageByContent(final Iterable<PageDTO> dto) {
+        final Map<String, Integer> result = new HashMap<>();
+        for(final var p : dto) {
+            result.putIfAbsent(p.getContent(), p.getNumPage());
+        }
+        return result;
+    }
+
+    /**
+     * Détermine le numéro de la page ciblée par un choix.
+     * La cible d'un choix est soit le contenu de la page cible, soit son numéro de page.
+     *
+     * @param target        Cible du choix.
+     * @param numByContent  Numéros de page indexés par contenu de page.
+     *
+     * @return              Le numéro de la page cible ou -1 si aucune page ne correspond.
+     */
+    protected static int resolveTarget(final String target, final Map<String, Integer> numByContent) {
+        final var byContent = numByContent.get(target);
+        if(byContent != null) {
+            return byContent;
+        }
+        return isNumber(target) ? Integer.parseInt(target) : -1;
+    }
+
+    private static boolean isNumber(final String value) {
+        if(value == null || value.isEmpty() || value.length() > 9) {
+            return false;
+        }
+        for(int i = 0; i < value.length(); i++) {
+            if(!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getIdFor(final Map<Integer, Integer> pageIds, final int numPage) throws SQLException {
+        final var id = pageIds.get(numPage);
+        if(id == null) {
+            throw new SQLException("La page n°" + numPage + " n'existe pas en base de données.");
+        }
+        return id;
+    }
+
+    /**
+     * Applique en base de données les changements calculés entre l'état sauvegardé d'un livre et son état actuel.
+     * Seules les pages et les choix ajoutés, déplacés, modifiés ou supprimés sont écrits, chaque type de changement en un seul lot.
+     * Un choix modifié est supprimé avec les choix supprimés puis ajouté avec les choix ajoutés.
+     * Les pages sont supprimées en dernier : une page renommée est supprimée puis ajoutée, et la suppression d'une page
+     * supprime aussi les choix qui y mènent. Ceux-ci doivent donc déjà mener à la page ajoutée.
+     *
+     * @param connection    Connection à la base de données.
+     * @param id_book       identifiant du livre en base de donnée.
+     * @param changes       Changements à appliquer.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite ou si une page concernée par un changement n'existe pas.
+     */
+    protected static void applyChanges(final Connection connection, final int id_book, final BookChanges changes) throws SQLException {
+        if(changes.isEmpty()) {
+            return;
+        }
+        var ids = getPageIdsByContent(connection, id_book);
+        final var deleted = new HashSet<>(changes.getDeletedPages());
+        final List<BookChanges.ChoiceChange> toDelete = new ArrayList<>(changes.getDeletedChoices());
+        toDelete.addAll(changes.getUpdatedChoices());
+        try(final var stmt = connection.prepareStatement(DELETE_CHOICE_STMT)) {
+            var any = false;
+            for(final var c : toDelete) {
+                if(!deleted.contains(c.getSource())) {
+                    stmt.setInt(1, getIdFor(ids, c.getSource()));
+                    stmt.setString(2, c.getLabel());
+                    stmt.addBatch();
+                    any = true;
+                }
+            }
+            executeBatchIfAny(stmt, any);
+        }
+        if(!changes.getInsertedPages().isEmpty()) {
+            try(final var stmt = connection.prepareStatement(INSERT_PAGE_STMT)) {
+                for(final var p : changes.getInsertedPages()) {
+                    addPageToStmt(p, id_book, stmt);
+                }
+                executeBatch(stmt);
+            }
+            ids = getPageIdsByContent(connection, id_book);
+        }
+        try(final var stmt = connection.prepareStatement(UPDATE_PAGE_NUM_STMT)) {
+            for(final var p : changes.getMovedPages()) {
+                stmt.setInt(1, p.getNumPage());
+                stmt.setInt(2, getIdFor(ids, p.getContent()));
+                stmt.addBatch();
+            }
+            executeBatchIfAny(stmt, !changes.getMovedPages().isEmpty());
+        }
+        writeChoices(connection, ids, changes);
+        try(final var stmt = connection.prepareStatement(DELETE_PAGE_WITH_ID_STMT)) {
+            for(final var content : changes.getDeletedPages()) {
+                stmt.setInt(1, getIdFor(ids, content));
+                stmt.addBatch();
+            }
+            executeBatchIfAny(stmt, !deleted.isEmpty());
+        }
+    }
+
+    /**
+     * Ajoute les choix ajoutés ainsi que les choix modifiés, qui ont été supprimés avec les choix supprimés.
+     * Un choix modifié est donc réécrit même s'il n'existait plus en base de données, sans dépendre du nombre de lignes
+     * modifiées renvoyé par le pilote pour chaque requête d'un lot, qui peut être inconnu ({@link Statement#SUCCESS_NO_INFO}).
+     */
+    private static void writeChoices(final Connection connection, final Map<String, Integer> ids, final BookChanges changes) throws SQLException {
+        final List<BookChanges.ChoiceChange> toInsert = new ArrayList<>(changes.getInsertedChoices());
+        toInsert.addAll(changes.getUpdatedChoices());
+        try(final var stmt = connection.prepareStatement(INSERT_CHOICES_STMT)) {
+            for(final var c : toInsert) {
+                stmt.setString(1, c.getLabel());
+                stmt.setInt(2, getIdFor(ids, c.getSource()));
+                stmt.setInt(3, getIdFor(ids, c.getTarget()));
+                stmt.addBatch();
+            }
+            executeBatchIfAny(stmt, !toInsert.isEmpty());
+        }
+    }
+
+    private static void executeBatchIfAny(final PreparedStatement stmt, final boolean any) throws SQLException {
+        if(any) {
+            executeBatch(stmt);
+        }
+    }
+
+    /**
+     * Récupère, en une seule requête, les identifiants en base de données des pages d'un livre donné.
+     *
+     * @param connection    Connection à la base de données.
+     * @param id_book       identifiant du livre en base de donnée.
+     *
+     * @return              Les identifiants des pages du livre, indexés par contenu de page.
+     *
+     * @throws SQLException Si une erreur SQL s'est produite.
+     */
+    protected static Map<String, Integer> getPageIdsByContent(final Connection connection, final int id_book) throws SQLException {
+        final Map<String, Integer> result = new HashMap<>();
+        try(final var stmt = connection.prepareStatement(SELECT_PAGE_IDS_FROM_BOOK_STMT)) {
+            stmt.setInt(1, id_book);
+            try(final var rs = executeQuery(stmt)) {
+                while(rs.next()) {
+                    result.put(rs.getString("content"), rs.getInt("id_page"));
+                }
+            }
+            countRowsRead(result.size());
+        }
+        return result;
+    }
+
+    private static int getIdFor(final Map<String, Integer> ids, final String content) throws SQLException {
+        final var id = ids.get(content);
+        if(id == null) {
+            throw new SQLException("La page \"" + content + "\" n'existe pas en base de données.");
+        }
+        return id;
+    }
+
     /**
      * Ajoute une page donnée à un PreparedStatement donné.
      *
@@ -80,16 +393,6 @@ public class PageBDRepository {
         }
     }
 
-    private static int getIdPageFor(final Connection connection, final String content, final int id_book) {
-        try(PreparedStatement loadStmt = connection.prepareStatement(SELECT_PAGE_ID_STMT)) {
-            loadStmt.setString(1, content);
-            loadStmt.setInt(2, id_book);
-            return getFirstKey(loadStmt);
-        } catch (SQLException e) {
-            throw new DataManipulationException(e);
-        }
-    }
-
     /**
      * Récupère la première clef, entière, résultant de l'exécution d'un PreparedStatement donné.
      *
@@ -100,8 +403,9 @@ public class PageBDRepository {
      * @throws SQLException Si une erreur SQL s'est produite.
      */
     protected static int getFirstKey(PreparedStatement loadStmt) throws SQLException {
-        try(final var keys = loadStmt.executeQuery()) {
+        try(final var keys = executeQuery(loadStmt)) {
             if(keys.next() && !keys.wasNull()) {
+                countRowsRead(1);
                 return keys.getInt(1);
             }
             return -1;
@@ -109,7 +413,9 @@ public class PageBDRepository {
     }
 
     /**
-     * Récupère les pages provenant d'un PreparedStatement donné.
+     * Récupère les pages, ainsi que leurs choix, provenant d'un PreparedStatement donné.
+     * Le PreparedStatement doit retourner une ligne par choix (ou une seule ligne sans choix pour une page qui n'en a pas),
+     * triées par page. Les pages et leurs choix sont donc récupérés en une seule requête.
      *
      * @param stmt  PreparedStatement qui contient les pages à récupérée.
      *
@@ -119,37 +425,29 @@ public class PageBDRepository {
      */
     protected static List<PageDTO> getPageFromStmt(final PreparedStatement stmt) throws SQLException {
         final List<PageDTO> result = new ArrayList<>();
-        try(final var rs = stmt.executeQuery()) {
-            while (rs.next() && !rs.wasNull()) {
-                result.add(convertResultSetToDTO(rs));
+        var rows = 0;
+        try(final var rs = executeQuery(stmt)) {
+            PageDTO current = null;
+            int currentId = -1;
+            while (rs.next()) {
+                rows++;
+                final int idPage = rs.getInt("id_page");
+                if(current == null || idPage != currentId) {
+                    current = new PageDTO(rs.getString("content"), Map.of(), rs.getInt("num_page"));
+                    currentId = idPage;
+                    result.add(current);
+                }
+                addChoiceFrom(rs, current);
             }
         }
+        countRowsRead(rows);
         return result;
     }
 
-    private static PageDTO convertResultSetToDTO(final ResultSet rs) throws SQLException {
-        return new PageDTO(rs.getString("content"),
-                getChoicesFor(rs.getStatement().getConnection(),
-                        rs.getInt("id_page")
-                ),
-                rs.getInt("num_page")
-        );
-    }
-
-    private static Map<String, String> getChoicesFor(final Connection connection, final int id_page) throws SQLException {
-        try(PreparedStatement stmt = connection.prepareStatement(SELECT_CHOICES_FROM_PAGE_STMT)) {
-            stmt.setInt(1, id_page);
-            return getChoicesFrom(stmt);
-        }
-    }
-
-    private static Map<String, String> getChoicesFrom(final PreparedStatement stmt) throws SQLException {
-        try(final var rs = stmt.executeQuery()) {
-            final Map<String, String> result = new TreeMap<>();
-            while (rs.next() && !rs.wasNull()) {
-                result.put(rs.getString("content"), rs.getInt("targetP") + "");
-            }
-            return result;
+    private static void addChoiceFrom(final ResultSet rs, final PageDTO page) throws SQLException {
+        final var choice = rs.getString("choice");
+        if(choice != null) {
+            page.getChoices().put(choice, rs.getInt("targetP") + "");
         }
     }
 
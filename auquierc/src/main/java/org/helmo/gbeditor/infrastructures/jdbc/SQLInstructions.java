@@ -55,6 +55,10 @@ public class SQLInstructions {
 
     // TODO : Pas de modification de contenu de page
 
+    public static final String SELECT_PAGE_IDS_FROM_BOOK_STMT = "SELECT id_page, id_book, num_page, content " +
+            "FROM page " +
+            "WHERE id_book = ?";
+
     public static final String SELECT_PAGE_ID_FROM_NUM_STMT = "SELECT id_page " +
             "FROM page " +
             "WHERE num_page = ? AND id_book = ?";
@@ -83,6 +87,13 @@ public class SQLInstructions {
             "JOIN author a ON a.id_author = b.id_author " +
             "WHERE a.name = ?";
 
+    public static final String SELECT_BOOK_SUMMARIES_PAGE_STMT = "SELECT b.id_book, b.title, b.isbn, b.imgPath, " +
+            "a.name AS author, b.datePublication " +
+            "FROM book b " +
+            "JOIN author a ON a.id_author = b.id_author " +
+            "WHERE a.name = ? AND b.id_book > ? " +
+            "ORDER BY b.id_book";
+
     public static final String SELECT_BOOKS_WITH_ISBN_STMT = "SELECT b.id_book, b.title, b.resume, b.isbn, b.imgPath, " +
             "b.datePublication, " +
             "(SELECT a.name FROM author a WHERE a.id_author = b.id_author) AS author " +
@@ -109,19 +120,24 @@ public class SQLInstructions {
     public static final String DELETE_PAGE_FROM_BOOK_STMT = "DELETE FROM page " +
             "WHERE id_book = ?";
 
-    public static final String SELECT_PAGE_FROM_ISBN_STMT = "SELECT " +
-            "content, num_page, id_page " +
-            "FROM page " +
-            "WHERE id_book = (SELECT b.id_book FROM book b WHERE b.isbn = ?) " +
-            "ORDER BY num_page";
+    public static final String SELECT_PAGES_WITH_CHOICES_FROM_BOOK_STMT = "SELECT " +
+            "p.id_page, p.content, p.num_page, " +
+            "c.content AS choice, pTo.num_page AS targetP " +
+            "FROM page p " +
+            "LEFT JOIN choice c ON c.id_page = p.id_page " +
+            "LEFT JOIN page pTo ON pTo.id_page = c.id_target " +
+            "WHERE p.id_book = ? " +
+            "ORDER BY p.num_page, p.id_page";
 
-    public static final String SELECT_CHOICES_FROM_PAGE_STMT = "SELECT " +
-            "c.content, pTo.num_page AS targetP, " +
-            "pFrom.num_page AS pFrom " +
-            "FROM choice c " +
-            "JOIN page pTo ON pTo.id_page = c.id_target " +
-            "JOIN page pFrom ON pFrom.id_page = c.id_page " +
-            "WHERE c.id_page = ?";
+    public static final String DELETE_PAGE_WITH_ID_STMT = "DELETE FROM page " +
+            "WHERE id_page = ?";
+
+    public static final String UPDATE_PAGE_NUM_STMT = "UPDATE page SET " +
+            "num_page = ? " +
+            "WHERE id_page = ?";
+
+    public static final String DELETE_CHOICE_STMT = "DELETE FROM choice " +
+            "WHERE id_page = ? AND content = ?";
 
     public static final String INSERT_CHOICES_STMT = "INSERT INTO choice(content, id_page, id_target) " +
             "VALUES(?, ?, ?)";
@@ -131,4 +147,66 @@ public class SQLInstructions {
             "ORDER BY isbn DESC " +
             "LIMIT 1";
 
+    public static final String ISBN_COUNTER_TABLE = "isbn_counter";
+
+    public static final String CREATE_ISBN_COUNTER_STMT = "CREATE TABLE isbn_counter(" +
+            "matricule VARCHAR(10) NOT NULL PRIMARY KEY, " +
+            "last_number INT NOT NULL)";
+
+    public static final String DROP_ISBN_COUNTER_STMT = "DROP TABLE isbn_counter";
+
+    public static final String SELECT_ISBN_COUNTER_STMT = "SELECT last_number " +
+            "FROM isbn_counter " +
+            "WHERE matricule = ?";
+
+    public static final String INSERT_ISBN_COUNTER_STMT = "INSERT INTO isbn_counter(matricule, last_number) " +
+            "VALUES(?, ?)";
+
+    public static final String INCREMENT_ISBN_COUNTER_STMT = "UPDATE isbn_counter SET " +
+            "last_number = last_number + 1 " +
+            "WHERE matricule = ?";
+
+    public static final String RAISE_ISBN_COUNTER_STMT = "UPDATE isbn_counter SET " +
+            "last_number = CASE WHEN last_number < ? THEN ? ELSE last_number END " +
+            "WHERE matricule = ?";
+
+    // Requêtes de l'import en masse, les listes "IN" sont complétées par BookImporter
+    public static final String SELECT_AUTHORS_IN_STMT = "SELECT id_author, name " +
+            "FROM author " +
+            "WHERE name IN ";
+
+    public static final String SELECT_ISBNS_IN_STMT = "SELECT isbn " +
+            "FROM book " +
+            "WHERE isbn IN ";
+
+    public static final String SELECT_BOOK_IDS_IN_STMT = "SELECT id_book, isbn " +
+            "FROM book " +
+            "WHERE isbn IN ";
+
+    public static final String SELECT_PAGE_IDS_IN_STMT = "SELECT id_page, id_book, num_page " +
+            "FROM page " +
+            "WHERE id_book IN ";
+
+    public static final String INSERT_IMPORTED_BOOK_STMT = "INSERT INTO book(title, isbn, resume, imgPath, datePublication, id_author) " +
+            "VALUES(?, ?, ?, ?, ?, ?)";
+
+    // Requêtes de l'export complet, lues ensemble par BookExporter et donc triées de la même manière
+    public static final String SELECT_BOOKS_FOR_EXPORT_STMT = "SELECT b.id_book, b.title, b.resume, b.isbn, b.imgPath, " +
+            "b.datePublication, a.name AS author " +
+            "FROM book b " +
+            "LEFT JOIN author a ON a.id_author = b.id_author " +
+            "ORDER BY b.id_book";
+
+    public static final String SELECT_PAGES_WITH_CHOICES_FOR_EXPORT_STMT = "SELECT " +
+            "p.id_book, p.id_page, p.content, p.num_page, " +
+            "c.content AS choice, pTo.num_page AS targetP " +
+            "FROM page p " +
+            "LEFT JOIN choice c ON c.id_page = p.id_page " +
+            "LEFT JOIN page pTo ON pTo.id_page = c.id_target " +
+            "ORDER BY p.id_book, p.num_page, p.id_page";
+
+    public static final String SELECT_LAST_ISBN_FOR_AUTHOR_STMT = "SELECT MAX(isbn) AS isbn " +
+            "FROM book " +
+            "WHERE isbn LIKE ?";
+
 }
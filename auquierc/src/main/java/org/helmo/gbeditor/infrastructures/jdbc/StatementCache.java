@@ -0,0 +1,300 @@
+package org.helmo.gbeditor.infrastructures.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Cette classe garde les requêtes préparées d'une connexion physique afin de les réutiliser d'un emprunt à l'autre
+ * sans les préparer à nouveau.</p>
+ * <p>Une requête est identifiée par son texte SQL et par la récupération ou non des clés générées. Au-delà de la capacité
+ * du cache, la requête utilisée il y a le plus longtemps est fermée (LRU).</p>
+ * <p>Le cache rend une enveloppe de la requête préparée : la fermer ferme ses résultats, vide ses paramètres, remet les
+ * réglages modifiés par son utilisateur (nombre maximum de lignes, taille de lecture, délai, sens de lecture) à leur valeur
+ * d'origine et la remet dans le cache au lieu de la fermer. Si la même requête est déjà utilisée, par exemple dans une boucle imbriquée,
+ * une requête ordinaire, qui n'est pas gardée, est préparée.</p>
+ */
+final class StatementCache {
+    private final Map<Key, Cached> statements;
+    private long hits;
+    private long misses;
+
+    /**
+     * Crée un nouveau cache vide.
+     *
+     * @param capacity  Nombre maximum de requêtes gardées.
+     */
+    StatementCache(final int capacity) {
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Cached> eldest) {
+                if(size() > capacity) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Prépare une requête sur une connexion, ou réutilise celle déjà préparée.
+     *
+     * @param connection        Connexion physique à laquelle appartient ce cache.
+     * @param sql               Texte SQL de la requête.
+     * @param generatedKeys     Mode de récupération des clés générées ou null pour le mode par défaut.
+     *
+     * @return                  La requête préparée, à fermer après utilisation.
+     *
+     * @throws SQLException     Si la requête n'a pas pu être préparée.
+     */
+    synchronized PreparedStatement prepare(final Connection connection, final String sql, final Integer generatedKeys) throws SQLException {
+        final var key = new Key(sql, generatedKeys);
+        final var found = statements.get(key);
+        if(found != null && !found.inUse) {
+            hits++;
+            found.inUse = true;
+            return found.handle;
+        }
+        misses++;
+        final var physical = generatedKeys == null
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, generatedKeys);
+        if(found != null) {
+            return physical;
+        }
+        final Cached added;
+        try {
+            added = new Cached(physical);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+            throw e;
+        }
+        statements.put(key, added);
+        return added.handle;
+    }
+
+    /**
+     * Remet dans le cache les requêtes que le dernier emprunteur de la connexion n'a pas fermées.
+     */
+    synchronized void releaseAll() {
+        for(final var cached : statements.values()) {
+            release(cached);
+        }
+    }
+
+    /**
+     * Oublie toutes les requêtes, elles sont fermées avec leur connexion physique.
+     */
+    synchronized void clear() {
+        statements.clear();
+    }
+
+    /**
+     * Récupère le nombre de requêtes réutilisées depuis la création du cache.
+     *
+     * @return  Le nombre de requêtes trouvées dans le cache.
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Récupère le nombre de requêtes préparées depuis la création du cache.
+     *
+     * @return  Le nombre de requêtes qui n'étaient pas disponibles dans le cache.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Récupère le nombre de requêtes gardées.
+     *
+     * @return  Le nombre de requêtes du cache.
+     */
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private synchronized void release(final Cached cached) {
+        if(!cached.inUse) {
+            return;
+        }
+        cached.inUse = false;
+        cached.closeResults();
+        if(cached.evicted) {
+            closeQuietly(cached.physical);
+            return;
+        }
+        try {
+            cached.physical.clearParameters();
+            cached.physical.clearBatch();
+            cached.restoreSettings();
+        } catch (SQLException e) {
+            statements.values().remove(cached);
+            closeQuietly(cached.physical);
+        }
+    }
+
+    private static void closeQuietly(final PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+
+        }
+    }
+
+    /**
+     * Identifie une requête par son texte SQL et son mode de récupération des clés générées.
+     */
+    private static final class Key {
+        private final String sql;
+        private final Integer generatedKeys;
+        private final int hash;
+
+        private Key(final String sql, final Integer generatedKeys) {
+            this.sql = sql;
+            this.generatedKeys = generatedKeys;
+            this.hash = 31 * sql.hashCode() + Objects.hashCode(generatedKeys);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            final var other = (Key) o;
+            return sql.equals(other.sql) && Objects.equals(generatedKeys, other.generatedKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Représente une requête gardée par le cache ainsi que l'enveloppe rendue à ses utilisateurs.
+     */
+    private final class Cached implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement handle;
+        private final List<ResultSet> results = new ArrayList<>();
+        private final int maxRows;
+        private final int fetchSize;
+        private final int queryTimeout;
+        private final int fetchDirection;
+        private boolean inUse = true;
+        private boolean evicted;
+        private boolean settingsChanged;
+
+        private Cached(final PreparedStatement physical) throws SQLException {
+            this.physical = physical;
+            this.maxRows = physical.getMaxRows();
+            this.fetchSize = physical.getFetchSize();
+            this.queryTimeout = physical.getQueryTimeout();
+            this.fetchDirection = physical.getFetchDirection();
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        /**
+         * Ferme les résultats obtenus depuis que la requête est utilisée, comme le ferait sa fermeture.
+         */
+        private void closeResults() {
+            for(final var rs : results) {
+                try {
+                    rs.close();
+                } catch (SQLException ignored) {
+
+                }
+            }
+            results.clear();
+        }
+
+        /**
+         * Remet les réglages de la requête à la valeur qu'ils avaient lorsqu'elle a été préparée,
+         * afin que ceux de l'emprunteur précédent ne s'appliquent pas au suivant.
+         */
+        private void restoreSettings() throws SQLException {
+            if(!settingsChanged) {
+                return;
+            }
+            physical.setMaxRows(maxRows);
+            physical.setFetchSize(fetchSize);
+            physical.setQueryTimeout(queryTimeout);
+            physical.setFetchDirection(fetchDirection);
+            settingsChanged = false;
+        }
+
+        /**
+         * Retire la requête du cache : elle est fermée dès qu'elle n'est plus utilisée.
+         */
+        private void evict() {
+            evicted = true;
+            if(!inUse) {
+                closeQuietly(physical);
+            }
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release(this);
+                    return null;
+                case "isClosed":
+                    synchronized (StatementCache.this) {
+                        return !inUse || physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + physical + "]";
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setFetchSize":
+                case "setQueryTimeout":
+                case "setFetchDirection":
+                    synchronized (StatementCache.this) {
+                        settingsChanged = true;
+                    }
+                    return invokePhysical(method, args);
+                default:
+                    final Object result = invokePhysical(method, args);
+                    if(result instanceof ResultSet) {
+                        synchronized (StatementCache.this) {
+                            results.add((ResultSet) result);
+                        }
+                    }
+                    return result;
+            }
+        }
+
+        private Object invokePhysical(final Method method, final Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
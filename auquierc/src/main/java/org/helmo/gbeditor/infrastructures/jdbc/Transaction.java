@@ -1,6 +1,8 @@
 package org.helmo.gbeditor.infrastructures.jdbc;
 
 import org.helmo.gbeditor.infrastructures.exception.UnableToRollbackException;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -9,6 +11,7 @@ import java.sql.SQLException;
  * Cette classe permet de créer une Transaction facilement.
  */
 public class Transaction {
+    private static final String METRICS_OPERATION = "transaction";
 
     private final Connection con;
     private ExceptionHandle rollbackAction;
@@ -63,12 +66,18 @@ public class Transaction {
 
     /**
      * Exécute la transaction.
+     * Sa durée ainsi que sa validation ou son annulation sont transmises à la destination des mesures (voir {@link Metrics}).
      */
     public void execute() {
+        final var start = System.nanoTime();
         try {
             commitAction.execute(con);
             con.commit();
+            Metrics.sink().recordLatency(METRICS_OPERATION, System.nanoTime() - start, false);
+            Metrics.increment(Counter.COMMITS, 1);
         } catch (Exception ex) {
+            Metrics.sink().recordLatency(METRICS_OPERATION, System.nanoTime() - start, true);
+            Metrics.increment(Counter.ROLLBACKS, 1);
             try {
                 con.rollback();
                 rollbackAction.handle(ex);
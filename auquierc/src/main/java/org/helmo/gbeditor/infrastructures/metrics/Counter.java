@@ -0,0 +1,35 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+/**
+ * Énumère les compteurs mis à jour par les repositories lorsqu'ils accèdent à leurs données.
+ */
+public enum Counter {
+    /**
+     * Nombre de requêtes, ou de lots de requêtes, envoyées à la base de données.
+     */
+    STATEMENTS,
+    /**
+     * Nombre de lignes lues dans la base de données.
+     */
+    ROWS_READ,
+    /**
+     * Nombre de lignes ajoutées, modifiées ou supprimées dans la base de données.
+     */
+    ROWS_WRITTEN,
+    /**
+     * Nombre d'octets lus dans les fichiers JSON.
+     */
+    BYTES_READ,
+    /**
+     * Nombre d'octets écrits dans les fichiers JSON.
+     */
+    BYTES_WRITTEN,
+    /**
+     * Nombre de transactions validées.
+     */
+    COMMITS,
+    /**
+     * Nombre de transactions annulées.
+     */
+    ROLLBACKS
+}
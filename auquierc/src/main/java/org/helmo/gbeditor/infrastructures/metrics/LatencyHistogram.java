@@ -0,0 +1,110 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cet histogramme compte des durées par puissance de 2 de nanosecondes : la i-ème classe contient les durées
+ * comprises entre 2^(i-1) et 2^i - 1 nanosecondes. Un centile est donc connu à un facteur 2 près, ce qui suffit
+ * à comparer des mesures, pour une mémoire fixe et sans verrou.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Ajoute une durée à l'histogramme.
+     *
+     * @param nanos Durée en nanosecondes, une durée négative compte comme une durée nulle.
+     */
+    public void record(final long nanos) {
+        final var value = Math.max(0, nanos);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Récupère le nombre de durées enregistrées.
+     *
+     * @return  Le nombre de durées.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Récupère la somme des durées enregistrées.
+     *
+     * @return  La somme des durées, en nanosecondes.
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Récupère la durée moyenne.
+     *
+     * @return  La durée moyenne en nanosecondes ou 0 si aucune durée n'a été enregistrée.
+     */
+    public long getMeanNanos() {
+        final var n = getCount();
+        return n == 0 ? 0 : getTotalNanos() / n;
+    }
+
+    /**
+     * Récupère la plus grande durée enregistrée.
+     *
+     * @return  La plus grande durée, en nanosecondes.
+     */
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Estime un centile des durées enregistrées.
+     *
+     * @param percentile    Centile voulu, entre 0 et 100.
+     *
+     * @return              La borne supérieure de la classe contenant le centile, sans dépasser la plus grande durée,
+     *                      ou 0 si aucune durée n'a été enregistrée.
+     */
+    public long getPercentileNanos(final double percentile) {
+        final var n = getCount();
+        if(n == 0) {
+            return 0;
+        }
+        final var rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100);
+        var seen = 0L;
+        for(int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if(seen >= rank && seen > 0) {
+                return Math.min(getMaxNanos(), upperBoundOf(i));
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Récupère le nombre de durées de chaque classe.
+     *
+     * @return  Le nombre de durées de chaque classe, la i-ème classe contenant les durées inférieures à 2^i nanosecondes.
+     */
+    public long[] getBuckets() {
+        final var result = new long[BUCKETS];
+        for(int i = 0; i < BUCKETS; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
@@ -0,0 +1,73 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Cette classe donne accès à la destination des mesures utilisée par les parties des repositories qui n'ont
+ * pas d'instance à qui la donner, comme les transactions et les méthodes statiques d'accès à la base de données.
+ * Par défaut, les mesures sont ignorées.
+ */
+public final class Metrics {
+    private static volatile MetricsSink sink = MetricsSink.NONE;
+
+    private Metrics() { }
+
+    /**
+     * Définit la destination des mesures.
+     *
+     * @param newSink   Destination des mesures, null pour ignorer les mesures.
+     */
+    public static void use(final MetricsSink newSink) {
+        sink = newSink == null ? MetricsSink.NONE : newSink;
+    }
+
+    /**
+     * Récupère la destination actuelle des mesures.
+     *
+     * @return  La destination des mesures.
+     */
+    public static MetricsSink sink() {
+        return sink;
+    }
+
+    /**
+     * Détermine si les mesures sont enregistrées, afin de ne pas les calculer inutilement.
+     *
+     * @return  True si une destination des mesures a été définie.
+     */
+    public static boolean isEnabled() {
+        return sink != MetricsSink.NONE;
+    }
+
+    /**
+     * Augmente un compteur de la destination actuelle des mesures.
+     *
+     * @param counter   Compteur à augmenter.
+     * @param amount    Valeur à ajouter au compteur, rien n'est fait si elle est nulle.
+     */
+    public static void increment(final Counter counter, final long amount) {
+        if(amount != 0) {
+            sink.increment(counter, amount);
+        }
+    }
+
+    /**
+     * Ajoute la taille d'un fichier à un compteur d'octets lus ou écrits.
+     * La taille n'est lue que si les mesures sont enregistrées.
+     *
+     * @param counter   Compteur à augmenter.
+     * @param file      Fichier lu ou écrit.
+     */
+    public static void incrementBy(final Counter counter, final Path file) {
+        if(!isEnabled()) {
+            return;
+        }
+        try {
+            increment(counter, Files.size(file));
+        } catch (IOException ignored) {
+            // Une mesure manquée ne doit pas faire échouer l'opération mesurée.
+        }
+    }
+}
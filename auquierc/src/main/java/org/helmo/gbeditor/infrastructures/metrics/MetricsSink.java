@@ -0,0 +1,40 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+/**
+ * Définit la destination des mesures faites sur les repositories.
+ * Une implémentation peut les garder en mémoire (voir {@link RepositoryMetrics}) ou les transmettre à un autre outil.
+ * Les méthodes peuvent être appelées par plusieurs threads en même temps et doivent être rapides.
+ */
+public interface MetricsSink {
+    /**
+     * Destination qui ignore toutes les mesures.
+     */
+    MetricsSink NONE = new MetricsSink() {
+        @Override
+        public void recordLatency(final String operation, final long nanos, final boolean failed) {
+            // Les mesures sont ignorées.
+        }
+
+        @Override
+        public void increment(final Counter counter, final long amount) {
+            // Les mesures sont ignorées.
+        }
+    };
+
+    /**
+     * Enregistre la durée d'une opération.
+     *
+     * @param operation Nom de l'opération.
+     * @param nanos     Durée de l'opération, en nanosecondes.
+     * @param failed    True si l'opération a lancé une exception.
+     */
+    void recordLatency(final String operation, final long nanos, final boolean failed);
+
+    /**
+     * Augmente un compteur.
+     *
+     * @param counter   Compteur à augmenter.
+     * @param amount    Valeur à ajouter au compteur.
+     */
+    void increment(final Counter counter, final long amount);
+}
@@ -0,0 +1,167 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cette classe garde en mémoire les mesures des repositories : un {@link LatencyHistogram} par opération,
+ * le nombre d'échecs de chaque opération et les {@link Counter compteurs}.
+ * Elle peut être enregistrée comme MBean afin de consulter les mesures pendant l'exécution de l'application.
+ */
+public class RepositoryMetrics implements MetricsSink, RepositoryMetricsMXBean {
+    /**
+     * Nom sous lequel les mesures sont enregistrées par défaut auprès du serveur de MBeans de la JVM.
+     */
+    public static final String DEFAULT_OBJECT_NAME = "org.helmo.gbeditor:type=RepositoryMetrics";
+
+    private static final long NANOS_BY_MICRO = 1000;
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    /**
+     * Crée un nouvel ensemble de mesures vide.
+     */
+    public RepositoryMetrics() {
+        for(final var c : Counter.values()) {
+            counters.put(c, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordLatency(final String operation, final long nanos, final boolean failed) {
+        latencies.computeIfAbsent(operation, o -> new LatencyHistogram()).record(nanos);
+        if(failed) {
+            failures.computeIfAbsent(operation, o -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void increment(final Counter counter, final long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    /**
+     * Récupère la valeur d'un compteur.
+     *
+     * @param counter   Compteur voulu.
+     *
+     * @return          La valeur du compteur.
+     */
+    public long get(final Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * Récupère l'histogramme des durées d'une opération.
+     *
+     * @param operation Nom de l'opération.
+     *
+     * @return          L'histogramme des durées de l'opération ou null si elle n'a jamais été mesurée.
+     */
+    public LatencyHistogram getLatency(final String operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Enregistre ces mesures auprès du serveur de MBeans de la JVM sous le nom {@link #DEFAULT_OBJECT_NAME}.
+     * Des mesures déjà enregistrées sous ce nom sont remplacées.
+     *
+     * @throws IllegalStateException    Si les mesures n'ont pas pu être enregistrées.
+     */
+    public void register() {
+        try {
+            final var server = ManagementFactory.getPlatformMBeanServer();
+            final var name = new ObjectName(DEFAULT_OBJECT_NAME);
+            if(server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Les mesures des repositories n'ont pas pu être enregistrées.", e);
+        }
+    }
+
+    @Override
+    public long getStatements() {
+        return get(Counter.STATEMENTS);
+    }
+
+    @Override
+    public long getRowsRead() {
+        return get(Counter.ROWS_READ);
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return get(Counter.ROWS_WRITTEN);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return get(Counter.BYTES_READ);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return get(Counter.BYTES_WRITTEN);
+    }
+
+    @Override
+    public long getCommits() {
+        return get(Counter.COMMITS);
+    }
+
+    @Override
+    public long getRollbacks() {
+        return get(Counter.ROLLBACKS);
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        return byOperation(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getOperationFailures() {
+        final Map<String, Long> result = new TreeMap<>();
+        failures.forEach((operation, count) -> result.put(operation, count.sum()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getOperationMeanMicros() {
+        return byOperation(h -> h.getMeanNanos() / NANOS_BY_MICRO);
+    }
+
+    @Override
+    public Map<String, Long> getOperationP99Micros() {
+        return byOperation(h -> h.getPercentileNanos(99) / NANOS_BY_MICRO);
+    }
+
+    @Override
+    public Map<String, Long> getOperationMaxMicros() {
+        return byOperation(h -> h.getMaxNanos() / NANOS_BY_MICRO);
+    }
+
+    private Map<String, Long> byOperation(final ToLongFunction<LatencyHistogram> value) {
+        final Map<String, Long> result = new TreeMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation, value.applyAsLong(histogram)));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        latencies.clear();
+        failures.clear();
+        counters.values().forEach(LongAdder::reset);
+    }
+}
@@ -0,0 +1,74 @@
+package org.helmo.gbeditor.infrastructures.metrics;
+
+import java.util.Map;
+
+/**
+ * Définit les mesures des repositories consultables par JMX, par exemple avec JConsole ou VisualVM.
+ * Les durées sont données en microsecondes et indexées par nom d'opération.
+ */
+public interface RepositoryMetricsMXBean {
+    /**
+     * @return  Le nombre de requêtes, ou de lots de requêtes, envoyées à la base de données.
+     */
+    long getStatements();
+
+    /**
+     * @return  Le nombre de lignes lues dans la base de données.
+     */
+    long getRowsRead();
+
+    /**
+     * @return  Le nombre de lignes ajoutées, modifiées ou supprimées dans la base de données.
+     */
+    long getRowsWritten();
+
+    /**
+     * @return  Le nombre d'octets lus dans les fichiers JSON.
+     */
+    long getBytesRead();
+
+    /**
+     * @return  Le nombre d'octets écrits dans les fichiers JSON.
+     */
+    long getBytesWritten();
+
+    /**
+     * @return  Le nombre de transactions validées.
+     */
+    long getCommits();
+
+    /**
+     * @return  Le nombre de transactions annulées.
+     */
+    long getRollbacks();
+
+    /**
+     * @return  Le nombre d'appels de chaque opération.
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * @return  Le nombre d'appels de chaque opération ayant lancé une exception.
+     */
+    Map<String, Long> getOperationFailures();
+
+    /**
+     * @return  La durée moyenne de chaque opération.
+     */
+    Map<String, Long> getOperationMeanMicros();
+
+    /**
+     * @return  Le 99e centile des durées de chaque opération.
+     */
+    Map<String, Long> getOperationP99Micros();
+
+    /**
+     * @return  La plus grande durée de chaque opération.
+     */
+    Map<String, Long> getOperationMaxMicros();
+
+    /**
+     * Remet toutes les mesures à zéro.
+     */
+    void reset();
+}
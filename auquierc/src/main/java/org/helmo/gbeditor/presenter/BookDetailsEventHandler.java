@@ -9,11 +9,19 @@ public interface BookDetailsEventHandler {
 
     /**
      * Permet à l'utilisateur publier un livre ayant l'ISBN donné.
+     * Le livre n'est publié qu'après confirmation de l'utilisateur.
      *
      * @param isbn  ISBN du livre à publier.
      */
     void onPublishBook(final String isbn);
 
+    /**
+     * Réagit à l'action "Confirmer la publication" en publiant le livre ayant l'ISBN donné.
+     *
+     * @param isbn  ISBN du livre à publier.
+     */
+    void onConfirmedPublish(final String isbn);
+
     /**
      * Permet à l'utilisateur de modifier un livre ayant l'ISBN donné.
      *
@@ -3,10 +3,10 @@ package org.helmo.gbeditor.presenter;
 import org.helmo.gbeditor.domains.*;
 import org.helmo.gbeditor.domains.factory.BookFactory;
 import org.helmo.gbeditor.domains.factory.ISBNFactory;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
 import org.helmo.gbeditor.repositories.DataRepository;
 import org.helmo.gbeditor.repositories.FileUtils;
-import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 
 import java.nio.file.Paths;
 
@@ -18,17 +18,28 @@ import java.nio.file.Paths;
 public class CreateBookPresenter extends Presenter {
     private final Session session;
 
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private CreateBookInterface view;
 
     private static final int LANG_CODE = 2;
 
     /**
-     * Crée un nouveau CreateBookPresenter à partir d'une Session donnée.
+     * Crée un nouveau CreateBookPresenter à partir d'une Session donnée, utilisant le repository de manière synchrone.
      *
      * @param session   Session courante.
+     * @param repo      Repository courant.
      */
     public CreateBookPresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau CreateBookPresenter à partir d'une Session et d'un repository asynchrone donnés.
+     *
+     * @param session   Session courante.
+     * @param repo      Repository courant.
+     */
+    public CreateBookPresenter(final Session session, final AsyncRepository repo) {
         this.repo = repo;
         this.session = session;
     }
@@ -47,15 +58,19 @@ public class CreateBookPresenter extends Presenter {
                     new BookMetadata(title, isbn, resume, session.getAuthor()),
                     session.getMatricule().substring(1),
                     filePath);
-            repo.add(newBook);
-            view.resetInputs();
-            view.setIsbn(
-                    ISBNFactory.computeISBNFor(LANG_CODE,
-                            session.getMatricule().substring(1),
-                            (getLastBookNumber()) + 1).forUser());
-            setMessage("Le livre a bien été créé.");
-            view.refreshAll(ViewName.CREATE_BOOK_VIEW);
-        } catch (BookAlreadyExistsException | Book.WrongFormattedBookException | ISBN.WrongFormattedISBNException e) {
+            AsyncRepository.whenDone(repo.add(newBook), added -> {
+                view.resetInputs();
+                showProposedIsbn();
+                setMessage("Le livre a bien été créé.");
+                view.refreshAll(ViewName.CREATE_BOOK_VIEW);
+            }, e -> {
+                if(e instanceof BookAlreadyExistsException) {
+                    setMessage(e.getMessage());
+                } else {
+                    view.setMessage("Le livre n'a pas pu être créé.", TypeMessage.ERROR);
+                }
+            });
+        } catch (Book.WrongFormattedBookException | ISBN.WrongFormattedISBNException e) {
             setMessage(e.getMessage());
         }
     }
@@ -83,25 +98,20 @@ public class CreateBookPresenter extends Presenter {
      */
     @Override
     public void onEnter(String fromView) {
-        try {
-            setView(view);
-            view.setAuthorName(session.getAuthor());
-            view.setIsbn(
-                    ISBNFactory.computeISBNFor(LANG_CODE,
-                            session
-                                    .getMatricule()
-                                    .substring(1),
-                            getLastBookNumber() + 1).forUser());
-        } catch(DataManipulationException e) {
-            view.setMessage("Une erreur est survenue lors du chargement des données.", TypeMessage.ERROR);
-        }
+        setView(view);
+        view.setAuthorName(session.getAuthor());
+        showProposedIsbn();
     }
 
-    private int getLastBookNumber() {
-        return Integer.parseInt(repo
-                .getLastIsbn()
-                .replaceAll("-", "")
-                .substring(7, 9));
+    /**
+     * Affiche l'ISBN proposé à l'auteur connecté pour son prochain livre, qui suit son dernier numéro de livre.
+     * Le numéro n'est pas réservé : il n'est attribué que lorsque le livre est ajouté au repository.
+     */
+    private void showProposedIsbn() {
+        final var matricule = session.getMatricule().substring(1);
+        AsyncRepository.whenDone(repo.getLastBookNumber(matricule),
+                last -> view.setIsbn(ISBNFactory.computeISBNFor(LANG_CODE, matricule, last + 1).forUser()),
+                e -> view.setMessage("Une erreur est survenue lors du chargement des données.", TypeMessage.ERROR));
     }
 
     /**
@@ -3,9 +3,11 @@ package org.helmo.gbeditor.presenter;
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.Page;
 import org.helmo.gbeditor.domains.Session;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Gérer ce qui va être affiché à l'écran utilisateur et comment le programme va réagir aux évènements lancés par sa vue.
@@ -15,7 +17,7 @@ public class CreatePagePresenter extends Presenter {
     private CreatePageInterface view;
 
     private final Session session;
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private Page currentPage;
     private Book currentBook;
 
@@ -28,9 +30,19 @@ public class CreatePagePresenter extends Presenter {
      * Crée un nouveau CreatePagePresenter avec une session et un DataRepository donné.
      *
      * @param session   Session actuelle sur laquelle l'application est lancée.
-     * @param repo      Repository avec lequel l'application travaille.
+     * @param repo      Repository avec lequel l'application travaille, utilisé de manière synchrone.
      */
     public CreatePagePresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau CreatePagePresenter avec une session et un repository asynchrone donnés.
+     *
+     * @param session   Session actuelle sur laquelle l'application est lancée.
+     * @param repo      Repository avec lequel l'application travaille.
+     */
+    public CreatePagePresenter(final Session session, final AsyncRepository repo) {
         this.session = session;
         this.repo = repo;
     }
@@ -44,14 +56,15 @@ public class CreatePagePresenter extends Presenter {
      */
     public void onNotifyAddPage(final String newPageContent, final String otherPageContent, final String addOption) {
         if(newPageContent != null && !newPageContent.isEmpty()) {
-            addPageToBook(newPageContent, otherPageContent, addOption);
-            view.setMessage("La page a bien été créée.", TypeMessage.MESSAGE);
+            AsyncRepository.whenDone(addPageToBook(newPageContent, otherPageContent, addOption),
+                    saved -> view.setMessage("La page a bien été créée.", TypeMessage.MESSAGE),
+                    e -> view.setMessage("La page n'a pas pu être sauvegardée.", TypeMessage.ERROR));
         } else {
             view.setMessage("Le contenu de la page ne peut pas être vide.", TypeMessage.ERROR);
         }
     }
 
-    private void addPageToBook(final String newPageContent, final String otherPageContent, final String addOption) {
+    private CompletableFuture<Void> addPageToBook(final String newPageContent, final String otherPageContent, final String addOption) {
         currentPage.setContent(newPageContent);
         if(addOption.equals(BEGIN_OPTION)) {
             currentBook.addBegin(currentPage);
@@ -61,8 +74,8 @@ public class CreatePagePresenter extends Presenter {
             var page = currentBook.getPageFor(otherPageContent);
             currentBook.addAfter(currentPage, page);
         }
-        repo.save(currentBook);
         currentPage = new Page("");
+        return repo.save(currentBook);
     }
 
     /**
@@ -80,15 +93,16 @@ public class CreatePagePresenter extends Presenter {
     public void onEnter(String fromView) {
         view.clearBookPages();
         currentPage = new Page("");
-        currentBook = repo.searchBookFor(session.getCurrentIsbn());
         view.setAuthorName(session.getAuthor());
         view.setAddOptions(ADD_OPTION, BEGIN_OPTION);
         view.showBookPages(false);
-        setBookPages();
+        AsyncRepository.whenDone(repo.searchBookFor(session.getCurrentIsbn()), found -> {
+            currentBook = found;
+            setBookPages(found);
+        }, e -> view.setMessage("Le livre n'a pas pu être récupéré.", TypeMessage.ERROR));
     }
 
-    private void setBookPages() {
-        var book = repo.searchBookFor(session.getCurrentIsbn());
+    private void setBookPages(final Book book) {
         for(final var p : book) {
             view.addBookPages(book.getNForPage(p), p.getContent());
         }
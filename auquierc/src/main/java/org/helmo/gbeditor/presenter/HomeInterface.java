@@ -42,4 +42,13 @@ public interface HomeInterface extends ViewInterface {
      */
     void addAvailablePages(final int num, final String content);
 
+    /**
+     * Demande à l'utilisateur de confirmer la publication du livre ayant l'ISBN donné.
+     * Si l'utilisateur confirme, la vue appelle {@link BookDetailsEventHandler#onConfirmedPublish(String)}.
+     *
+     * @param isbn      ISBN du livre à publier.
+     * @param warning   Avertissement à afficher à l'utilisateur avant qu'il confirme.
+     */
+    void askPublishConfirmation(final String isbn, final String warning);
+
 }
@@ -3,14 +3,17 @@ package org.helmo.gbeditor.presenter;
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.BookFieldName;
 import org.helmo.gbeditor.domains.Session;
-import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 import org.helmo.gbeditor.repositories.exceptions.UnableToOpenResourceException;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.presenter.viewmodels.ExtendedBookDescription;
 import org.helmo.gbeditor.presenter.viewmodels.LittleBookDescription;
+import org.helmo.gbeditor.repositories.BookSummary;
+import org.helmo.gbeditor.repositories.BooksPage;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Gérer ce qui va être affiché à l'écran utilisateur et comment le programme va réagir aux évènements lancés par sa vue.
@@ -19,20 +22,34 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
     private final static int MAX_BOOKS_PAGE = 8;
     // TODO : Load livre dans la methode getBookFor(final String isbn);
     private HomeInterface view;
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private final Session session;
 
     private int currentPage;
 
-    private final List<Book> books = new ArrayList<>();
+    private final List<String> cursors = new ArrayList<>();
+    private BooksPage displayedPage;
+    private CompletableFuture<BooksPage> pendingPage;
+    private CompletableFuture<BooksPage> nextPage;
+    private CompletableFuture<Book> pendingDetails;
 
     /**
-     * Crée un nouvel objet HomePresenter.
+     * Crée un nouvel objet HomePresenter utilisant le repository de manière synchrone.
      *
      * @param session   Session courante de l'utilisateur.
      * @param repo      Repository utilisé pendant l'exécution de l'application.
      */
     public HomePresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouvel objet HomePresenter.
+     *
+     * @param session   Session courante de l'utilisateur.
+     * @param repo      Repository, asynchrone, utilisé pendant l'exécution de l'application.
+     */
+    public HomePresenter(final Session session, final AsyncRepository repo) {
         this.repo = repo;
         this.session = session;
     }
@@ -40,6 +57,7 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
     @Override
     public void onEnter(String fromView) {
         currentPage = 0;
+        discardNextPage();
         try {
             refresh();
             view.showPopUp(ViewName.CREATE_BOOK_VIEW.getName());
@@ -66,26 +84,80 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
     // TODO : Supprimer les méthodes qui ne sont pas utilisée
 
 
+    /**
+     * Affiche la page de livres courante.
+     * Seule cette page est récupérée, la page suivante est ensuite préchargée pour que le passage à celle-ci soit immédiat.
+     * Les demandes encore en cours pour la page affichée précédemment sont annulées.
+     */
     private void displayBooks() {
-        try {
-            view.clearBooks();
-            books.clear();
-            books.addAll(repo.getBooks());
-            if(books.size() > 0) {
-                for(int i = currentPage * MAX_BOOKS_PAGE; i < ((currentPage + 1) * MAX_BOOKS_PAGE) && i < books.size(); i++) {
-                    var b = books.get(i);
-                    var title = b.get(BookFieldName.TITLE).length() > 15 ? b.get(BookFieldName.TITLE).substring(0, 15) + "..." : b.get(BookFieldName.TITLE);
-                    view.addBook(new LittleBookDescription(title,
-                            b.getImgPath(), b.get(BookFieldName.ISBN), b.get(BookFieldName.AUTHOR),
-                            b.get(BookFieldName.PUBLISH_DATE)));
-                }
-                displayDetailsFor(books.get(currentPage * MAX_BOOKS_PAGE).get(BookFieldName.ISBN));
-            } else {
-                view.setMessage("Vous n'avez pas encore créé de livre.", TypeMessage.MESSAGE);
+        cancel(pendingPage);
+        cancel(pendingDetails);
+        view.clearBooks();
+        displayedPage = null;
+        final var request = nextPage != null ? nextPage : repo.getBooksPage(getCursorFor(currentPage), MAX_BOOKS_PAGE);
+        nextPage = null;
+        pendingPage = request;
+        AsyncRepository.whenDone(request, page -> {
+            if(pendingPage == request) {
+                pendingPage = null;
+                showBooks(page);
+            }
+        }, e -> {
+            if(pendingPage == request) {
+                pendingPage = null;
+                view.setMessage(e instanceof UnableToOpenResourceException ? e.getMessage() : "Les livres n'ont pas pu être chargé.", TypeMessage.ERROR);
             }
-        } catch (DataManipulationException ignored) {
-            view.setMessage("Les livres n'ont pas pu être chargé.", TypeMessage.ERROR);
+        });
+    }
+
+    private void showBooks(final BooksPage page) {
+        displayedPage = page;
+        if(displayedPage.isEmpty()) {
+            view.setMessage("Vous n'avez pas encore créé de livre.", TypeMessage.MESSAGE);
+            return;
+        }
+        for(final var b : displayedPage.getBooks()) {
+            view.addBook(getLittleBookDescriptionFor(b));
+        }
+        displayDetailsFor(displayedPage.getBooks().get(0).getIsbn());
+        prefetchNextPage();
+    }
+
+    private void prefetchNextPage() {
+        if(!displayedPage.hasNext()) {
+            return;
         }
+        setCursorFor(currentPage + 1, displayedPage.getNextCursor());
+        nextPage = repo.getBooksPage(displayedPage.getNextCursor(), MAX_BOOKS_PAGE);
+    }
+
+    private void discardNextPage() {
+        cancel(nextPage);
+        nextPage = null;
+    }
+
+    private static void cancel(final CompletableFuture<?> request) {
+        if(request != null) {
+            request.cancel(false);
+        }
+    }
+
+    private String getCursorFor(final int page) {
+        return page < cursors.size() ? cursors.get(page) : null;
+    }
+
+    private void setCursorFor(final int page, final String cursor) {
+        while(cursors.size() <= page) {
+            cursors.add(null);
+        }
+        cursors.set(page, cursor);
+    }
+
+    private static LittleBookDescription getLittleBookDescriptionFor(final BookSummary b) {
+        var title = b.getTitle().length() > 15 ? b.getTitle().substring(0, 15) + "..." : b.getTitle();
+        return new LittleBookDescription(title,
+                b.getImgPath(), b.getIsbn(), b.getAuthor(),
+                b.getPublishDate());
     }
 
     /**
@@ -95,17 +167,20 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
      */
     @Override
     public void displayDetailsFor(final String isbn) {
-        try {
-            var found = repo.searchBookFor(isbn);
-            if(found != null) {
-                session.setCurrentBook(found);
+        cancel(pendingDetails);
+        final var request = repo.searchBookFor(isbn);
+        pendingDetails = request;
+        AsyncRepository.whenDone(request, found -> {
+            if(found != null && pendingDetails == request) {
                 session.setCurrentBook(found);
                 session.setCurrentIsbn(isbn);
                 view.setDetails(getExtendedBookDescriptionFor(found));
             }
-        } catch (DataManipulationException e) {
-            view.setMessage("Le livre n'a pas pu être récupéré.", TypeMessage.ERROR);
-        }
+        }, e -> {
+            if(pendingDetails == request) {
+                view.setMessage("Le livre n'a pas pu être récupéré.", TypeMessage.ERROR);
+            }
+        });
     }
 
     private static ExtendedBookDescription getExtendedBookDescriptionFor(Book found) {
@@ -127,9 +202,10 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
 
     /**
      * Affiche les livres de la page suivante.
+     * Rien ne se passe tant que la page courante n'est pas affichée, son curseur n'étant pas encore connu.
      */
     private void onNextPagePressed() {
-        if((currentPage + 1) * MAX_BOOKS_PAGE < books.size()) {
+        if(displayedPage != null && displayedPage.hasNext()) {
             currentPage++;
             refresh();
         }
@@ -141,6 +217,7 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
     private void onPreviousPagePressed() {
         if((currentPage - 1) > -1) {
             currentPage--;
+            discardNextPage();
             refresh();
         }
     }
@@ -192,17 +269,39 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
         view.goTo(ViewName.MODIFY_PAGE_VIEW.getName());
     }
 
+    /**
+     * Analyse le livre avant de demander à l'utilisateur de confirmer sa publication.
+     * Un livre dont certaines pages ne peuvent pas être atteintes depuis la première page n'est pas publié,
+     * les boucles du livre sont signalées à l'utilisateur dans la demande de confirmation.
+     *
+     * @param isbn  ISBN du livre à publier.
+     */
     @Override
     public void onPublishBook(String isbn) {
         final var currentBook = session.getCurrentBook();
         if(isbn == null || isbn.isEmpty() || currentBook == null) { return; }
-        // TODO : Demander confirmation pour la publication du livre. Expliquer à l'utilisateur qu'il ne pourra plus le modifier.
+        final var analysis = currentBook.analyze();
+        if(!analysis.isFullyReachable()) {
+            view.setMessage("Le livre ne peut pas être publié : " + analysis.getUnreachablePages().size()
+                    + " page(s) ne peuvent pas être atteintes depuis la première page.", TypeMessage.ERROR);
+            return;
+        }
+        final var warning = new StringBuilder("Une fois publié, le livre ne pourra plus être modifié.");
+        if(!analysis.getCycles().isEmpty()) {
+            warning.append(" Il contient ").append(analysis.getCycles().size())
+                    .append(" boucle(s) : le lecteur peut revenir sur des pages qu'il a déjà lues.");
+        }
+        view.askPublishConfirmation(isbn, warning.toString());
+    }
+
+    @Override
+    public void onConfirmedPublish(final String isbn) {
+        final var currentBook = session.getCurrentBook();
+        if(isbn == null || isbn.isEmpty() || currentBook == null) { return; }
         try {
             currentBook.publish();
-            repo.save(currentBook);
-            view.refreshAll(ViewName.HOME_VIEW);
-        } catch (DataManipulationException e) {
-            view.setMessage("Le livre n'a pas pu être publié.", TypeMessage.ERROR);
+            AsyncRepository.whenDone(repo.save(currentBook), saved -> view.refreshAll(ViewName.HOME_VIEW),
+                    e -> view.setMessage("Le livre n'a pas pu être publié.", TypeMessage.ERROR));
         } catch (Book.BookAlreadyPublishedException | Book.CannotPublishEmptyBookException e) {
             view.setMessage(e.getMessage(), TypeMessage.MESSAGE);
         }
@@ -228,6 +327,7 @@ public class HomePresenter extends Presenter implements BookDescriptionEventHand
 
     @Override
     public void onRefresh() {
+        discardNextPage();
         refresh();
     }
 
@@ -1,6 +1,7 @@
 package org.helmo.gbeditor.presenter;
 
 import org.helmo.gbeditor.domains.Session;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 /**
@@ -10,7 +11,7 @@ import org.helmo.gbeditor.repositories.DataRepository;
  */
 public class LoginPresenter extends Presenter {
 
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private ViewInterface view;
     private final Session session;
 
@@ -18,9 +19,19 @@ public class LoginPresenter extends Presenter {
      * Crée un nouveau LoginPresenter à partir d'une Session courante donnée.
      *
      * @param session   Session courante.
-     * @param repo
+     * @param repo      Repository courant, utilisé de manière synchrone.
      */
     public LoginPresenter(Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau LoginPresenter à partir d'une Session courante et d'un repository asynchrone donnés.
+     *
+     * @param session   Session courante.
+     * @param repo      Repository courant.
+     */
+    public LoginPresenter(Session session, final AsyncRepository repo) {
         this.repo = repo;
         this.session = session;
     }
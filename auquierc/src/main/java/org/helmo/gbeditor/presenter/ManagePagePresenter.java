@@ -2,6 +2,7 @@ package org.helmo.gbeditor.presenter;
 
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.Session;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 /**
@@ -12,7 +13,7 @@ public class ManagePagePresenter extends Presenter implements PageViewHandler {
     private ManagePageInterface view;
     private final Session session;
     private Book currentBook;
-    private final DataRepository repo;
+    private final AsyncRepository repo;
 
     /**
      * Crée un nouveau ManagePagePresenter à partir d'une Session et d'un DataReoisutory donné.
@@ -21,6 +22,16 @@ public class ManagePagePresenter extends Presenter implements PageViewHandler {
      * @param repo      Repository courant.
      */
     public ManagePagePresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau ManagePagePresenter à partir d'une session et d'un repository asynchrone donnés.
+     *
+     * @param session   Session courante.
+     * @param repo      Repository courant.
+     */
+    public ManagePagePresenter(final Session session, final AsyncRepository repo) {
         this.session = session;
         this.repo = repo;
     }
@@ -51,10 +62,18 @@ public class ManagePagePresenter extends Presenter implements PageViewHandler {
         refresh();
     }
 
+    @Override
+    public void onLeave(final String toView) {
+        repo.flush();
+    }
+
     private void refresh() {
         view.clearPages();
         currentBook = session.getCurrentBook();
-        currentBook.forEach(p -> view.addPage(currentBook.getNForPage(p), p.getContent(), currentBook.getPageBranchment(p)));
+        final var graph = currentBook.toGraph();
+        for(int i = 0; i < graph.size(); i++) {
+            view.addPage(i + 1, graph.getPage(i).getContent(), graph.inDegree(i));
+        }
     }
 
     @Override
@@ -71,8 +90,9 @@ public class ManagePagePresenter extends Presenter implements PageViewHandler {
     @Override
     public void onConfirmedDelete(String content) {
         if(currentBook.removePage(currentBook.getPageFor(content))) {
-            repo.save(currentBook);
             view.refreshAll(ViewName.MANAGE_PAGE_VIEW);
+            AsyncRepository.whenDone(repo.saveLater(currentBook), saved -> { },
+                    e -> view.setMessage("La page n'a pas pu être supprimée.", TypeMessage.ERROR));
         }
     }
 }
@@ -2,6 +2,7 @@ package org.helmo.gbeditor.presenter;
 
 import org.helmo.gbeditor.domains.*;
 import org.helmo.gbeditor.domains.factory.ISBNFactory;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
 import org.helmo.gbeditor.repositories.DataRepository;
 
@@ -13,7 +14,7 @@ import org.helmo.gbeditor.repositories.DataRepository;
 public class ModifyBookPresenter extends Presenter {
     private final Session session;
 
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private ModifyBookInterface view;
 
     private Book currentBook;
@@ -22,11 +23,22 @@ public class ModifyBookPresenter extends Presenter {
 
     /**
      * Crée un nouveau CreateBookPresenter à partir d'une Session et d'un DataReoisutory donné.
+     * Le repository est utilisé de manière synchrone.
      *
      * @param session   Session courante.
      * @param repo      Repository courant.
      */
     public ModifyBookPresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau ModifyBookPresenter à partir d'une Session et d'un repository asynchrone donnés.
+     *
+     * @param session   Session courante.
+     * @param repo      Repository courant.
+     */
+    public ModifyBookPresenter(final Session session, final AsyncRepository repo) {
         this.repo = repo;
         this.session = session;
     }
@@ -58,15 +70,20 @@ public class ModifyBookPresenter extends Presenter {
                     new BookMetadata(title, isbn, resume, session.getAuthor()),
                     session.getMatricule().substring(1),
                     filePath);
-            repo.save(currentBook);
-            view.resetInputs();
-            view.setIsbn(
-                    ISBNFactory.computeISBNFor(LANG_CODE,
-                            session.getMatricule().substring(1),
-                            (getLastBookNumber()) + 1).forUser());
-            setMessage("Le livre a bien été modifié.");
-            view.refreshAll(ViewName.MODIFY_BOOK_VIEW);
-        } catch (BookAlreadyExistsException | Book.WrongFormattedBookException | ISBN.WrongFormattedISBNException e) {
+            final var matricule = session.getMatricule().substring(1);
+            AsyncRepository.whenDone(repo.save(currentBook).thenCompose(saved -> repo.getLastBookNumber(matricule)), last -> {
+                view.resetInputs();
+                view.setIsbn(ISBNFactory.computeISBNFor(LANG_CODE, matricule, last + 1).forUser());
+                setMessage("Le livre a bien été modifié.");
+                view.refreshAll(ViewName.MODIFY_BOOK_VIEW);
+            }, e -> {
+                if(e instanceof BookAlreadyExistsException) {
+                    setMessage(e.getMessage());
+                } else {
+                    view.setMessage("Le livre n'a pas pu être modifié.", TypeMessage.ERROR);
+                }
+            });
+        } catch (Book.WrongFormattedBookException | ISBN.WrongFormattedISBNException e) {
             setMessage(e.getMessage());
         }
     }
@@ -82,20 +99,15 @@ public class ModifyBookPresenter extends Presenter {
      */
     @Override
     public void onEnter(String fromView) {
-        currentBook = repo.searchBookFor(session.getCurrentIsbn());
         setView(view);
         view.setAuthorName(session.getAuthor());
-        view.setIsbn(currentBook.get(BookFieldName.ISBN));
-        view.setTitle(currentBook.get(BookFieldName.TITLE));
-        view.setImg(currentBook.getImgPath());
-        view.setResume(currentBook.get(BookFieldName.SUMMARY));
-    }
-
-    private int getLastBookNumber() {
-        return Integer.parseInt(repo
-                .getLastIsbn()
-                .replaceAll("-", "")
-                .substring(7, 9));
+        AsyncRepository.whenDone(repo.searchBookFor(session.getCurrentIsbn()), found -> {
+            currentBook = found;
+            view.setIsbn(currentBook.get(BookFieldName.ISBN));
+            view.setTitle(currentBook.get(BookFieldName.TITLE));
+            view.setImg(currentBook.getImgPath());
+            view.setResume(currentBook.get(BookFieldName.SUMMARY));
+        }, e -> view.setMessage("Le livre n'a pas pu être récupéré.", TypeMessage.ERROR));
     }
 
     /**
@@ -3,8 +3,8 @@ package org.helmo.gbeditor.presenter;
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.domains.Page;
 import org.helmo.gbeditor.domains.Session;
-import org.helmo.gbeditor.repositories.exceptions.UnableToSavePageException;
 import org.helmo.gbeditor.presenter.viewmodels.ListChoiceItem;
+import org.helmo.gbeditor.repositories.AsyncRepository;
 import org.helmo.gbeditor.repositories.DataRepository;
 
 import java.util.ArrayList;
@@ -18,7 +18,7 @@ public class ModifyPagePresenter extends Presenter implements PageViewHandler, C
 
     private ModifyPageInterface view;
     private final Session session;
-    private final DataRepository repo;
+    private final AsyncRepository repo;
     private Book currentBook;
     private Page currentPage;
 
@@ -26,9 +26,19 @@ public class ModifyPagePresenter extends Presenter implements PageViewHandler, C
      * Crée un nouveau ModifyPagePresenter avec une session et un DataRepository donné.
      *
      * @param session   Session courante sur laquelle on travaille actuellement.
-     * @param repo      Repository qui permet d'interagir avec la ressource choisie.
+     * @param repo      Repository qui permet d'interagir avec la ressource choisie, utilisé de manière synchrone.
      */
     public ModifyPagePresenter(final Session session, final DataRepository repo) {
+        this(session, AsyncRepository.direct(repo));
+    }
+
+    /**
+     * Crée un nouveau ModifyPagePresenter avec une session et un repository asynchrone donnés.
+     *
+     * @param session   Session courante sur laquelle on travaille actuellement.
+     * @param repo      Repository qui permet d'interagir avec la ressource choisie.
+     */
+    public ModifyPagePresenter(final Session session, final AsyncRepository repo) {
         this.session = session;
         this.repo = repo;
     }
@@ -59,9 +69,9 @@ public class ModifyPagePresenter extends Presenter implements PageViewHandler, C
             if(target != null) {
                 try {
                     currentPage.addChoice(label, target);
-                    repo.save(currentBook);
                     view.setMessage("Le choix a bien été ajouté.", TypeMessage.MESSAGE);
                     refresh();
+                    saveLater("Le choix n'a pas pu être sauvegardé.");
                 } catch (Page.TheTargetPageCannotBeTheSourcePage e) {
                     view.setMessage("La page cible du choix ne peut pas être la même que la page de destination.", TypeMessage.MESSAGE);
                 }
@@ -71,11 +81,26 @@ public class ModifyPagePresenter extends Presenter implements PageViewHandler, C
         }
     }
 
+    /**
+     * Sauvegarde le livre courant en regroupant les modifications rapprochées en une seule écriture.
+     *
+     * @param failureMessage    Message affiché si le livre n'a pas pu être sauvegardé.
+     */
+    private void saveLater(final String failureMessage) {
+        AsyncRepository.whenDone(repo.saveLater(currentBook), saved -> { },
+                e -> view.setMessage(failureMessage, TypeMessage.ERROR));
+    }
+
     @Override
     public void onEnter(String fromView) {
         refresh();
     }
 
+    @Override
+    public void onLeave(final String toView) {
+        repo.flush();
+    }
+
     @Override
     public void onRefresh() {
         refresh();
@@ -118,12 +143,8 @@ public class ModifyPagePresenter extends Presenter implements PageViewHandler, C
 
     @Override
     public void onConfirmedDelete(String content) {
-        try {
-            currentPage.removeChoice(content);
-            repo.save(currentBook);
-            refresh();
-        } catch (UnableToSavePageException e) {
-            view.setMessage("Une erreur est survenue lors de la suppression du choix", TypeMessage.MESSAGE);
-        }
+        currentPage.removeChoice(content);
+        refresh();
+        saveLater("Une erreur est survenue lors de la suppression du choix");
     }
 }
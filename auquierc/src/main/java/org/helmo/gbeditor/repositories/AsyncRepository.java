@@ -0,0 +1,520 @@
+package org.helmo.gbeditor.repositories;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <p>Cette classe donne accès à un {@link DataRepository} sans bloquer le thread de l'interface graphique.</p>
+ * <p>Chaque opération est exécutée sur un exécuteur d'entrées/sorties et renvoie un {@link CompletableFuture}.
+ * Le résultat, ou l'exception lancée par le repository, est ensuite transmis par un second exécuteur,
+ * celui de l'interface graphique (par exemple {@code Platform::runLater}), afin que les presenters puissent
+ * mettre à jour leur vue depuis le bon thread.</p>
+ * <p>Par défaut, les opérations sont exécutées une par une, dans l'ordre où elles ont été demandées, par un seul thread :
+ * les repositories ne peuvent pas être utilisés par plusieurs threads à la fois. Le nombre d'opérations en attente
+ * est limité, une opération demandée alors que la file est pleine échoue avec une {@link RejectedExecutionException}.</p>
+ * <p>Annuler le futur d'une opération qui n'a pas encore commencé évite de l'exécuter, l'annuler plus tard empêche
+ * seulement son résultat d'être transmis.</p>
+ * <p>Les livres ne sont jamais partagés entre les threads : un livre à écrire est copié dans le thread qui demande l'écriture
+ * et c'est cette copie qui est écrite, un livre trouvé par le repository est copié avant d'être transmis. Chaque copie
+ * transmise reste associée au livre du repository dont elle provient, qui est mis à jour avec la copie écrite puis
+ * sauvegardé : le repository retrouve ainsi le livre même si son ISBN a changé. {@link #direct(DataRepository)}
+ * n'utilise qu'un seul thread et ne copie donc pas les livres.</p>
+ * <p>Les sauvegardes demandées par {@link #saveLater(Book)} sont différées pendant une fenêtre de temps : toutes les
+ * sauvegardes d'un même livre demandées pendant cette fenêtre sont regroupées en une seule écriture. Tant qu'elle n'est
+ * pas terminée, {@link #searchBookFor(String)} renvoie une copie de la version en attente plutôt que le livre du repository.</p>
+ */
+public class AsyncRepository implements AutoCloseable {
+    /**
+     * Nombre maximum d'opérations en attente sur l'exécuteur par défaut.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    /**
+     * Fenêtre de temps pendant laquelle les sauvegardes d'un même livre sont regroupées, conseillée pour l'application.
+     */
+    public static final Duration DEFAULT_SAVE_WINDOW = Duration.ofMillis(500);
+
+    private static final String THREAD_NAME = "gbeditor-io";
+    private static final String TIMER_THREAD_NAME = "gbeditor-write-behind";
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final DataRepository repo;
+    private final Executor io;
+    private final Executor ui;
+    private final ExecutorService ownedIo;
+    private final Duration saveWindow;
+    private final ScheduledExecutorService timer;
+    private final Map<String, PendingSave> pendingSaves = new HashMap<>();
+    private final boolean isolated;
+    /**
+     * Livre du repository associé à chaque livre utilisé par l'interface graphique.
+     */
+    private final Map<Book, Book> stored = new IdentityHashMap<>();
+    /**
+     * Livre de l'interface graphique actuellement associé à chaque livre du repository, l'inverse de {@link #stored}.
+     */
+    private final Map<Book, Book> current = new IdentityHashMap<>();
+
+    /**
+     * Crée un nouvel AsyncRepository exécutant les opérations sur son propre thread, avec une file d'attente
+     * de {@link #DEFAULT_QUEUE_CAPACITY} opérations.
+     *
+     * @param repo  Repository utilisé.
+     * @param ui    Exécuteur par lequel les résultats sont transmis.
+     */
+    public AsyncRepository(final DataRepository repo, final Executor ui) {
+        this(repo, ui, Duration.ZERO);
+    }
+
+    /**
+     * Crée un nouvel AsyncRepository exécutant les opérations sur son propre thread, avec une file d'attente
+     * de {@link #DEFAULT_QUEUE_CAPACITY} opérations, et regroupant les sauvegardes différées.
+     *
+     * @param repo          Repository utilisé.
+     * @param ui            Exécuteur par lequel les résultats sont transmis.
+     * @param saveWindow    Fenêtre de temps pendant laquelle les sauvegardes d'un même livre sont regroupées.
+     */
+    public AsyncRepository(final DataRepository repo, final Executor ui, final Duration saveWindow) {
+        this(repo, newIoExecutor(DEFAULT_QUEUE_CAPACITY), ui, saveWindow);
+    }
+
+    /**
+     * Crée un nouvel AsyncRepository à partir des exécuteurs donnés, sans différer les sauvegardes.
+     * Si l'exécuteur d'entrées/sorties est un {@link ExecutorService}, il sera arrêté par {@link #close()}.
+     *
+     * @param repo  Repository utilisé.
+     * @param io    Exécuteur sur lequel les opérations sont exécutées.
+     * @param ui    Exécuteur par lequel les résultats sont transmis.
+     */
+    public AsyncRepository(final DataRepository repo, final Executor io, final Executor ui) {
+        this(repo, io, ui, Duration.ZERO);
+    }
+
+    /**
+     * Crée un nouvel AsyncRepository à partir des exécuteurs donnés.
+     * Si l'exécuteur d'entrées/sorties est un {@link ExecutorService}, il sera arrêté par {@link #close()}.
+     *
+     * @param repo          Repository utilisé.
+     * @param io            Exécuteur sur lequel les opérations sont exécutées.
+     * @param ui            Exécuteur par lequel les résultats sont transmis.
+     * @param saveWindow    Fenêtre de temps pendant laquelle les sauvegardes d'un même livre sont regroupées.
+     *                      Une fenêtre nulle sauvegarde les livres immédiatement.
+     */
+    public AsyncRepository(final DataRepository repo, final Executor io, final Executor ui, final Duration saveWindow) {
+        this(repo, io, ui, saveWindow, true);
+    }
+
+    private AsyncRepository(final DataRepository repo, final Executor io, final Executor ui, final Duration saveWindow,
+                            final boolean isolated) {
+        if(saveWindow.isNegative()) {
+            throw new IllegalArgumentException("La fenêtre de regroupement des sauvegardes ne peut pas être négative.");
+        }
+        this.repo = repo;
+        this.io = io;
+        this.ui = ui;
+        this.ownedIo = io instanceof ExecutorService ? (ExecutorService) io : null;
+        this.saveWindow = saveWindow;
+        this.isolated = isolated;
+        this.timer = saveWindow.isZero() ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            final var thread = new Thread(r, TIMER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Crée un AsyncRepository exécutant chaque opération et transmettant son résultat immédiatement,
+     * dans le thread qui la demande. Les futurs renvoyés sont alors déjà terminés.
+     *
+     * @param repo  Repository utilisé.
+     *
+     * @return      Un AsyncRepository synchrone.
+     */
+    public static AsyncRepository direct(final DataRepository repo) {
+        return new AsyncRepository(repo, Runnable::run, Runnable::run, Duration.ZERO, false);
+    }
+
+    /**
+     * Crée l'exécuteur utilisé par défaut : un seul thread, qui n'empêche pas l'application de s'arrêter,
+     * et une file d'attente d'une capacité donnée.
+     *
+     * @param capacity  Nombre maximum d'opérations en attente.
+     *
+     * @return          L'exécuteur créé.
+     */
+    public static ExecutorService newIoExecutor(final int capacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), r -> {
+            final var thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Récupère le repository utilisé.
+     * Il ne doit être appelé directement que depuis une opération, sans quoi il risque d'être utilisé par deux threads.
+     *
+     * @return  Le repository utilisé.
+     */
+    public DataRepository getRepository() {
+        return repo;
+    }
+
+    /**
+     * Exécute une opération sur le repository.
+     *
+     * @param operation Opération à exécuter.
+     * @param <T>       Type du résultat de l'opération.
+     *
+     * @return          Le futur du résultat de l'opération.
+     */
+    public <T> CompletableFuture<T> call(final Function<DataRepository, T> operation) {
+        final var result = new CompletableFuture<T>();
+        try {
+            io.execute(() -> {
+                if(result.isDone()) {
+                    return;
+                }
+                try {
+                    final var value = operation.apply(repo);
+                    ui.execute(() -> result.complete(value));
+                } catch (Throwable e) {
+                    ui.execute(() -> result.completeExceptionally(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ui.execute(() -> result.completeExceptionally(e));
+        }
+        return result;
+    }
+
+    /**
+     * Exécute une opération sans résultat sur le repository.
+     *
+     * @param operation Opération à exécuter.
+     *
+     * @return          Le futur terminé une fois l'opération exécutée.
+     */
+    public CompletableFuture<Void> run(final Consumer<DataRepository> operation) {
+        return call(r -> {
+            operation.accept(r);
+            return null;
+        });
+    }
+
+    /**
+     * Voir {@link DataRepository#setCurrentAuthor(String)}.
+     *
+     * @param author    Auteur actuellement connecté.
+     *
+     * @return          Le futur terminé une fois l'auteur défini.
+     */
+    public CompletableFuture<Void> setCurrentAuthor(final String author) {
+        return run(r -> r.setCurrentAuthor(author));
+    }
+
+    /**
+     * Voir {@link DataRepository#add(Book...)}.
+     *
+     * @param books     Le ou les livre(s) à ajouter.
+     *
+     * @return          Le futur terminé une fois les livres ajoutés.
+     */
+    public CompletableFuture<Void> add(final Book... books) {
+        final var snapshots = new Book[books.length];
+        for(int i = 0; i < books.length; i++) {
+            snapshots[i] = snapshotOf(books[i]);
+        }
+        return run(r -> {
+            final var added = new Book[books.length];
+            for(int i = 0; i < books.length; i++) {
+                added[i] = storedFor(books[i], snapshots[i]);
+            }
+            r.add(added);
+        });
+    }
+
+    /**
+     * Voir {@link DataRepository#save(Book)}.
+     *
+     * @param book  Livre à sauvegarder.
+     *
+     * @return      Le futur terminé une fois le livre sauvegardé.
+     */
+    public CompletableFuture<Void> save(final Book book) {
+        final var snapshot = snapshotOf(book);
+        return run(r -> r.save(storedFor(book, snapshot)));
+    }
+
+    /**
+     * Copie un livre avant de l'écrire, depuis le thread qui demande l'écriture.
+     */
+    private Book snapshotOf(final Book book) {
+        return isolated && book != null ? book.copy() : book;
+    }
+
+    /**
+     * Récupère le livre du repository à écrire pour un livre de l'interface graphique, depuis le thread d'entrées/sorties.
+     * S'il existe, il prend l'état de la copie à écrire. Sinon, la copie devient le livre du repository.
+     */
+    private Book storedFor(final Book book, final Book snapshot) {
+        if(!isolated || book == null) {
+            return snapshot;
+        }
+        synchronized(stored) {
+            final var found = stored.get(book);
+            if(found == null) {
+                stored.put(book, snapshot);
+                current.put(snapshot, book);
+                return snapshot;
+            }
+            found.restore(snapshot);
+            return found;
+        }
+    }
+
+    private Book originOf(final Book book) {
+        synchronized(stored) {
+            return stored.get(book);
+        }
+    }
+
+    /**
+     * Copie un livre avant de le transmettre à l'interface graphique, depuis le thread d'entrées/sorties.
+     * La copie est associée au livre du repository, à la place des copies transmises avant elle.
+     *
+     * @param source    Livre dont l'état est transmis.
+     * @param origin    Livre du repository dont il provient ou null s'il n'est pas connu.
+     */
+    private Book handOut(final Book source, final Book origin) {
+        if(!isolated || source == null) {
+            return source;
+        }
+        final var result = source.copy();
+        if(origin != null) {
+            synchronized(stored) {
+                final var previous = current.put(origin, result);
+                if(previous != null) {
+                    stored.remove(previous);
+                }
+                stored.put(result, origin);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sauvegarde un livre à la fin de la fenêtre de regroupement des sauvegardes.
+     * Les sauvegardes du même livre demandées d'ici là n'entraînent pas d'écriture supplémentaire :
+     * elles reçoivent le même futur et seule la dernière version du livre est écrite.
+     * Le livre est copié immédiatement, c'est l'état qu'il a au moment de la demande qui sera écrit.
+     *
+     * @param book  Livre à sauvegarder.
+     *
+     * @return      Le futur terminé une fois le livre écrit.
+     */
+    public CompletableFuture<Void> saveLater(final Book book) {
+        if(timer == null) {
+            return save(book);
+        }
+        final var isbn = book.get(BookFieldName.ISBN);
+        final var snapshot = snapshotOf(book);
+        synchronized(pendingSaves) {
+            final var found = pendingSaves.get(isbn);
+            if(found != null && !found.writing) {
+                found.snapshot = snapshot;
+                return found.result;
+            }
+            final var added = new PendingSave(isbn, book, snapshot);
+            pendingSaves.put(isbn, added);
+            added.task = timer.schedule(() -> write(added), saveWindow.toMillis(), TimeUnit.MILLISECONDS);
+            return added.result;
+        }
+    }
+
+    /**
+     * Écrit immédiatement toutes les sauvegardes différées.
+     * Les opérations demandées ensuite sont exécutées après ces écritures.
+     *
+     * @return  Le futur terminé une fois toutes les sauvegardes différées écrites.
+     */
+    public CompletableFuture<Void> flush() {
+        final List<PendingSave> saves;
+        synchronized(pendingSaves) {
+            saves = new ArrayList<>(pendingSaves.values());
+        }
+        final var results = new CompletableFuture<?>[saves.size()];
+        for(int i = 0; i < results.length; i++) {
+            write(saves.get(i));
+            results[i] = saves.get(i).result;
+        }
+        return CompletableFuture.allOf(results);
+    }
+
+    /**
+     * Demande l'écriture d'une sauvegarde différée, si elle n'a pas encore été demandée.
+     * La sauvegarde reste visible par {@link #searchBookFor(String)} jusqu'à ce que son écriture soit terminée.
+     */
+    private void write(final PendingSave save) {
+        synchronized(pendingSaves) {
+            if(save.writing) {
+                return;
+            }
+            save.writing = true;
+            save.task.cancel(false);
+        }
+        run(r -> r.save(storedFor(save.book, save.snapshot))).whenComplete((v, failure) -> {
+            synchronized(pendingSaves) {
+                pendingSaves.remove(save.isbn, save);
+            }
+            if(failure == null) {
+                save.result.complete(null);
+            } else {
+                save.result.completeExceptionally(failure);
+            }
+        });
+    }
+
+    /**
+     * Voir {@link DataRepository#getBooksPage(String, int)}.
+     *
+     * @param cursor    Curseur renvoyé avec la page précédente ou null pour la première page.
+     * @param limit     Nombre maximum de livres de la page.
+     *
+     * @return          Le futur de la page de livres.
+     */
+    public CompletableFuture<BooksPage> getBooksPage(final String cursor, final int limit) {
+        return call(r -> r.getBooksPage(cursor, limit));
+    }
+
+    /**
+     * Voir {@link DataRepository#searchBookFor(String)}.
+     *
+     * @param isbn  ISBN du livre recherché.
+     *
+     * @return      Le futur du livre trouvé, null s'il n'existe pas.
+     */
+    public CompletableFuture<Book> searchBookFor(final String isbn) {
+        return call(r -> {
+            synchronized(pendingSaves) {
+                final var pending = pendingSaves.get(isbn);
+                if(pending != null) {
+                    return handOut(pending.snapshot, originOf(pending.book));
+                }
+            }
+            final var found = r.searchBookFor(isbn);
+            return handOut(found, found);
+        });
+    }
+
+    /**
+     * Voir {@link DataRepository#getLastBookNumber(String)}.
+     *
+     * @param matricule Matricule de l'auteur.
+     *
+     * @return          Le futur du numéro du dernier livre de l'auteur.
+     */
+    public CompletableFuture<Integer> getLastBookNumber(final String matricule) {
+        return call(r -> r.getLastBookNumber(matricule));
+    }
+
+    /**
+     * Voir {@link DataRepository#allocateBookNumber(String)}.
+     *
+     * @param matricule Matricule de l'auteur.
+     *
+     * @return          Le futur du numéro attribué.
+     */
+    public CompletableFuture<Integer> allocateBookNumber(final String matricule) {
+        return call(r -> r.allocateBookNumber(matricule));
+    }
+
+    /**
+     * Réagit à la fin d'une opération, depuis le thread qui la termine.
+     * Une opération annulée est ignorée et l'exception reçue en cas d'échec est celle lancée par le repository.
+     *
+     * @param future    Futur de l'opération.
+     * @param onSuccess Action réalisée avec le résultat de l'opération.
+     * @param onFailure Action réalisée avec l'exception ayant fait échouer l'opération.
+     * @param <T>       Type du résultat de l'opération.
+     */
+    public static <T> void whenDone(final CompletableFuture<T> future, final Consumer<T> onSuccess, final Consumer<Throwable> onFailure) {
+        future.whenComplete((value, failure) -> {
+            if(failure == null) {
+                onSuccess.accept(value);
+            } else {
+                final var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                if(!(cause instanceof CancellationException)) {
+                    onFailure.accept(cause);
+                }
+            }
+        });
+    }
+
+    /**
+     * Écrit les sauvegardes différées puis arrête l'exécuteur d'entrées/sorties s'il appartient à cet AsyncRepository.
+     * Les opérations déjà demandées sont encore exécutées, pendant {@value #CLOSE_TIMEOUT_SECONDS} secondes au plus,
+     * les suivantes échouent.
+     * Le repository utilisé est ensuite fermé.
+     */
+    @Override
+    public void close() {
+        flush();
+        if(timer != null) {
+            timer.shutdownNow();
+        }
+        if(ownedIo != null) {
+            ownedIo.shutdown();
+            try {
+                ownedIo.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        DataRepository.closeIfNeeded(repo);
+    }
+
+    /**
+     * Représente la sauvegarde différée d'un livre.
+     */
+    private static final class PendingSave {
+        private final String isbn;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        /**
+         * Livre de l'interface graphique dont la sauvegarde a été demandée en premier.
+         */
+        private final Book book;
+        /**
+         * Copie du livre lors de la dernière demande, seule version écrite.
+         */
+        private Book snapshot;
+        private ScheduledFuture<?> task;
+        private boolean writing;
+
+        private PendingSave(final String isbn, final Book book, final Book snapshot) {
+            this.isbn = isbn;
+            this.book = book;
+            this.snapshot = snapshot;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package org.helmo.gbeditor.repositories;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.domains.Page;
+import org.helmo.gbeditor.domains.factory.BookFactory;
+import org.helmo.gbeditor.domains.factory.ISBNFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * <p>Cette classe génère un ensemble de livres-jeux réalistes afin de tester l'application avec beaucoup de données.</p>
+ * <p>Chaque auteur a son propre matricule et chaque livre a un ISBN valide calculé par {@link ISBNFactory}.
+ * Les pages d'un livre forment un arbre partant de la première page, ce qui rend toutes les pages atteignables,
+ * auquel sont ajoutés des choix vers d'autres pages, souvent proches mais parfois en arrière. Les pages sans choix
+ * sont les fins du livre.</p>
+ * <p>Un livre ne dépend que de la graine, de son auteur, de son numéro et de la configuration :
+ * deux générateurs configurés de la même manière créent exactement les mêmes livres.</p>
+ */
+public final class BookCorpusGenerator {
+    /**
+     * Nombre maximum de livres par auteur, le numéro d'un livre dans un ISBN est écrit avec deux chiffres.
+     */
+    public static final int MAX_BOOKS_BY_AUTHOR = 99;
+
+    private static final int LANG_CODE = 2;
+    private static final int FIRST_MATRICULE = 100000;
+    private static final int MAX_AUTHORS = 900000;
+    /**
+     * Nombre de pages précédentes parmi lesquelles est choisie la page menant à une nouvelle page.
+     */
+    private static final int WINDOW = 20;
+    /**
+     * Probabilité, en pourcent, qu'un choix supplémentaire mène à une page proche plutôt qu'à n'importe quelle page.
+     */
+    private static final int NEAR_TARGET_PERCENT = 80;
+
+    private static final String[] FIRST_NAMES = {
+            "Camille", "Louis", "Emma", "Jules", "Léa", "Hugo", "Chloé", "Arthur", "Manon", "Lucas",
+            "Sarah", "Nathan", "Inès", "Gabriel", "Zoé", "Théo"
+    };
+    private static final String[] LAST_NAMES = {
+            "Dubois", "Lambert", "Martin", "Peeters", "Janssens", "Lefèvre", "Mertens", "Dupont", "Claes", "Willems",
+            "Renard", "Maes", "Jacobs", "Simon", "Laurent", "Leroy"
+    };
+    private static final String[] TITLE_WORDS = {
+            "La forêt", "Le donjon", "La cité", "Le labyrinthe", "L'île", "La tour", "Le temple", "La citadelle"
+    };
+    private static final String[] TITLE_COMPLEMENTS = {
+            "des ombres", "oubliée", "du dragon", "de cristal", "maudite", "des brumes", "du sorcier", "engloutie"
+    };
+    private static final String[] SENTENCES = {
+            "Un long couloir s'étend devant vous.",
+            "Vous entendez des pas derrière la porte.",
+            "Une odeur de soufre flotte dans l'air.",
+            "Le sol tremble sous vos pieds.",
+            "Un vieil homme vous observe sans rien dire.",
+            "La torche que vous tenez faiblit.",
+            "Un coffre poussiéreux est posé contre le mur.",
+            "Au loin, une cloche sonne trois coups.",
+            "Le pont de corde oscille au-dessus du vide.",
+            "Une inscription à demi effacée couvre la pierre."
+    };
+    private static final String[] ACTIONS = {
+            "Ouvrir la porte", "Rebrousser chemin", "Combattre", "Fuir", "Parler à l'inconnu", "Fouiller la pièce",
+            "Prendre à gauche", "Prendre à droite", "Descendre l'escalier", "Monter à la tour", "Attendre",
+            "Suivre le bruit"
+    };
+
+    private final long seed;
+    private int authors = 1;
+    private int booksByAuthor = 1;
+    private int minPages = 100;
+    private int maxPages = 100;
+    private int branching = 3;
+
+    /**
+     * Crée un nouveau générateur utilisant une graine donnée.
+     * Par défaut, il génère un seul livre de 100 pages dont les pages ont au plus 3 choix.
+     *
+     * @param seed  Graine des nombres aléatoires.
+     */
+    public BookCorpusGenerator(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Définit le nombre d'auteurs ayant écrit les livres générés.
+     *
+     * @param authors   Nombre d'auteurs, d'au moins 1.
+     *
+     * @return          Ce générateur.
+     *
+     * @throws IllegalArgumentException Si le nombre d'auteurs n'est pas valide.
+     */
+    public BookCorpusGenerator authors(final int authors) {
+        if(authors < 1 || authors > MAX_AUTHORS) {
+            throw new IllegalArgumentException("Le nombre d'auteurs doit être compris entre 1 et " + MAX_AUTHORS + ".");
+        }
+        this.authors = authors;
+        return this;
+    }
+
+    /**
+     * Définit le nombre de livres générés pour chaque auteur.
+     *
+     * @param booksByAuthor Nombre de livres par auteur, de 1 à {@link #MAX_BOOKS_BY_AUTHOR}.
+     *
+     * @return              Ce générateur.
+     *
+     * @throws IllegalArgumentException Si le nombre de livres n'est pas valide.
+     */
+    public BookCorpusGenerator booksByAuthor(final int booksByAuthor) {
+        if(booksByAuthor < 1 || booksByAuthor > MAX_BOOKS_BY_AUTHOR) {
+            throw new IllegalArgumentException("Le nombre de livres par auteur doit être compris entre 1 et " + MAX_BOOKS_BY_AUTHOR + ".");
+        }
+        this.booksByAuthor = booksByAuthor;
+        return this;
+    }
+
+    /**
+     * Définit le nombre de pages des livres générés, tiré au hasard pour chaque livre entre deux bornes.
+     *
+     * @param min   Nombre minimum de pages, d'au moins 1.
+     * @param max   Nombre maximum de pages.
+     *
+     * @return      Ce générateur.
+     *
+     * @throws IllegalArgumentException Si les bornes ne sont pas valides.
+     */
+    public BookCorpusGenerator pages(final int min, final int max) {
+        if(min < 1 || max < min) {
+            throw new IllegalArgumentException("Le nombre de pages doit être d'au moins 1 et le minimum ne peut pas dépasser le maximum.");
+        }
+        this.minPages = min;
+        this.maxPages = max;
+        return this;
+    }
+
+    /**
+     * Définit le nombre maximum de choix d'une page.
+     *
+     * @param branching Nombre maximum de choix d'une page, d'au moins 1.
+     *
+     * @return          Ce générateur.
+     *
+     * @throws IllegalArgumentException Si le nombre de choix n'est pas valide.
+     */
+    public BookCorpusGenerator branching(final int branching) {
+        if(branching < 1) {
+            throw new IllegalArgumentException("Une page doit pouvoir avoir au moins un choix.");
+        }
+        this.branching = branching;
+        return this;
+    }
+
+    /**
+     * Récupère le nombre d'auteurs des livres générés.
+     *
+     * @return  Le nombre d'auteurs.
+     */
+    public int getAuthors() {
+        return authors;
+    }
+
+    /**
+     * Récupère le nombre de livres générés pour chaque auteur.
+     *
+     * @return  Le nombre de livres par auteur.
+     */
+    public int getBooksByAuthor() {
+        return booksByAuthor;
+    }
+
+    /**
+     * Récupère le matricule d'un auteur.
+     *
+     * @param author    Numéro de l'auteur, à partir de 0.
+     *
+     * @return          Le matricule à 6 chiffres de l'auteur.
+     */
+    public String matriculeOf(final int author) {
+        return String.valueOf(FIRST_MATRICULE + author);
+    }
+
+    /**
+     * Récupère le nom d'un auteur.
+     *
+     * @param author    Numéro de l'auteur, à partir de 0.
+     *
+     * @return          Le nom de l'auteur, différent pour chaque numéro.
+     */
+    public String authorNameOf(final int author) {
+        final var combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        final var name = FIRST_NAMES[author % FIRST_NAMES.length] + " " + LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length];
+        return author < combinations ? name : name + " " + (author / combinations + 1);
+    }
+
+    /**
+     * Génère un livre d'un auteur.
+     *
+     * @param author    Numéro de l'auteur, à partir de 0.
+     * @param nBook     Numéro du livre, de 1 à {@link #MAX_BOOKS_BY_AUTHOR}.
+     *
+     * @return          Le livre généré.
+     */
+    public Book generate(final int author, final int nBook) {
+        final var random = new Random(seed * 31 + (long) author * (MAX_BOOKS_BY_AUTHOR + 1) + nBook);
+        final var matricule = matriculeOf(author);
+        final var isbn = ISBNFactory.computeISBNFor(LANG_CODE, matricule, nBook).forUser();
+        final var title = pick(random, TITLE_WORDS) + " " + pick(random, TITLE_COMPLEMENTS);
+        final var summary = pick(random, SENTENCES) + " " + pick(random, SENTENCES);
+        final var book = BookFactory.of(new BookMetadata(title, isbn, summary, authorNameOf(author)), matricule);
+        final var pages = createPages(random, minPages + random.nextInt(maxPages - minPages + 1));
+        for(final var p : pages) {
+            book.addEnd(p);
+        }
+        return book;
+    }
+
+    /**
+     * Génère tous les livres d'un auteur.
+     *
+     * @param author    Numéro de l'auteur, à partir de 0.
+     *
+     * @return          Les livres de l'auteur, par numéro croissant.
+     */
+    public List<Book> generateFor(final int author) {
+        final List<Book> result = new ArrayList<>(booksByAuthor);
+        for(int nBook = 1; nBook <= booksByAuthor; nBook++) {
+            result.add(generate(author, nBook));
+        }
+        return result;
+    }
+
+    /**
+     * Génère tous les livres et les ajoute à un repository, un auteur à la fois afin de ne jamais garder
+     * plus que les livres d'un seul auteur en mémoire.
+     *
+     * @param repo  Repository dans lequel les livres sont ajoutés.
+     *
+     * @return      Le nombre de livres ajoutés.
+     */
+    public int writeTo(final DataRepository repo) {
+        var count = 0;
+        for(int author = 0; author < authors; author++) {
+            final var books = generateFor(author);
+            repo.setCurrentAuthor(authorNameOf(author));
+            repo.add(books.toArray(new Book[0]));
+            count += books.size();
+        }
+        return count;
+    }
+
+    /**
+     * Crée les pages d'un livre et leurs choix.
+     * Chaque nouvelle page est d'abord reliée à une page précédente proche ayant encore de la place pour un choix,
+     * puis chaque page qui n'est pas une fin reçoit des choix supplémentaires jusqu'à un nombre tiré au hasard.
+     */
+    private Page[] createPages(final Random random, final int count) {
+        final var pages = new Page[count];
+        for(int i = 0; i < count; i++) {
+            pages[i] = new Page("Page " + (i + 1) + ". " + pick(random, SENTENCES) + " " + pick(random, SENTENCES));
+        }
+        final var labels = new ArrayList<Set<String>>(count);
+        for(int i = 0; i < count; i++) {
+            labels.add(new HashSet<>());
+        }
+        for(int i = 1; i < count; i++) {
+            var parent = i - 1 - random.nextInt(Math.min(i, WINDOW));
+            if(labels.get(parent).size() >= branching) {
+                parent = i - 1;
+            }
+            link(random, pages, labels, parent, i);
+        }
+        for(int i = 0; i < count; i++) {
+            if(labels.get(i).isEmpty()) {
+                continue;
+            }
+            final var wanted = 1 + random.nextInt(branching);
+            for(int attempt = 0; labels.get(i).size() < wanted && attempt < branching * 2; attempt++) {
+                final var target = random.nextInt(100) < NEAR_TARGET_PERCENT
+                        ? Math.min(count - 1, i + 1 + random.nextInt(WINDOW))
+                        : random.nextInt(count);
+                if(target != i) {
+                    link(random, pages, labels, i, target);
+                }
+            }
+        }
+        return pages;
+    }
+
+    private static void link(final Random random, final Page[] pages, final List<Set<String>> labels, final int from, final int to) {
+        final var used = labels.get(from);
+        var label = pick(random, ACTIONS);
+        if(used.contains(label)) {
+            label = label + " (" + (to + 1) + ")";
+        }
+        if(used.add(label)) {
+            pages[from].addChoice(label, pages[to]);
+        }
+    }
+
+    private static String pick(final Random random, final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,76 @@
+package org.helmo.gbeditor.repositories;
+
+import java.util.Objects;
+
+/**
+ * Cette classe contient le résumé d'un livre, c'est-à-dire les seules informations nécessaires pour l'afficher dans une liste :
+ * son titre, son ISBN, son auteur, le chemin d'accès de son image de couverture et sa date de publication.
+ */
+public class BookSummary {
+    private final String title;
+    private final String isbn;
+    private final String author;
+    private final String imgPath;
+    private final String publishDate;
+
+    /**
+     * Crée un nouveau BookSummary.
+     *
+     * @param title         Titre du livre.
+     * @param isbn          ISBN du livre tel qu'il est affiché à l'utilisateur.
+     * @param author        Auteur du livre.
+     * @param imgPath       Chemin d'accès de l'image de couverture du livre.
+     * @param publishDate   Date de publication du livre ou null s'il n'est pas publié.
+     */
+    public BookSummary(final String title, final String isbn, final String author, final String imgPath, final String publishDate) {
+        this.title = title;
+        this.isbn = isbn;
+        this.author = author;
+        this.imgPath = imgPath;
+        this.publishDate = publishDate;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getImgPath() {
+        return imgPath;
+    }
+
+    public String getPublishDate() {
+        return publishDate;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) { return true; }
+        if (o == null || getClass() != o.getClass()) { return false; }
+        BookSummary that = (BookSummary) o;
+        return Objects.equals(title, that.title) && Objects.equals(isbn, that.isbn)
+                && Objects.equals(author, that.author) && Objects.equals(imgPath, that.imgPath)
+                && Objects.equals(publishDate, that.publishDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(title, isbn, author, imgPath, publishDate);
+    }
+
+    @Override
+    public String toString() {
+        return "BookSummary{" +
+                "title='" + title + '\'' +
+                ", isbn='" + isbn + '\'' +
+                ", author='" + author + '\'' +
+                '}';
+    }
+}
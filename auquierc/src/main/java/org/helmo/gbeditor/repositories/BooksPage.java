@@ -0,0 +1,52 @@
+package org.helmo.gbeditor.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cette classe représente une page de résumés de livres ainsi que le curseur permettant de récupérer la page suivante.
+ */
+public class BooksPage {
+    private final List<BookSummary> books;
+    private final String nextCursor;
+
+    /**
+     * Crée une nouvelle BooksPage.
+     *
+     * @param books         Résumés des livres de la page.
+     * @param nextCursor    Curseur de la page suivante ou null s'il s'agit de la dernière page.
+     */
+    public BooksPage(final List<BookSummary> books, final String nextCursor) {
+        this.books = Collections.unmodifiableList(new ArrayList<>(books));
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BookSummary> getBooks() {
+        return books;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Détermine s'il existe une page après celle-ci.
+     *
+     * @return  True s'il existe une page suivante.
+     *          False sinon.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Détermine si la page ne contient aucun livre.
+     *
+     * @return  True si la page est vide.
+     *          False sinon.
+     */
+    public boolean isEmpty() {
+        return books.isEmpty();
+    }
+}
@@ -2,6 +2,7 @@ package org.helmo.gbeditor.repositories;
 
 import org.helmo.gbeditor.domains.Book;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 
 import java.util.List;
 
@@ -55,6 +56,17 @@ public interface DataRepository {
      */
     List<Book> getBooks();
 
+    /**
+     * Récupère une page des résumés des livres de l'auteur courant.
+     * Les livres sont parcourus à partir du curseur donné, sans relire ceux des pages précédentes.
+     *
+     * @param cursor    Curseur renvoyé avec la page précédente, null pour récupérer la première page.
+     * @param limit     Nombre maximum de livres de la page.
+     *
+     * @return          Une page contenant au plus limit résumés de livres.
+     */
+    BooksPage getBooksPage(final String cursor, final int limit);
+
     /**
      * Récupère et stocke les livres de l'auteur courant.
      */
@@ -67,6 +79,25 @@ public interface DataRepository {
      */
     String getLastIsbn();
 
+    /**
+     * Récupère le numéro du dernier livre attribué à un auteur, sans parcourir les livres des autres auteurs.
+     *
+     * @param matricule Matricule de l'auteur, sans sa lettre.
+     *
+     * @return          Le numéro du dernier livre attribué à l'auteur ou 0 s'il n'en a encore aucun.
+     */
+    int getLastBookNumber(final String matricule);
+
+    /**
+     * Attribue de manière atomique le numéro du prochain livre d'un auteur.
+     * Un même numéro n'est jamais attribué deux fois au même auteur, même lors d'appels simultanés.
+     *
+     * @param matricule Matricule de l'auteur, sans sa lettre.
+     *
+     * @return          Le numéro attribué.
+     */
+    int allocateBookNumber(final String matricule);
+
     /**
      * Récupère le livre ayant pour ISBN celui donnée.
      *
@@ -76,4 +107,24 @@ public interface DataRepository {
      *              Un livre si il y en a un ayant pour ISBN celui donné.
      */
     Book searchBookFor(final String isbn);
+
+    /**
+     * Libère les ressources (connexions, fichiers, threads...) d'un repository donné s'il en utilise.
+     *
+     * @param repo  Repository à fermer.
+     *
+     * @throws DataManipulationException Si les ressources du repository n'ont pas pu être libérées.
+     */
+    static void closeIfNeeded(final DataRepository repo) {
+        if(!(repo instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) repo).close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new DataManipulationException("Les ressources du repository n'ont pas pu être libérées.", e);
+        }
+    }
 }
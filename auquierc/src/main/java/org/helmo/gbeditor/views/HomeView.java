@@ -1,7 +1,9 @@
 package org.helmo.gbeditor.views;
 
 import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
@@ -137,6 +139,17 @@ public class HomeView extends View implements HomeInterface {
         presenter.onEnter(fromView);
     }
 
+    @Override
+    public void askPublishConfirmation(final String isbn, final String warning) {
+        final var confirmPublish = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmPublish.setTitle("Confirmation");
+        confirmPublish.setHeaderText("Publication du livre");
+        confirmPublish.setContentText(warning + " Voulez-vous vraiment publier ce livre ?");
+        if(confirmPublish.showAndWait().filter(ButtonType.OK::equals).isPresent()) {
+            presenter.onConfirmedPublish(isbn);
+        }
+    }
+
     @Override
     public void refresh() {
         presenter.onRefresh();
@@ -17,6 +17,7 @@ import java.util.Map;
 public class MainWindow extends Scene {
     private final Map<String, View> views = new HashMap<>();
     private View currentView;
+    private View currentPopUp;
     private final Pane mainView = new Pane(new Pane());
     private final Pane sndView = new Pane(new Pane());
 
@@ -45,7 +46,10 @@ public class MainWindow extends Scene {
     private void setSndView(final String viewName) {
         var found = foundView(viewName);
         found.onEnter(viewName);
-        sndView.getChildren().set(0, found);
+        if(currentPopUp != null && currentPopUp != found) {
+            currentPopUp.onLeave(found.getTitle());
+        }
+        sndView.getChildren().set(0, currentPopUp = found);
    }
 
     /**
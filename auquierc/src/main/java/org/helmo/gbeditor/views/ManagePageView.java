@@ -46,6 +46,11 @@ public class ManagePageView extends View implements ManagePageInterface {
         presenter.onEnter(fromView);
     }
 
+    @Override
+    public void onLeave(String fromView) {
+        presenter.onLeave(fromView);
+    }
+
     @Override
     public void addPage(final int numPage, final String content, final int nPageBranchment) {
         allPages.getChildren().add(new ListItemPageView(numPage, content, nPageBranchment, presenter));
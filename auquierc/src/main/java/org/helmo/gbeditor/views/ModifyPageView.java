@@ -80,6 +80,11 @@ public class ModifyPageView extends View implements ModifyPageInterface {
         presenter.onEnter(fromView);
     }
 
+    @Override
+    public void onLeave(String fromView) {
+        presenter.onLeave(fromView);
+    }
+
     @Override
     public void setPageContent(String content) {
 
@@ -0,0 +1,77 @@
+package org.helmo.gbeditor.domains;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookAnalyzerTests {
+    private Book book;
+    private Page p1;
+    private Page p2;
+    private Page p3;
+    private Page p4;
+    private Page p5;
+
+    @BeforeEach
+    void setUp() {
+        book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        p1 = new Page("Page 1");
+        p2 = new Page("Page 2");
+        p3 = new Page("Page 3");
+        p4 = new Page("Page 4");
+        p5 = new Page("Page 5");
+        for(final var p : List.of(p1, p2, p3, p4, p5)) {
+            book.addEnd(p);
+        }
+        p1.addChoice("Vers 2", p2);
+        p2.addChoice("Vers 3", p3);
+        p3.addChoice("Retour à 2", p2);
+        p3.addChoice("Vers 4", p4);
+        p5.addChoice("Vers 4", p4);
+    }
+
+    @Test
+    void whenBookIsAnalysedThenEveryProblemIsReported() {
+        final var analysis = book.analyze();
+        assertEquals(List.of(p5), analysis.getUnreachablePages());
+        assertEquals(List.of(p4), analysis.getDeadEnds());
+        assertEquals(1, analysis.getCycles().size());
+        assertTrue(analysis.getCycles().get(0).containsAll(List.of(p2, p3)));
+        assertEquals(2, analysis.getLongestPath());
+        assertFalse(analysis.isFullyReachable());
+    }
+
+    @Test
+    void whenNothingChangesThenAnalysisIsReusedAndWhenAChoiceChangesThenItIsRecomputed() {
+        final var first = book.analyze();
+        assertSame(first, book.analyze());
+        p4.addChoice("Vers 5", p5);
+        final var second = book.analyze();
+        assertNotSame(first, second);
+        assertTrue(second.isFullyReachable());
+        assertTrue(second.getDeadEnds().isEmpty());
+        assertEquals(2, second.getCycles().size());
+    }
+
+    @Test
+    void whenBookIsAVeryLongChainThenItIsAnalysedWithoutRecursion() {
+        final var chain = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        Page previous = null;
+        for(int i = 0; i < 10_000; i++) {
+            final var page = new Page("Page " + i);
+            chain.addEnd(page);
+            if(previous != null) {
+                previous.addChoice("Suivante", page);
+            }
+            previous = page;
+        }
+        final var analysis = chain.analyze();
+        assertEquals(9_999, analysis.getLongestPath());
+        assertTrue(analysis.isFullyReachable());
+        assertTrue(analysis.getCycles().isEmpty());
+        assertEquals(List.of(previous), analysis.getDeadEnds());
+    }
+}
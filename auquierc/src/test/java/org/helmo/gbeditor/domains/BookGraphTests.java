@@ -0,0 +1,62 @@
+package org.helmo.gbeditor.domains;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookGraphTests {
+    private Book book;
+    private Page p1;
+    private Page p2;
+    private Page p3;
+
+    @BeforeEach
+    void setUp() {
+        book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        p1 = new Page("Page 1");
+        p2 = new Page("Page 2");
+        p3 = new Page("Page 3");
+        book.addEnd(p1);
+        book.addEnd(p2);
+        book.addEnd(p3);
+        p1.addChoice("Suivante", p2);
+        p1.addChoice("Fin", p3);
+        p2.addChoice("Suivante", p3);
+    }
+
+    @Test
+    void whenGraphIsBuiltThenChoicesArePackedByPageAndLabelsAreShared() {
+        final var graph = book.toGraph();
+        assertEquals(3, graph.size());
+        assertEquals(3, graph.choicesCount());
+        assertEquals(2, graph.labelsCount());
+        assertEquals(2, graph.choicesEnd(0) - graph.choicesStart(0));
+        assertEquals(1, graph.choicesEnd(1) - graph.choicesStart(1));
+        assertEquals(graph.choicesEnd(2), graph.choicesStart(2));
+        final var choice = graph.choicesStart(1);
+        assertEquals("Suivante", graph.labelOf(choice));
+        assertSame(p3, graph.getPage(graph.targetOf(choice)));
+        assertEquals(2, graph.inDegree(2));
+        assertEquals(0, graph.inDegree(0));
+    }
+
+    @Test
+    void whenBookDoesNotChangeThenGraphIsReusedAndWhenAChoiceChangesThenItIsRebuilt() {
+        final var graph = book.toGraph();
+        assertSame(graph, book.toGraph());
+        p3.addChoice("Recommencer", p1);
+        assertNotSame(graph, book.toGraph());
+        assertEquals(1, book.toGraph().inDegree(0));
+    }
+
+    @Test
+    void whenAChoiceLeadsOutsideTheBookThenItsTargetIsNumberedAfterTheBookPages() {
+        final var outside = new Page("Hors du livre");
+        p3.addChoice("Ailleurs", outside);
+        final var graph = book.toGraph();
+        final var target = graph.targetOf(graph.choicesStart(2));
+        assertFalse(graph.isInBook(target));
+        assertSame(outside, graph.getPage(target));
+    }
+}
@@ -348,4 +348,102 @@ public class BookTests {
         book.publish();
         assertThrows(Book.BookAlreadyPublishedException.class, () -> book.publish());
     }
+
+    @Test
+    void whenPagesAreInsertedInTheMiddleThenEveryPageKnowsItsNumber() {
+        final List<Page> expected = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            final var page = new Page("Page " + i);
+            book.addEnd(page);
+            expected.add(page);
+        }
+        final var inserted = new Page("Insérée");
+        book.addAfter(inserted, book.getPageFor("page 499"));
+        expected.add(500, inserted);
+        final var first = new Page("Première");
+        book.addBegin(first);
+        expected.add(0, first);
+        book.removePage(book.getPageFor("Page 10"));
+        expected.remove(11);
+        for(int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, book.getNForPage(expected.get(i)));
+        }
+        assertEquals(0, book.getNForPage(new Page("Page 10")));
+    }
+
+    @Test
+    void whenPageContentChangesThenItIsFoundWithItsNewContent() {
+        final var page = new Page("Ancien contenu");
+        book.addEnd(new Page("Autre"));
+        book.addEnd(page);
+        page.setContent("Nouveau contenu");
+        assertNull(book.getPageFor("ancien contenu"));
+        assertSame(page, book.getPageFor("NOUVEAU CONTENU"));
+        assertEquals(2, book.getNForPage(page));
+    }
+
+    @Test
+    void whenPageIsRenamedWithTheContentOfAnotherPageThenRenameIsRejected() {
+        final var page = new Page("Ancien contenu");
+        final var other = new Page("Autre");
+        book.addEnd(other);
+        book.addEnd(page);
+        assertThrows(Page.ContentAlreadyUsedException.class, () -> page.setContent("AUTRE"));
+        assertEquals("Ancien contenu", page.getContent());
+        assertSame(page, book.getPageFor("Ancien contenu"));
+        assertSame(other, book.getPageFor("autre"));
+        page.setContent("ANCIEN CONTENU");
+        assertSame(page, book.getPageFor("ancien contenu"));
+    }
+
+    @Test
+    void whenPageWithSameContentIgnoringCaseIsAddedThenItIsIgnored() {
+        book.addEnd(new Page("Contenu"));
+        book.addBegin(new Page("CONTENU"));
+        book.addAfter(new Page("contenu"), book.getPageFor("Contenu"));
+        var count = 0;
+        for(final var ignored : book) {
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    void whenChoicesChangeThenPagesLeadingToAPageAreKeptUpToDate() {
+        final var p1 = new Page("Page 1");
+        final var p2 = new Page("Page 2");
+        final var p3 = new Page("Page 3");
+        p1.addChoice("Vers 3", p3);
+        book.addEnd(p1);
+        book.addEnd(p2);
+        book.addEnd(p3);
+        p2.addChoice("Aussi vers 3", p3);
+        p2.addChoice("Encore vers 3", p3);
+        assertEquals(3, book.getPageBranchment(new Page("page 3")));
+        assertTrue(book.getPagesLeadingTo(p3).containsAll(List.of(p1, p2)));
+        assertEquals(2, book.getPagesLeadingTo(p3).size());
+        p2.addChoice("Encore vers 3", p1);
+        p1.removeChoice("Vers 3");
+        assertEquals(1, book.getPageBranchment(p3));
+        assertEquals(List.of(p2), book.getPagesLeadingTo(p3));
+        assertEquals(List.of(p2), book.getPagesLeadingTo(p1));
+    }
+
+    @Test
+    void whenPageIsRemovedThenChoicesLeadingToItAndItsOwnLinksAreForgotten() {
+        final var p1 = new Page("Page 1");
+        final var p2 = new Page("Page 2");
+        final var p3 = new Page("Page 3");
+        book.addEnd(p1);
+        book.addEnd(p2);
+        book.addEnd(p3);
+        p1.addChoice("Vers 2", p2);
+        p2.addChoice("Vers 3", p3);
+        p3.addChoice("Vers 2", p2);
+        assertTrue(book.removePage(p2));
+        assertNull(p1.getPageForChoice("Vers 2"));
+        assertNull(p3.getPageForChoice("Vers 2"));
+        assertEquals(0, book.getPageBranchment(p3));
+        assertTrue(book.getPagesLeadingTo(p3).isEmpty());
+    }
 }
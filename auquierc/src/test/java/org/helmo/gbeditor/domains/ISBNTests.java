@@ -77,4 +77,26 @@ public class ISBNTests {
     public void isbnWithVerifNumberEquals11But10IsWrittenMeansInvalidISBN() {
         assertNotNull(ISBN.isValid("2-200106-30-10", "200106"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void whenIsbnIsConvertedToStorageAndBackThenItIsUnchanged() {
+        assertEquals("22001063011", ISBNCodec.toStorage("2-200106-30-0"));
+        assertEquals("22001060510", ISBNCodec.toStorage("220010605X"));
+        assertEquals("2200106041", ISBNCodec.toStorage("2-200106-04-1"));
+        assertEquals("2200106300", ISBNCodec.fromStorage("22001063011"));
+        assertEquals("220010605X", ISBNCodec.fromStorage("2-200106-05-10"));
+        assertEquals("2-200106-05-X", ISBNCodec.toDisplay("22001060510"));
+        assertEquals("2-200106-04-1", ISBNCodec.toDisplay("2200106041"));
+        assertEquals("123", ISBNCodec.format("1-2-3"));
+    }
+
+    @Test
+    public void whenEveryBookNumberIsComputedThenEachIsbnIsValidForItsAuthor() {
+        for(int n = 0; n < 100; n++) {
+            final var isbn = ISBNFactory.computeISBNFor(2, "200106", n).forUser();
+            assertNull(ISBN.isValid(isbn, "200106"), isbn);
+            assertEquals(isbn, ISBNCodec.toDisplay(ISBNCodec.toStorage(isbn)));
+            assertEquals(ISBN.ISBNTypeError.WRONG_AUTHOR.getMessage(), ISBN.isValid(isbn, "200017"));
+        }
+    }
+}
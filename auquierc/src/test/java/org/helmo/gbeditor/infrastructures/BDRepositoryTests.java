@@ -5,17 +5,34 @@ import org.helmo.gbeditor.domains.BookFieldName;
 import org.helmo.gbeditor.domains.BookMetadata;
 import org.helmo.gbeditor.domains.Page;
 import org.helmo.gbeditor.domains.factory.BookFactory;
+import org.helmo.gbeditor.infrastructures.exception.UnableToConnectException;
 import org.helmo.gbeditor.infrastructures.exception.UnableToTearDownException;
+import com.google.gson.Gson;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
 import org.helmo.gbeditor.infrastructures.jdbc.BDRepository;
+import org.helmo.gbeditor.infrastructures.jdbc.BookDTOReader;
+import org.helmo.gbeditor.infrastructures.metrics.Metrics;
+import org.helmo.gbeditor.infrastructures.metrics.RepositoryMetrics;
+import org.helmo.gbeditor.repositories.AsyncRepository;
+import org.helmo.gbeditor.repositories.BookCorpusGenerator;
+import org.helmo.gbeditor.repositories.BookSummary;
 import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -51,6 +68,7 @@ public class BDRepositoryTests {
     @AfterEach
     public void tearDown() throws Exception {
         repo.tearDown();
+        repo.close();
     }
 
     @Test
@@ -84,6 +102,23 @@ public class BDRepositoryTests {
         compareResult(List.of(book1, book2), repo.getBooks());
     }
 
+    @Test
+    public void whenBooksArePagedThenEachBookIsReturnedOnceInCreationOrder() {
+        final var book3 = BookFactory.of(
+                new BookMetadata("Title 3","2-200106-31-9", "Un test", "Auquier Cyril"),
+                "200106", "fileName.png"
+        );
+        repo.add(book2, book1, book3);
+        final var first = repo.getBooksPage(null, 2);
+        assertEquals(List.of(book2.get(BookFieldName.ISBN), book1.get(BookFieldName.ISBN)),
+                first.getBooks().stream().map(BookSummary::getIsbn).collect(Collectors.toList()));
+        assertTrue(first.hasNext());
+        final var second = repo.getBooksPage(first.getNextCursor(), 2);
+        assertEquals(1, second.getBooks().size());
+        assertEquals("Title 3", second.getBooks().get(0).getTitle());
+        assertFalse(second.hasNext());
+    }
+
     @Test
     public void whenBdContains2BookThenRepoCanRemoveAtLeastOneBook() {
         repo.add(book1, book2);
@@ -200,6 +235,137 @@ public class BDRepositoryTests {
         }
     }
 
+    @Test
+    void whenSearchBookWithChoicesThenEachChoiceTargetsTheRightPage() {
+        var page1 = new Page("Page 1");
+        var page2 = new Page("Page 2");
+        var page3 = new Page("Page 3");
+        page1.addChoice("Go to page3", page3);
+        page1.addChoice("Go to page2", page2);
+        page3.addChoice("Back to page1", page1);
+        book1.addEnd(page1);
+        book1.addEnd(page2);
+        book1.addEnd(page3);
+        repo.add(book1);
+        var found = repo.searchBookFor("2-200106-05-X");
+        assertIterableEquals(book1, found);
+        var foundPage1 = found.getPageFor("Page 1");
+        assertEquals("Page 2", foundPage1.getPageForChoice("Go to page2").getContent());
+        assertEquals("Page 3", foundPage1.getPageForChoice("Go to page3").getContent());
+        assertTrue(found.getPageFor("Page 2").getChoices().isEmpty());
+        assertEquals("Page 1", found.getPageFor("Page 3").getPageForChoice("Back to page1").getContent());
+    }
+
+    @Test
+    void whenAPageWithIncomingChoicesIsRenamedThenItsChoicesAreKept() {
+        final var page1 = new Page("Page 1");
+        final var page2 = new Page("Page 2");
+        final var page3 = new Page("Page 3");
+        page1.addChoice("Aller à la page 2", page2);
+        page3.addChoice("Revenir à la page 2", page2);
+        page2.addChoice("Aller à la page 3", page3);
+        book1.addEnd(page1);
+        book1.addEnd(page2);
+        book1.addEnd(page3);
+        repo.add(book1);
+
+        final var found = repo.searchBookFor("2-200106-05-X");
+        found.getPageFor("Page 2").setContent("Page 2 renommée");
+        repo.save(found);
+
+        final var saved = repo.searchBookFor("2-200106-05-X");
+        assertNull(saved.getPageFor("Page 2"));
+        final var renamed = saved.getPageFor("Page 2 renommée");
+        assertEquals(2, saved.getNForPage(renamed));
+        assertSame(renamed, saved.getPageFor("Page 1").getPageForChoice("Aller à la page 2"));
+        assertSame(renamed, saved.getPageFor("Page 3").getPageForChoice("Revenir à la page 2"));
+        assertEquals("Page 3", renamed.getPageForChoice("Aller à la page 3").getContent());
+        assertEquals(3, saved.toGraph().choicesCount());
+    }
+
+    @Test
+    void whenSaveBookWithManyChoicesThenAllChoicesArePersisted() {
+        repo.add(book1);
+        final List<Page> pages = new ArrayList<>();
+        for(int i = 1; i <= 20; i++) {
+            var page = new Page("Page " + i);
+            pages.add(page);
+            book1.addEnd(page);
+        }
+        for(int i = 0; i < pages.size(); i++) {
+            pages.get(i).addChoice("Next", pages.get((i + 1) % pages.size()));
+            pages.get(i).addChoice("Skip", pages.get((i + 2) % pages.size()));
+        }
+        repo.save(book1);
+        var found = repo.searchBookFor("2-200106-05-X");
+        assertIterableEquals(book1, found);
+        for(final var p : book1) {
+            var foundPage = found.getPageFor(p.getContent());
+            assertEquals(p.getPageForChoice("Next"), foundPage.getPageForChoice("Next"));
+            assertEquals(p.getPageForChoice("Skip"), foundPage.getPageForChoice("Skip"));
+        }
+    }
+
+    @Test
+    void whenOnlySomePagesAndChoicesChangeThenSavedBookMatchesTheEditedBook() {
+        var page1 = new Page("Page 1");
+        var page2 = new Page("Page 2");
+        var page3 = new Page("Page 3");
+        page1.addChoice("Go to page2", page2);
+        page2.addChoice("Go to page3", page3);
+        book1.addEnd(page1);
+        book1.addEnd(page2);
+        book1.addEnd(page3);
+        repo.add(book1);
+        var edited = repo.searchBookFor("2-200106-05-X");
+        var newPage = new Page("Page 0");
+        edited.addBegin(newPage);
+        newPage.addChoice("Start", edited.getPageFor("Page 1"));
+        edited.getPageFor("Page 1").addChoice("Go to page2", edited.getPageFor("Page 3"));
+        edited.getPageFor("Page 2").removeChoice("Go to page3");
+        edited.removePage(edited.getPageFor("Page 3"));
+        repo.save(edited);
+        var found = repo.searchBookFor("2-200106-05-X");
+        assertIterableEquals(List.of(newPage, page1, page2), found);
+        assertEquals(1, found.getNForPage(found.getPageFor("Page 0")));
+        assertEquals(page1, found.getPageFor("Page 0").getPageForChoice("Start"));
+        assertTrue(found.getPageFor("Page 1").getChoices().isEmpty());
+        assertTrue(found.getPageFor("Page 2").getChoices().isEmpty());
+    }
+
+    @Test
+    void whenAChoiceIsRetargetedThenSavedBookKeepsOnlyItsNewTarget() {
+        var page1 = new Page("Page 1");
+        var page2 = new Page("Page 2");
+        var page3 = new Page("Page 3");
+        page1.addChoice("Next", page2);
+        book1.addEnd(page1);
+        book1.addEnd(page2);
+        book1.addEnd(page3);
+        repo.add(book1);
+        var edited = repo.searchBookFor("2-200106-05-X");
+        edited.getPageFor("Page 1").addChoice("Next", edited.getPageFor("Page 3"));
+        repo.save(edited);
+        var found = repo.searchBookFor("2-200106-05-X");
+        assertEquals(1, found.getPageFor("Page 1").getChoices().size());
+        assertEquals(page3, found.getPageFor("Page 1").getPageForChoice("Next"));
+    }
+
+    @Test
+    void whenBookIsSavedTwiceWithoutChangesThenItsPagesStayTheSame() {
+        var page1 = new Page("Page 1");
+        var page2 = new Page("Page 2");
+        page1.addChoice("Next", page2);
+        book1.addEnd(page1);
+        book1.addEnd(page2);
+        repo.add(book1);
+        repo.save(book1);
+        repo.save(book1);
+        var found = repo.searchBookFor("2-200106-05-X");
+        assertIterableEquals(book1, found);
+        assertEquals(page2, found.getPageFor("Page 1").getPageForChoice("Next"));
+    }
+
     @Test
     void whenBookIsPublishedAndSavedThenTheBookIsMemorizedInTheDBWithPublishDateTime() {
         repo.add(book1);
@@ -243,6 +409,160 @@ public class BDRepositoryTests {
         assertIterableEquals(List.of(result), repo.getBooks());
     }
 
+    @Test
+    void whenIsbnCounterTableIsMissingThenTearDownStillDropsTheOtherTables() throws SQLException {
+        try(final var con = DriverManager.getConnection("jdbc:derby:Test"); final var stmt = con.createStatement()) {
+            stmt.executeUpdate("DROP TABLE isbn_counter");
+        }
+        assertDoesNotThrow(() -> repo.tearDown());
+        assertDoesNotThrow(() -> repo.setUp());
+    }
+
+    @Test
+    void whenIsbnCounterTableAlreadyExistsThenAnotherRepositoryUsesIt() {
+        repo.add(book1);
+        repo.allocateBookNumber("200106");
+        final var other = RepositoryFactory.of(
+                "org.apache.derby.jdbc.EmbeddedDriver",
+                "jdbc:derby:Test;create=true",
+                "",
+                "");
+        try {
+            other.setCurrentAuthor("Auquier Cyril");
+            assertDoesNotThrow(() -> other.add(book2));
+            assertEquals(31, other.allocateBookNumber("200106"));
+        } finally {
+            other.close();
+        }
+    }
+
+    @Test
+    void whenAsyncRepositoryIsClosedThenTheConnectionPoolOfTheDatabaseIsClosed() {
+        final var other = RepositoryFactory.of(
+                "org.apache.derby.jdbc.EmbeddedDriver",
+                "jdbc:derby:Test;create=true",
+                "",
+                "");
+        other.setCurrentAuthor("Auquier Cyril");
+        new AsyncRepository(other, Runnable::run, Runnable::run).close();
+        assertThrows(UnableToConnectException.class, () -> other.searchBookFor("2-200106-05-X"));
+    }
+
+    @Test
+    void whenBookNumbersAreAllocatedThenEachAuthorHasItsOwnSequenceStartingAfterItsBooks() {
+        repo.add(book1);
+        assertEquals(5, repo.getLastBookNumber("200106"));
+        assertEquals(6, repo.allocateBookNumber("200106"));
+        assertEquals(7, repo.allocateBookNumber("200106"));
+        assertEquals(1, repo.allocateBookNumber("200017"));
+        assertEquals(7, repo.getLastBookNumber("200106"));
+        repo.add(book2);
+        assertEquals(30, repo.getLastBookNumber("200106"));
+        assertEquals(1, repo.getLastBookNumber("200017"));
+    }
+
+    @Test
+    void whenAGeneratedCorpusIsAddedThenEachBookIsFoundWithAllItsPagesAndChoices() {
+        final var generator = new BookCorpusGenerator(2022).authors(3).booksByAuthor(2).pages(200, 300).branching(3);
+        assertEquals(6, generator.writeTo(repo));
+        for(int author = 0; author < generator.getAuthors(); author++) {
+            for(final var expected : generator.generateFor(author)) {
+                final var found = repo.searchBookFor(expected.get(BookFieldName.ISBN));
+                assertEquals(expected.toGraph().size(), found.toGraph().size());
+                assertEquals(expected.toGraph().choicesCount(), found.toGraph().choicesCount());
+            }
+            assertEquals(2, repo.getLastBookNumber(generator.matriculeOf(author)));
+        }
+    }
+
+    @Test
+    void whenBooksAreAddedThenStatementsRowsAndTransactionsAreCounted() {
+        final var metrics = new RepositoryMetrics();
+        Metrics.use(metrics);
+        try {
+            book1.addEnd(new Page("Page 1"));
+            repo.add(book1);
+            assertEquals(1, metrics.getCommits());
+            assertTrue(metrics.getStatements() > 0);
+            assertTrue(metrics.getRowsWritten() >= 2);
+            assertThrows(DataManipulationException.class, () -> repo.add(book1));
+            assertEquals(1, metrics.getRollbacks());
+            assertEquals(Map.of("transaction", 1L), metrics.getOperationFailures());
+            final var read = metrics.getRowsRead();
+            assertNotNull(repo.searchBookFor(book1.get(BookFieldName.ISBN)));
+            assertTrue(metrics.getRowsRead() >= read + 2);
+        } finally {
+            Metrics.use(null);
+        }
+    }
+
+    @Test
+    void whenAJsonExportIsImportedThenNewBooksAreWrittenByChunksAndExistingOnesAreSkipped() {
+        final var generator = new BookCorpusGenerator(2023).authors(3).booksByAuthor(3).pages(20, 40).branching(3);
+        final List<BookDTO> exported = new ArrayList<>();
+        for(int author = 0; author < generator.getAuthors(); author++) {
+            generator.generateFor(author).forEach(b -> exported.add(Mapping.convertToBookDTO(b)));
+        }
+        exported.add(exported.get(4));
+        repo.setCurrentAuthor(generator.authorNameOf(0));
+        repo.add(generator.generate(0, 1));
+
+        final var json = new Gson().toJson(exported);
+        final var report = repo.importBooks(new BookDTOReader().stream(new StringReader(json)), 4);
+        assertEquals(8, report.getImported());
+        assertEquals(2, report.getSkipped());
+        assertEquals(3, report.getChunks());
+        for(int author = 0; author < generator.getAuthors(); author++) {
+            for(final var expected : generator.generateFor(author)) {
+                final var found = repo.searchBookFor(expected.get(BookFieldName.ISBN));
+                assertEquals(expected.get(BookFieldName.AUTHOR), found.get(BookFieldName.AUTHOR));
+                assertEquals(expected.toGraph().size(), found.toGraph().size());
+                assertEquals(expected.toGraph().choicesCount(), found.toGraph().choicesCount());
+            }
+            assertEquals(3, repo.getLastBookNumber(generator.matriculeOf(author)));
+        }
+    }
+
+    @Test
+    void whenAChunkCannotBeImportedThenOnlyThisChunkIsRolledBack() {
+        final var generator = new BookCorpusGenerator(2024).booksByAuthor(4).pages(5, 5);
+        final var books = generator.generateFor(0).stream().map(Mapping::convertToBookDTO).collect(Collectors.toList());
+        books.get(3).pages.add(new PageDTO("Page sans issue", Map.of("Aller nulle part", "42"), 6));
+
+        assertThrows(DataManipulationException.class, () -> repo.importBooks(books.stream(), 2));
+        assertNotNull(repo.searchBookFor(generator.generate(0, 1).get(BookFieldName.ISBN)));
+        assertNotNull(repo.searchBookFor(generator.generate(0, 2).get(BookFieldName.ISBN)));
+        assertNull(repo.searchBookFor(generator.generate(0, 3).get(BookFieldName.ISBN)));
+        assertNull(repo.searchBookFor(generator.generate(0, 4).get(BookFieldName.ISBN)));
+    }
+
+    @Test
+    void whenTheLibraryIsExportedThenEveryBookIsWrittenWithItsPagesAndChoices() {
+        final var generator = new BookCorpusGenerator(2025).authors(2).booksByAuthor(2).pages(30, 60).branching(3);
+        generator.writeTo(repo);
+        repo.setCurrentAuthor("Auquier Cyril");
+        repo.add(book1);
+
+        final var out = new StringWriter();
+        assertEquals(5, repo.exportBooks(out));
+        final var exported = new BookDTOReader().stream(new StringReader(out.toString()))
+                .collect(Collectors.toMap(BookDTO::getIsbn, dto -> dto));
+        assertEquals(5, exported.size());
+        for(final var dto : exported.values()) {
+            assertEquals(BookDTO.CURRENT_VERSION, dto.getVersion());
+            assertEquals(0, dto.id);
+        }
+        assertTrue(exported.get(Mapping.convertISBNToDTO(book1.get(BookFieldName.ISBN))).pages.isEmpty());
+        for(int author = 0; author < generator.getAuthors(); author++) {
+            for(final var expected : generator.generateFor(author)) {
+                final var found = Mapping.convertToBook(exported.get(Mapping.convertISBNToDTO(expected.get(BookFieldName.ISBN))));
+                assertEquals(expected.get(BookFieldName.AUTHOR), found.get(BookFieldName.AUTHOR));
+                assertEquals(expected.toGraph().size(), found.toGraph().size());
+                assertEquals(expected.toGraph().choicesCount(), found.toGraph().choicesCount());
+            }
+        }
+    }
+
     private void compareResult(final Collection<Book> expected, final Collection<Book> actual) {
         assertEquals(expected.size(), actual.size());
         for(final var e : expected) {
@@ -0,0 +1,69 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.helmo.gbeditor.infrastructures.jdbc.BookChanges;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookChangesTests {
+
+    @Test
+    public void whenNothingChangedThenChangesAreEmpty() {
+        var previous = List.of(
+                new PageDTO("Page 1", Map.of("Next", "2"), 1),
+                new PageDTO("Page 2", Map.of(), 2));
+        var current = List.of(
+                new PageDTO("Page 1", Map.of("Next", "Page 2"), 1),
+                new PageDTO("Page 2", Map.of(), 2));
+        assertTrue(BookChanges.between(previous, current).isEmpty());
+    }
+
+    @Test
+    public void whenAPageIsInsertedBeforeTheOthersThenOtherPagesAreMoved() {
+        var previous = List.of(
+                new PageDTO("Page 1", Map.of(), 1),
+                new PageDTO("Page 2", Map.of(), 2));
+        var current = List.of(
+                new PageDTO("Page 0", Map.of(), 1),
+                new PageDTO("Page 1", Map.of(), 2),
+                new PageDTO("Page 2", Map.of(), 3));
+        var changes = BookChanges.between(previous, current);
+        assertEquals(List.of("Page 0"), changes.getInsertedPages().stream().map(PageDTO::getContent).collect(Collectors.toList()));
+        assertEquals(2, changes.getMovedPages().size());
+        assertTrue(changes.getDeletedPages().isEmpty());
+        assertFalse(changes.hasChoiceChanges());
+    }
+
+    @Test
+    public void whenChoicesChangeThenOnlyChangedChoicesAreReported() {
+        var previous = List.of(
+                new PageDTO("Page 1", Map.of("Keep", "2", "Retarget", "2", "Drop", "3"), 1),
+                new PageDTO("Page 2", Map.of(), 2),
+                new PageDTO("Page 3", Map.of(), 3));
+        var current = List.of(
+                new PageDTO("Page 1", Map.of("Keep", "Page 2", "Retarget", "Page 3", "New", "Page 3"), 1),
+                new PageDTO("Page 2", Map.of(), 2),
+                new PageDTO("Page 3", Map.of(), 3));
+        var changes = BookChanges.between(previous, current);
+        assertEquals(List.of(new BookChanges.ChoiceChange("Page 1", "New", "Page 3")), changes.getInsertedChoices());
+        assertEquals(List.of(new BookChanges.ChoiceChange("Page 1", "Retarget", "Page 3")), changes.getUpdatedChoices());
+        assertEquals(List.of(new BookChanges.ChoiceChange("Page 1", "Drop", "Page 3")), changes.getDeletedChoices());
+    }
+
+    @Test
+    public void whenAPageIsDeletedThenItsOwnChoicesAreNotReported() {
+        var previous = List.of(
+                new PageDTO("Page 1", Map.of(), 1),
+                new PageDTO("Page 2", Map.of("Back", "1"), 2));
+        var current = List.of(
+                new PageDTO("Page 1", Map.of(), 1));
+        var changes = BookChanges.between(previous, current);
+        assertEquals(List.of("Page 2"), changes.getDeletedPages());
+        assertFalse(changes.hasChoiceChanges());
+    }
+}
@@ -0,0 +1,102 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.repositories.DataRepository;
+import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachedRepositoryTests {
+    private DataRepository storage;
+    private CachedRepository repo;
+    private Book book1;
+    private Book book2;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(DataRepository.class);
+        repo = new CachedRepository(storage, 2);
+        book1 = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        book2 = new Book(new BookMetadata("Title 2", "2-200106-30-0", "Un test", "Auquier Cyril"), "");
+        when(storage.searchBookFor("2-200106-05-X")).thenReturn(book1);
+        when(storage.searchBookFor("2-200106-30-0")).thenReturn(book2);
+        when(storage.getBooks()).thenReturn(List.of(book1, book2));
+    }
+
+    @Test
+    public void whenSameBookIsSearchedTwiceThenStorageIsReadOnce() {
+        assertSame(book1, repo.searchBookFor("2-200106-05-X"));
+        assertSame(book1, repo.searchBookFor("2-200106-05-X"));
+        verify(storage, times(1)).searchBookFor("2-200106-05-X");
+        assertEquals(1, repo.getStats().getHits());
+        assertEquals(1, repo.getStats().getMisses());
+    }
+
+    @Test
+    public void whenAuthorBooksAreAskedTwiceThenStorageIsReadOnce() {
+        assertEquals(2, repo.getBooks().size());
+        assertEquals(2, repo.getBooks().size());
+        verify(storage, times(1)).getBooks();
+    }
+
+    @Test
+    public void whenCacheIsFullThenLeastRecentlyUsedBookIsEvicted() {
+        final var book3 = new Book(new BookMetadata("Title 3", "2-200106-31-9", "Un test", "Auquier Cyril"), "");
+        when(storage.searchBookFor("2-200106-31-9")).thenReturn(book3);
+        repo.searchBookFor("2-200106-05-X");
+        repo.searchBookFor("2-200106-30-0");
+        repo.searchBookFor("2-200106-05-X");
+        repo.searchBookFor("2-200106-31-9");
+        repo.searchBookFor("2-200106-05-X");
+        repo.searchBookFor("2-200106-30-0");
+        verify(storage, times(1)).searchBookFor("2-200106-05-X");
+        verify(storage, times(2)).searchBookFor("2-200106-30-0");
+        assertEquals(2, repo.getStats().getEvictions());
+        assertEquals(2, repo.getStats().getSize());
+    }
+
+    @Test
+    public void whenBookIsSavedWithANewIsbnThenItIsFoundUnderItsNewIsbnOnly() {
+        repo.searchBookFor("2-200106-05-X");
+        repo.getBooks();
+        book1.setNewData(new BookMetadata("Title", "2-200106-32-7", "Un test", "Auquier Cyril"), "200106", "");
+        repo.save(book1);
+        assertSame(book1, repo.searchBookFor("2-200106-32-7"));
+        repo.searchBookFor("2-200106-05-X");
+        repo.getBooks();
+        verify(storage, times(2)).searchBookFor("2-200106-05-X");
+        verify(storage, never()).searchBookFor("2-200106-32-7");
+        verify(storage, times(2)).getBooks();
+    }
+
+    @Test
+    public void whenSaveFailsThenBookIsReadAgainFromStorage() {
+        repo.searchBookFor("2-200106-05-X");
+        doThrow(new BookAlreadyExistsException("")).when(storage).save(book1);
+        assertThrows(BookAlreadyExistsException.class, () -> repo.save(book1));
+        repo.searchBookFor("2-200106-05-X");
+        verify(storage, times(2)).searchBookFor("2-200106-05-X");
+    }
+
+    @Test
+    public void whenBookIsRemovedThenItIsReadAgainFromStorage() {
+        repo.searchBookFor("2-200106-30-0");
+        repo.remove("2-200106-30-0");
+        repo.searchBookFor("2-200106-30-0");
+        verify(storage, times(2)).searchBookFor("2-200106-30-0");
+    }
+
+    @Test
+    public void whenStorageReloadsItsBooksThenCachedBooksAreForgotten() {
+        repo.searchBookFor("2-200106-05-X");
+        repo.getBooks();
+        repo.searchBookFor("2-200106-05-X");
+        verify(storage, times(2)).searchBookFor("2-200106-05-X");
+    }
+}
@@ -0,0 +1,164 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.infrastructures.exception.UnableToConnectException;
+import org.helmo.gbeditor.infrastructures.jdbc.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTests {
+    private final List<Connection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    private ConnectionPool newPool(final int maxSize, final long idleTimeoutMs) {
+        return newPool(maxSize, idleTimeoutMs, 0);
+    }
+
+    private ConnectionPool newPool(final int maxSize, final long idleTimeoutMs, final int statementCacheSize) {
+        pool = new ConnectionPool(() -> {
+            var con = DriverManager.getConnection("jdbc:derby:memory:PoolTests;create=true");
+            opened.add(con);
+            return con;
+        }, maxSize, 50, idleTimeoutMs, 60_000, 60_000, statementCacheSize);
+        return pool;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    public void whenConnectionIsClosedThenItIsReusedByTheNextBorrow() throws SQLException {
+        newPool(2, 60_000);
+        pool.borrow().close();
+        assertEquals(1, pool.getIdleCount());
+        try(var con = pool.borrow()) {
+            assertFalse(con.isClosed());
+            assertEquals(1, pool.getBorrowedCount());
+        }
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    public void whenPoolIsExhaustedThenBorrowThrowsUnableToConnectException() throws SQLException {
+        newPool(1, 60_000);
+        try(var con = pool.borrow()) {
+            assertThrows(UnableToConnectException.class, () -> pool.borrow());
+            assertFalse(con.isClosed());
+        }
+        assertDoesNotThrow(() -> pool.borrow().close());
+    }
+
+    @Test
+    public void whenIdleConnectionIsNoLongerValidThenANewOneIsOpened() throws SQLException {
+        newPool(2, 60_000);
+        pool.borrow().close();
+        opened.get(0).close();
+        try(var con = pool.borrow()) {
+            assertTrue(con.isValid(1));
+        }
+        assertEquals(2, opened.size());
+    }
+
+    @Test
+    public void whenConnectionIsGivenBackDuringATransactionThenAutoCommitIsRestored() throws SQLException {
+        newPool(1, 60_000);
+        var con = pool.borrow();
+        con.setAutoCommit(false);
+        con.close();
+        try(var next = pool.borrow()) {
+            assertTrue(next.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void whenConnectionIsClosedThenItCannotBeUsedAnymore() throws SQLException {
+        newPool(1, 60_000);
+        var con = pool.borrow();
+        con.close();
+        assertTrue(con.isClosed());
+        assertThrows(SQLException.class, con::createStatement);
+    }
+
+    @Test
+    public void whenIdleTimeoutIsReachedThenIdleConnectionsAreEvicted() throws Exception {
+        newPool(2, 0);
+        pool.borrow().close();
+        Thread.sleep(5);
+        pool.evictExpired();
+        assertEquals(0, pool.getIdleCount());
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    public void whenStatementIsPreparedAgainThenItIsReusedFromTheCache() throws SQLException {
+        newPool(1, 60_000, 2);
+        final PreparedStatement first;
+        try(var con = pool.borrow(); var stmt = con.prepareStatement("VALUES CAST(? AS INT)")) {
+            first = stmt;
+            stmt.setInt(1, 1);
+            stmt.executeQuery().close();
+        }
+        try(var con = pool.borrow(); var stmt = con.prepareStatement("VALUES CAST(? AS INT)")) {
+            assertSame(first, stmt);
+            try(var nested = con.prepareStatement("VALUES CAST(? AS INT)")) {
+                assertNotSame(stmt, nested);
+            }
+            stmt.setInt(1, 2);
+            try(var rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(2, rs.getInt(1));
+            }
+        }
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    public void whenCachedStatementIsReusedThenSettingsOfThePreviousBorrowerAreRestored() throws SQLException {
+        newPool(1, 60_000, 2);
+        try(var con = pool.borrow(); var stmt = con.prepareStatement("VALUES 1, 2, 3")) {
+            stmt.setMaxRows(1);
+            stmt.setFetchSize(1);
+            stmt.setQueryTimeout(5);
+        }
+        try(var con = pool.borrow(); var stmt = con.prepareStatement("VALUES 1, 2, 3")) {
+            assertEquals(1, pool.getStatementCacheHits());
+            assertEquals(0, stmt.getMaxRows());
+            assertEquals(0, stmt.getQueryTimeout());
+            var rows = 0;
+            try(var rs = stmt.executeQuery()) {
+                while(rs.next()) {
+                    rows++;
+                }
+            }
+            assertEquals(3, rows);
+        }
+    }
+
+    @Test
+    public void whenStatementCacheIsFullThenLeastRecentlyUsedStatementIsClosed() throws SQLException {
+        newPool(1, 60_000, 2);
+        final PreparedStatement first;
+        try(var con = pool.borrow()) {
+            try(var stmt = con.prepareStatement("VALUES 1")) {
+                first = stmt;
+            }
+            con.prepareStatement("VALUES 2").close();
+            con.prepareStatement("VALUES 1").close();
+            con.prepareStatement("VALUES 3").close();
+            assertSame(first, con.prepareStatement("VALUES 1"));
+            assertNotSame(first, con.prepareStatement("VALUES 2"));
+        }
+        assertEquals(2, pool.getStatementCacheHits());
+    }
+}
@@ -0,0 +1,72 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.infrastructures.metrics.Counter;
+import org.helmo.gbeditor.infrastructures.metrics.LatencyHistogram;
+import org.helmo.gbeditor.infrastructures.metrics.RepositoryMetrics;
+import org.helmo.gbeditor.repositories.DataRepository;
+import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InstrumentedRepositoryTests {
+    private DataRepository storage;
+    private RepositoryMetrics metrics;
+    private InstrumentedRepository repo;
+    private Book book;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(DataRepository.class);
+        metrics = new RepositoryMetrics();
+        repo = new InstrumentedRepository(storage, metrics);
+        book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+    }
+
+    @Test
+    void whenOperationsAreCalledThenTheirLatencyAndFailuresAreRecorded() {
+        when(storage.searchBookFor("2-200106-05-X")).thenReturn(book);
+        doThrow(new BookAlreadyExistsException("Le livre existe déjà.")).when(storage).add(book);
+        assertSame(book, repo.searchBookFor("2-200106-05-X"));
+        assertSame(book, repo.searchBookFor("2-200106-05-X"));
+        assertThrows(BookAlreadyExistsException.class, () -> repo.add(book));
+        assertEquals(Map.of("add", 1L, "searchBookFor", 2L), metrics.getOperationCounts());
+        assertEquals(Map.of("add", 1L), metrics.getOperationFailures());
+        assertTrue(metrics.getLatency("searchBookFor").getTotalNanos() > 0);
+    }
+
+    @Test
+    void whenDurationsAreRecordedThenPercentilesAreKnownWithinAFactorOfTwo() {
+        final var histogram = new LatencyHistogram();
+        for(int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50_500, histogram.getMeanNanos());
+        assertEquals(100_000, histogram.getMaxNanos());
+        final var median = histogram.getPercentileNanos(50);
+        assertTrue(median >= 50_000 && median < 100_000);
+        assertEquals(100_000, histogram.getPercentileNanos(100));
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(99));
+    }
+
+    @Test
+    void whenMetricsAreRegisteredThenTheyCanBeReadThroughJmx() throws Exception {
+        metrics.increment(Counter.STATEMENTS, 3);
+        metrics.register();
+        final var server = ManagementFactory.getPlatformMBeanServer();
+        final var name = new ObjectName(RepositoryMetrics.DEFAULT_OBJECT_NAME);
+        assertEquals(3L, server.getAttribute(name, "Statements"));
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0, metrics.getStatements());
+        server.unregisterMBean(name);
+    }
+}
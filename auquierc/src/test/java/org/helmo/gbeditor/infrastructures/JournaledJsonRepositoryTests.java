@@ -0,0 +1,287 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.domains.Page;
+import org.helmo.gbeditor.infrastructures.jdbc.JournaledJsonRepository;
+import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
+import org.helmo.gbeditor.infrastructures.metrics.MetricsSink;
+import org.helmo.gbeditor.repositories.AsyncRepository;
+import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.helmo.gbeditor.repositories.exceptions.DataManipulationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournaledJsonRepositoryTests {
+    @TempDir
+    Path dir;
+
+    private static Book newBook(final String title, final String isbn) {
+        return new Book(new BookMetadata(title, isbn, "Un test", "Auquier Cyril"), "");
+    }
+
+    private static List<String> describe(final Book book) {
+        final List<String> result = new ArrayList<>();
+        for(final var page : book) {
+            final Map<String, String> choices = new TreeMap<>();
+            page.getChoices().forEach((label, target) -> choices.put(label, target.getContent()));
+            result.add(book.getNForPage(page) + " " + page.getContent() + " " + choices);
+        }
+        return result;
+    }
+
+    private static Book newBookWithPages() {
+        final var book = newBook("Title", "2-200106-05-X");
+        final var first = new Page("Première page");
+        final var second = new Page("Deuxième page");
+        final var third = new Page("Troisième page");
+        book.addEnd(first);
+        book.addEnd(second);
+        book.addEnd(third);
+        first.addChoice("Aller à la deuxième", second);
+        first.addChoice("Aller à la troisième", third);
+        return book;
+    }
+
+    private JournaledJsonRepository newRepository(final int threshold) {
+        final var repo = new JournaledJsonRepository(dir, "books", threshold);
+        repo.setCurrentAuthor("Auquier Cyril");
+        return repo;
+    }
+
+    @Test
+    public void whenBooksAreAddedThenAnotherRepositoryReplaysThemFromTheJournal() {
+        final var repo = newRepository(100);
+        final var book = newBook("Title", "2-200106-05-X");
+        book.addEnd(new Page("Première page"));
+        repo.add(book, newBook("Title 2", "2-200106-30-0"));
+
+        final var replayed = newRepository(100);
+        assertEquals(2, replayed.getBooks().size());
+        final var found = replayed.searchBookFor("2-200106-05-X");
+        assertNotNull(found);
+        assertNotNull(found.getPageFor("Première page"));
+        assertFalse(Files.exists(dir.resolve("books.json")));
+    }
+
+    @Test
+    public void whenBookNumbersAreAllocatedThenTheyFollowTheAuthorBooksOnly() {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"));
+        assertEquals(6, repo.allocateBookNumber("200106"));
+        assertEquals(1, repo.allocateBookNumber("200017"));
+        repo.add(newBook("Title 2", "2-200106-30-0"));
+        assertEquals(31, repo.allocateBookNumber("200106"));
+        assertEquals(31, repo.getLastBookNumber("200106"));
+    }
+
+    @Test
+    public void whenBookIsAddedTwiceThenBookAlreadyExistsExceptionIsThrown() {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"));
+        assertThrows(BookAlreadyExistsException.class, () -> repo.add(newBook("Title", "2-200106-05-X")));
+    }
+
+    @Test
+    public void whenIsbnOfSavedBookChangesThenOldIsbnIsRemoved() {
+        final var repo = newRepository(100);
+        final var book = newBook("Title", "2-200106-05-X");
+        repo.add(book);
+        book.setNewData(new BookMetadata("Title", "2-200106-30-0", "Un test", "Auquier Cyril"), "200106", "");
+        repo.save(book);
+
+        final var replayed = newRepository(100);
+        assertNull(replayed.searchBookFor("2-200106-05-X"));
+        assertEquals("Title", replayed.searchBookFor("2-200106-30-0").get(BookFieldName.TITLE));
+        assertEquals(1, replayed.getData().size());
+    }
+
+    @Test
+    public void whenPagesAndChoicesOfSavedBookChangeThenOnlyTheChangesAreJournaledAndReplayed() throws IOException {
+        final var repo = newRepository(100);
+        final var book = newBookWithPages();
+        repo.add(book);
+        final var inserted = new Page("Page insérée");
+        book.addBegin(inserted);
+        book.removePage(book.getPageFor("Troisième page"));
+        book.getPageFor("Deuxième page").addChoice("Revenir au début", inserted);
+        repo.save(book);
+
+        final var lines = Files.readAllLines(dir.resolve("books.journal"), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("Page insérée"));
+        assertFalse(lines.get(1).contains("Aller à la deuxième"));
+        assertEquals(describe(book), describe(newRepository(100).searchBookFor("2-200106-05-X")));
+    }
+
+    @Test
+    public void whenACompactedJournalIsReplayedAgainThenItsChangesAreNotAppliedTwice() throws IOException {
+        final var compacted = newRepository(100);
+        compacted.add(newBookWithPages());
+        compacted.close();
+        final var repo = newRepository(100);
+        final var book = repo.searchBookFor("2-200106-05-X");
+        book.setNewData(new BookMetadata("Title", "2-200106-30-0", "Un test", "Auquier Cyril"), "200106", "");
+        repo.save(book);
+        repo.add(newBook("Title 2", "2-200106-05-X"));
+        final var journal = Files.readAllBytes(dir.resolve("books.journal"));
+        repo.close();
+        Files.write(dir.resolve("books.journal.compacting"), journal);
+
+        final var replayed = newRepository(100);
+        assertEquals(describe(book), describe(replayed.searchBookFor("2-200106-30-0")));
+        assertEquals(List.of(), describe(replayed.searchBookFor("2-200106-05-X")));
+    }
+
+    @Test
+    public void whenBookIsRemovedThenItIsNotReplayed() {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"), newBook("Title 2", "2-200106-30-0"));
+        assertTrue(repo.remove("2-200106-05-X"));
+        assertFalse(repo.remove("2-200106-05-X"));
+
+        final var replayed = newRepository(100);
+        assertEquals(1, replayed.getData().size());
+        assertNull(replayed.searchBookFor("2-200106-05-X"));
+    }
+
+    @Test
+    public void whenLastRecordIsIncompleteThenItIsIgnored() throws IOException {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"));
+        Files.writeString(dir.resolve("books.journal"), "{\"op\":\"PUT\",\"book\":{\"title\":\"Tit",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        final var replayed = newRepository(100);
+        assertEquals(1, replayed.getData().size());
+        replayed.add(newBook("Title 2", "2-200106-30-0"));
+        assertEquals(2, newRepository(100).getData().size());
+    }
+
+    @Test
+    public void whenARecordInTheMiddleIsCorruptThenReplayFailsAndJournalIsLeftIntact() throws IOException {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"));
+        final var journal = dir.resolve("books.journal");
+        Files.writeString(journal, "{\"op\":\"PUT\",\"book\":{\"title\":\"Tit\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        repo.add(newBook("Title 2", "2-200106-30-0"));
+        final var content = Files.readAllBytes(journal);
+
+        assertThrows(DataManipulationException.class, () -> newRepository(100).getData());
+        assertArrayEquals(content, Files.readAllBytes(journal));
+    }
+
+    @Test
+    public void whenRepositoryIsClosedThenJournalIsCompactedInAJsonFile() throws IOException {
+        final var repo = newRepository(100);
+        repo.add(newBook("Title", "2-200106-05-X"), newBook("Title 2", "2-200106-30-0"));
+        repo.close();
+
+        assertEquals(0, Files.size(dir.resolve("books.journal")));
+        assertFalse(Files.exists(dir.resolve("books.journal.compacting")));
+        assertFalse(Files.exists(dir.resolve("books.json.tmp")));
+        assertEquals(2, new JsonRepository(dir, "books").getData().size());
+        final var json = new JsonRepository(dir, "books");
+        json.setCurrentAuthor("Auquier Cyril");
+        assertEquals(2, json.getBooks().size());
+    }
+
+    @Test
+    public void whenJsonFileNoLongerMatchesTheBookAChangeWasWrittenForThenReplayFails() throws IOException {
+        final var compacted = newRepository(100);
+        compacted.add(newBookWithPages());
+        compacted.close();
+        final var repo = newRepository(100);
+        final var book = repo.searchBookFor("2-200106-05-X");
+        book.getPageFor("Deuxième page").addChoice("Revenir au début", book.getPageFor("Première page"));
+        repo.save(book);
+        final var snapshot = dir.resolve("books.json");
+        Files.writeString(snapshot, Files.readString(snapshot, StandardCharsets.UTF_8).replace("Troisième page", "Autre page"),
+                StandardCharsets.UTF_8);
+
+        assertThrows(DataManipulationException.class, () -> newRepository(100).getData());
+        repo.close();
+    }
+
+    @Test
+    public void whenAsyncRepositoryIsClosedThenTheRepositoriesItUsesAreClosed() throws Exception {
+        final var journaled = newRepository(100);
+        try(final var async = new AsyncRepository(new CachedRepository(new InstrumentedRepository(journaled, MetricsSink.NONE), 8),
+                Runnable::run, Runnable::run)) {
+            async.add(newBook("Title", "2-200106-05-X")).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0, Files.size(dir.resolve("books.journal")));
+        assertEquals(1, new JsonRepository(dir, "books").getData().size());
+    }
+
+    @Test
+    public void whenJournalReachesThresholdThenItIsCompactedInBackground() throws Exception {
+        final var repo = newRepository(3);
+        final var book = newBook("Title", "2-200106-05-X");
+        repo.add(book);
+        repo.save(book);
+        repo.save(book);
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while(!Files.exists(dir.resolve("books.json")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(Files.exists(dir.resolve("books.json")));
+        repo.save(book);
+        repo.close();
+        final var replayed = newRepository(3);
+        assertEquals(1, replayed.getData().size());
+        replayed.close();
+    }
+
+    @Test
+    public void whenBackgroundCompactionFailsThenNextWriteReportsItAndCompactionIsRetried() throws Exception {
+        final var repo = newRepository(2);
+        final var book = newBook("Title", "2-200106-05-X");
+        Files.createDirectories(dir.resolve("books.json.tmp"));
+        repo.add(book);
+        repo.save(book);
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        DataManipulationException reported = null;
+        while(reported == null && System.currentTimeMillis() < deadline) {
+            try {
+                repo.save(book);
+                Thread.sleep(20);
+            } catch (DataManipulationException e) {
+                reported = e;
+            }
+        }
+        assertNotNull(reported);
+        Files.delete(dir.resolve("books.json.tmp"));
+
+        while(!Files.exists(dir.resolve("books.json")) && System.currentTimeMillis() < deadline + 5000) {
+            try {
+                repo.save(book);
+            } catch (DataManipulationException e) {
+                // Une relance commencée avant la suppression du dossier a pu échouer à son tour.
+            }
+            Thread.sleep(20);
+        }
+        assertTrue(Files.exists(dir.resolve("books.json")));
+        repo.close();
+        final var replayed = newRepository(2);
+        assertEquals(1, replayed.getData().size());
+        replayed.close();
+    }
+}
@@ -1,11 +1,14 @@
 package org.helmo.gbeditor.infrastructures;
 
 import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
 import org.helmo.gbeditor.domains.BookMetadata;
 import org.helmo.gbeditor.infrastructures.dto.BookDTO;
 import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
+import org.helmo.gbeditor.repositories.BookSummary;
 import org.helmo.gbeditor.repositories.DataRepository;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -202,6 +205,55 @@ public class JsonRepositoryTests {
         }
     }
 
+    private static final String SHARED_FILE = "["
+            + "{\"title\":\"Autre\",\"isbn\":\"22001070510\",\"author\":\"Someone\",\"resume\":\"r\",\"imgPath\":\"\",\"version\":\"1.2\","
+            + "\"pages\":[{\"content\":\"p1\",\"choices\":{},\"numPage\":1}]},"
+            + "{\"title\":\"Mien\",\"isbn\":\"22001060510\",\"author\":\"Cyril\",\"resume\":\"r\",\"imgPath\":\"\",\"version\":\"1.2\","
+            + "\"pages\":[{\"content\":\"p1\",\"choices\":{\"go\":\"2\"},\"numPage\":1},{\"content\":\"p2\",\"choices\":{},\"numPage\":2}]},"
+            + "{\"pages\":[{\"content\":\"q1\",\"choices\":{},\"numPage\":1}],"
+            + "\"title\":\"Pages d'abord\",\"isbn\":\"22001063011\",\"author\":\"Cyril\",\"resume\":\"r\",\"imgPath\":\"\",\"version\":\"1.2\"}"
+            + "]";
+
+    @Test
+    public void getBooksOnlyBuildsBooksOfCurrentAuthor(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("shared.json"), SHARED_FILE);
+        final DataRepository jr = new JsonRepository(dir, "shared");
+        jr.setCurrentAuthor("cyril");
+        final var books = jr.getBooks();
+        assertEquals(2, books.size());
+        assertEquals("Mien", books.get(0).get(BookFieldName.TITLE));
+        assertNotNull(books.get(0).getPageFor("p2"));
+        assertNotNull(books.get(1).getPageFor("q1"));
+        assertEquals("22001070510", jr.getLastIsbn());
+    }
+
+    @Test
+    public void searchBookForFindsBookThatIsNotLoaded(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("shared.json"), SHARED_FILE);
+        final DataRepository jr = new JsonRepository(dir, "shared");
+        jr.setCurrentAuthor("Cyril");
+        final var found = jr.searchBookFor("2-200107-05-X");
+        assertNotNull(found);
+        assertEquals("Autre", found.get(BookFieldName.TITLE));
+        assertNull(jr.searchBookFor("2-200108-05-X"));
+    }
+
+    @Test
+    public void getBooksPageBuildsSummariesWithoutReadingPages(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("shared.json"), "["
+                + "{\"title\":\"Mien\",\"isbn\":\"22001060510\",\"author\":\"Cyril\",\"imgPath\":\"img.png\",\"version\":\"1.2\","
+                + "\"publishDate\":\"01-02-23 à 10:00\",\"pages\":{\"not\":[\"a\",\"page\",\"list\"]}},"
+                + "{\"title\":\"Autre\",\"isbn\":\"22001063011\",\"author\":\"Cyril\",\"imgPath\":\"\",\"version\":\"1.2\",\"pages\":42}"
+                + "]");
+        final DataRepository jr = new JsonRepository(dir, "shared");
+        jr.setCurrentAuthor("Cyril");
+        final var first = jr.getBooksPage(null, 1);
+        assertEquals(List.of(new BookSummary("Mien", "2-200106-05-X", "Cyril", "img.png", "01-02-23 à 10:00")), first.getBooks());
+        final var second = jr.getBooksPage(first.getNextCursor(), 1);
+        assertEquals("2-200106-30-0", second.getBooks().get(0).getIsbn());
+        assertFalse(second.hasNext());
+    }
+
     private void deleteFile(final Path path) {
         try {
             Files.delete(path);
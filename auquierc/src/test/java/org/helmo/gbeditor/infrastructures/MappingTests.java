@@ -0,0 +1,45 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.helmo.gbeditor.infrastructures.dto.PageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappingTests {
+
+    private static BookDTO bookWithPages(final int nbrPages) {
+        final List<PageDTO> pages = new ArrayList<>(nbrPages);
+        for(int i = 1; i <= nbrPages; i++) {
+            final var next = i == nbrPages ? 1 : i + 1;
+            pages.add(new PageDTO("Page " + i, Map.of(
+                    "Par contenu", "PAGE " + next,
+                    "Par numéro", String.valueOf(next)
+            ), i));
+        }
+        return new BookDTO("Title", "22001060510", "Auquier Cyril", "Un test", "", BookDTO.CURRENT_VERSION, pages, null);
+    }
+
+    @Test
+    public void whenChoicesTargetPagesByContentOrNumberThenBothAreResolved() {
+        final var book = Mapping.convertToBook(bookWithPages(3));
+        final var p1 = book.getPageFor("Page 1");
+        assertSame(book.getPageFor("Page 2"), p1.getPageForChoice("Par contenu"));
+        assertSame(book.getPageFor("Page 2"), p1.getPageForChoice("Par numéro"));
+        assertSame(p1, book.getPageFor("Page 3").getPageForChoice("Par contenu"));
+    }
+
+    @Test
+    public void whenBookHasManyPagesThenEachPageKeepsItsNumber() {
+        final Book book = Mapping.convertToBook(bookWithPages(200));
+        for(int n = 1; n <= 200; n++) {
+            assertEquals(n, book.getNForPage(book.getPageFor("page " + n)));
+        }
+        assertEquals(2, book.getPageBranchment(book.getPageFor("Page 1")));
+    }
+}
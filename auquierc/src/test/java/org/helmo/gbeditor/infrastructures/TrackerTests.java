@@ -0,0 +1,56 @@
+package org.helmo.gbeditor.infrastructures;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.infrastructures.dto.BookDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackerTests {
+    private Tracker tracker;
+    private Book book;
+    private BookDTO dto;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new Tracker();
+        book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        dto = Mapping.convertToBookDTO(book);
+        dto.id = 12;
+    }
+
+    @Test
+    public void whenBookIsTrackedThenItsIdIsFoundByIdentityAndByIsbn() {
+        tracker.put(book, dto);
+        assertEquals(12, tracker.getIdBookFor(book));
+        assertEquals(12, tracker.getIdBookFor(new Book(new BookMetadata("Autre", "2-200106-05-X", "", "Auquier Cyril"), "")));
+        assertNull(tracker.getSnapshotFor(book));
+    }
+
+    @Test
+    public void whenBookIsbnChangesThenItIsReindexedUnderItsNewIsbn() {
+        tracker.putSnapshot(book, dto);
+        book.setNewData(new BookMetadata("Title", "2-200106-30-0", "Un test", "Auquier Cyril"), "200106", "");
+        assertSame(dto, tracker.getSnapshotFor(book));
+        tracker.remove("2-200106-05-X");
+        assertTrue(tracker.contains(book));
+        tracker.remove("2200106300");
+        assertFalse(tracker.contains(book));
+    }
+
+    @Test
+    public void whenAnotherInstanceWithSameIsbnIsTrackedThenItReplacesTheFirstOne() {
+        tracker.put(book, dto);
+        final var reloaded = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"), "");
+        final var reloadedDto = Mapping.convertToBookDTO(reloaded);
+        reloadedDto.id = 12;
+        tracker.putSnapshot(reloaded, reloadedDto);
+        assertEquals(List.of(reloaded), tracker.getAllBooks());
+        assertSame(reloaded, tracker.getAllBooks().get(0));
+        assertSame(reloadedDto, tracker.getSnapshotFor(book));
+    }
+}
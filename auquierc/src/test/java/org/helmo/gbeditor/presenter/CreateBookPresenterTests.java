@@ -3,6 +3,7 @@ package org.helmo.gbeditor.presenter;
 import org.helmo.gbeditor.domains.BookTypeError;
 import org.helmo.gbeditor.domains.ISBN;
 import org.helmo.gbeditor.domains.Session;
+import org.helmo.gbeditor.domains.factory.ISBNFactory;
 import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
 import org.helmo.gbeditor.infrastructures.RepositoryFactory;
 import org.helmo.gbeditor.repositories.DataRepository;
@@ -35,6 +36,18 @@ public class CreateBookPresenterTests {
         verify(mockedView, times(1)).setAuthorName(session.getAuthor());
     }
 
+    @Test
+    void whenViewIsEnteredThenProposedIsbnFollowsLastBookNumberWithoutAllocatingIt() {
+        final var repo = mock(DataRepository.class);
+        when(repo.getLastBookNumber("200106")).thenReturn(4);
+        final var withMockedRepo = new CreateBookPresenter(session, repo);
+        withMockedRepo.setView(mockedView);
+
+        withMockedRepo.onEnter("HomeView");
+        verify(repo, never()).allocateBookNumber(anyString());
+        verify(mockedView).setIsbn(ISBNFactory.computeISBNFor(2, "200106", 5).forUser());
+    }
+
     @Test
     void createBookWitNullTitle() {
         presenter.createNewBook(null, "", "", "");
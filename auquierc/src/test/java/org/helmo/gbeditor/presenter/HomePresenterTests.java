@@ -1,11 +1,18 @@
 package org.helmo.gbeditor.presenter;
 
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.domains.Page;
 import org.helmo.gbeditor.domains.Session;
 import org.helmo.gbeditor.infrastructures.RepositoryType;
 import org.helmo.gbeditor.infrastructures.jdbc.JsonRepository;
 import org.helmo.gbeditor.infrastructures.RepositoryFactory;
 import org.helmo.gbeditor.presenter.viewmodels.ExtendedBookDescription;
 import org.helmo.gbeditor.presenter.viewmodels.LittleBookDescription;
+import org.helmo.gbeditor.repositories.AsyncRepository;
+import org.helmo.gbeditor.repositories.BookSummary;
+import org.helmo.gbeditor.repositories.BooksPage;
 import org.helmo.gbeditor.repositories.DataRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,7 +22,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 public class HomePresenterTests {
@@ -108,6 +120,109 @@ public class HomePresenterTests {
                 );
     }
 
+    @Test
+    void onMoveToNextPageThenPrefetchedPageIsDisplayedWithoutQueryingItAgain() {
+        final var pagedRepo = mock(DataRepository.class);
+        final var first = new ArrayList<BookSummary>();
+        for(int i = 0; i < 8; i++) {
+            first.add(new BookSummary("Livre " + i, "2-200106-0" + i + "-X", "Auquier Cyril", "", null));
+        }
+        final var second = new BooksPage(List.of(new BookSummary("Livre 8", "2-200106-08-X", "Auquier Cyril", "", null)), null);
+        when(pagedRepo.getBooksPage(null, 8)).thenReturn(new BooksPage(first, "8"));
+        when(pagedRepo.getBooksPage("8", 8)).thenReturn(second);
+        presenter = new HomePresenter(session, pagedRepo);
+        presenter.setView(mockedView);
+
+        presenter.onEnter("LoginView");
+        verify(pagedRepo, times(1)).getBooksPage("8", 8);
+        presenter.onMovePage(1);
+        verify(mockedView, times(1)).addBook(new LittleBookDescription("Livre 8", "", "2-200106-08-X", "Auquier Cyril"));
+        verify(pagedRepo, times(1)).getBooksPage("8", 8);
+        presenter.onMovePage(1);
+        verify(mockedView, times(1)).setCurrentPage(2);
+        presenter.onMovePage(-1);
+        verify(pagedRepo, times(2)).getBooksPage(null, 8);
+        verify(pagedRepo, never()).getBooks();
+    }
+
+    @Test
+    void onMovePageBeforeRequestsAreDoneThenStaleRequestsAreCancelled() {
+        final var pagedRepo = mock(DataRepository.class);
+        final var io = new ArrayDeque<Runnable>();
+        when(pagedRepo.getBooksPage(null, 8)).thenReturn(pageOf(0, "8"));
+        when(pagedRepo.getBooksPage("8", 8)).thenReturn(pageOf(8, "16"));
+        presenter = new HomePresenter(session, new AsyncRepository(pagedRepo, io::add, Runnable::run));
+        presenter.setView(mockedView);
+
+        presenter.onEnter("LoginView");
+        verify(mockedView, never()).addBook(any());
+        drain(io);
+        verify(pagedRepo, times(1)).getBooksPage("8", 8);
+        presenter.onMovePage(1);
+        presenter.onMovePage(-1);
+        drain(io);
+        verify(pagedRepo, never()).getBooksPage("16", 8);
+        verify(pagedRepo, never()).searchBookFor("2-200106-08-X");
+        verify(pagedRepo, times(2)).getBooksPage(null, 8);
+        verify(mockedView, times(2)).addBook(new LittleBookDescription("Livre 0", "", "2-200106-00-X", "Auquier Cyril"));
+    }
+
+    @Test
+    void onPublishBookWithUnreachablePagesThenBookIsNotPublished() {
+        final var storage = mock(DataRepository.class);
+        final var book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"));
+        book.addEnd(new Page("Première page"));
+        book.addEnd(new Page("Page isolée"));
+        session.setCurrentBook(book);
+        presenter = new HomePresenter(session, storage);
+        presenter.setView(mockedView);
+
+        presenter.onPublishBook("2-200106-05-X");
+        verify(mockedView, times(1)).setMessage("Le livre ne peut pas être publié : 1 page(s) ne peuvent pas être atteintes depuis la première page.",
+                TypeMessage.ERROR);
+        verify(mockedView, never()).askPublishConfirmation(any(), any());
+        verify(storage, never()).save(any());
+        assertNull(book.get(BookFieldName.PUBLISH_DATE));
+    }
+
+    @Test
+    void onPublishBookWithCycleThenUserIsWarnedAndBookIsOnlyPublishedOnceConfirmed() {
+        final var storage = mock(DataRepository.class);
+        final var book = new Book(new BookMetadata("Title", "2-200106-05-X", "Un test", "Auquier Cyril"));
+        final var first = new Page("Première page");
+        final var second = new Page("Deuxième page");
+        book.addEnd(first);
+        book.addEnd(second);
+        first.addChoice("Avancer", second);
+        second.addChoice("Revenir", first);
+        session.setCurrentBook(book);
+        presenter = new HomePresenter(session, storage);
+        presenter.setView(mockedView);
+
+        presenter.onPublishBook("2-200106-05-X");
+        verify(mockedView, times(1)).askPublishConfirmation(eq("2-200106-05-X"), contains("1 boucle(s)"));
+        verify(storage, never()).save(any());
+        assertNull(book.get(BookFieldName.PUBLISH_DATE));
+
+        presenter.onConfirmedPublish("2-200106-05-X");
+        verify(storage, times(1)).save(book);
+        assertNotNull(book.get(BookFieldName.PUBLISH_DATE));
+    }
+
+    private static BooksPage pageOf(final int first, final String nextCursor) {
+        final var books = new ArrayList<BookSummary>();
+        for(int i = first; i < first + 8; i++) {
+            books.add(new BookSummary("Livre " + i, "2-200106-" + (i < 10 ? "0" : "") + i + "-X", "Auquier Cyril", "", null));
+        }
+        return new BooksPage(books, nextCursor);
+    }
+
+    private static void drain(final Queue<Runnable> tasks) {
+        while(!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
     private void deleteFile(final Path path) {
         try {
             if(Files.exists(path)) {
@@ -0,0 +1,189 @@
+package org.helmo.gbeditor.repositories;
+
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.domains.BookMetadata;
+import org.helmo.gbeditor.domains.Page;
+import org.helmo.gbeditor.domains.factory.ISBNFactory;
+import org.helmo.gbeditor.repositories.exceptions.BookAlreadyExistsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncRepositoryTests {
+    private DataRepository storage;
+    private Queue<Runnable> io;
+    private Queue<Runnable> ui;
+    private AsyncRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(DataRepository.class);
+        io = new ArrayDeque<>();
+        ui = new ArrayDeque<>();
+        repo = new AsyncRepository(storage, io::add, ui::add);
+    }
+
+    @Test
+    void whenOperationIsDoneThenResultIsOnlyDeliveredByUiExecutor() {
+        final var page = new BooksPage(List.of(), null);
+        when(storage.getBooksPage(null, 8)).thenReturn(page);
+
+        final var future = repo.getBooksPage(null, 8);
+        verifyNoInteractions(storage);
+        drain(io);
+        verify(storage, times(1)).getBooksPage(null, 8);
+        assertFalse(future.isDone());
+        drain(ui);
+        assertSame(page, future.getNow(null));
+    }
+
+    @Test
+    void whenOperationIsCancelledBeforeStartingThenRepositoryIsNotCalled() {
+        final var future = repo.getBooksPage("8", 8);
+        final var failure = new AtomicReference<Throwable>();
+        AsyncRepository.whenDone(future, page -> fail("Une page annulée ne doit pas être reçue."), failure::set);
+
+        future.cancel(false);
+        drain(io);
+        drain(ui);
+        verify(storage, never()).getBooksPage("8", 8);
+        assertNull(failure.get());
+    }
+
+    @Test
+    void whenOperationFailsThenRepositoryExceptionIsReceived() {
+        doThrow(new BookAlreadyExistsException("Ce livre existe déjà.")).when(storage).add();
+        final var failure = new AtomicReference<Throwable>();
+
+        AsyncRepository.whenDone(repo.add().thenCompose(v -> repo.getLastBookNumber("200106")),
+                n -> fail("L'opération aurait dû échouer."), failure::set);
+        drain(io);
+        drain(ui);
+        assertTrue(failure.get() instanceof BookAlreadyExistsException);
+        verify(storage, never()).getLastBookNumber("200106");
+
+        final var rejected = new AsyncRepository(storage, r -> { throw new RejectedExecutionException(); }, Runnable::run);
+        AsyncRepository.whenDone(rejected.save(null), v -> fail("L'opération aurait dû être refusée."), failure::set);
+        assertTrue(failure.get() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void whenOperationThrowsAnErrorThenFutureFailsAndIoThreadKeepsRunning() throws Exception {
+        when(storage.getLastBookNumber("200106")).thenThrow(new StackOverflowError()).thenReturn(4);
+        try(final var async = new AsyncRepository(storage, Runnable::run)) {
+            final var failed = async.getLastBookNumber("200106");
+            final var failure = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof StackOverflowError);
+            assertEquals(4, async.getLastBookNumber("200106").get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void whenDefaultExecutorIsUsedThenOperationsRunOneByOneOnIoThread() throws Exception {
+        try(final var async = new AsyncRepository(storage, Runnable::run)) {
+            final var first = async.call(r -> Thread.currentThread().getName());
+            final var second = async.call(r -> first.isDone());
+            assertEquals("gbeditor-io", first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void whenBookIsSavedThenRepositoryBookTakesTheStateItHadWhenSaveWasRequested() {
+        final var generator = new BookCorpusGenerator(3).pages(5, 5);
+        final var book = generator.generate(0, 1);
+        final var isbn = book.get(BookFieldName.ISBN);
+        when(storage.searchBookFor(isbn)).thenReturn(book);
+
+        final var found = repo.searchBookFor(isbn);
+        drain(io);
+        drain(ui);
+        final var copy = found.getNow(null);
+        assertNotSame(book, copy);
+        assertEquals(5, copy.toGraph().size());
+
+        final var newIsbn = ISBNFactory.computeISBNFor(2, generator.matriculeOf(0), 2).forUser();
+        copy.setNewData(new BookMetadata("Nouveau titre", newIsbn, "Nouveau résumé", copy.get(BookFieldName.AUTHOR)),
+                generator.matriculeOf(0), "");
+        repo.save(copy);
+        copy.addEnd(new Page("Page ajoutée après la demande"));
+        drain(io);
+        verify(storage, times(1)).save(same(book));
+        assertEquals(newIsbn, book.get(BookFieldName.ISBN));
+        assertEquals("Nouveau titre", book.get(BookFieldName.TITLE));
+        assertEquals(5, book.toGraph().size());
+        assertEquals(6, copy.toGraph().size());
+    }
+
+    @Test
+    void whenBookIsHandedOutAgainThenOnlyTheLatestCopyStaysAssociatedWithIt() {
+        final var book = new BookCorpusGenerator(1).pages(5, 5).generate(0, 1);
+        final var isbn = book.get(BookFieldName.ISBN);
+        when(storage.searchBookFor(isbn)).thenReturn(book);
+
+        final var first = repo.searchBookFor(isbn);
+        final var second = repo.searchBookFor(isbn);
+        drain(io);
+        drain(ui);
+        repo.save(second.getNow(null));
+        repo.save(first.getNow(null));
+        drain(io);
+        verify(storage, times(1)).save(same(book));
+        verify(storage, times(1)).save(argThat(b -> b != book));
+    }
+
+    @Test
+    void whenBookIsSavedManyTimesWithinWindowThenItIsWrittenOnce() {
+        final var book = new BookCorpusGenerator(1).pages(5, 5).generate(0, 1);
+        final var isbn = book.get(BookFieldName.ISBN);
+        try(final var async = new AsyncRepository(storage, io::add, ui::add, Duration.ofMinutes(1))) {
+            final var first = async.saveLater(book);
+            for(int i = 0; i < 20; i++) {
+                assertSame(first, async.saveLater(book));
+            }
+            final var found = async.searchBookFor(isbn);
+            book.addEnd(new Page("Page ajoutée après la dernière demande"));
+            drain(io);
+            drain(ui);
+            assertNotSame(book, found.getNow(null));
+            assertEquals(5, found.getNow(null).toGraph().size());
+            verify(storage, never()).searchBookFor(isbn);
+            verify(storage, never()).save(book);
+
+            final var flushed = async.flush();
+            assertNotSame(first, async.saveLater(book));
+            drain(io);
+            drain(ui);
+            assertTrue(first.isDone() && flushed.isDone());
+            verify(storage, times(1)).save(argThat(b -> b.toGraph().size() == 5));
+        }
+    }
+
+    @Test
+    void whenSaveWindowIsOverThenPendingSaveIsWritten() throws Exception {
+        final var book = new BookCorpusGenerator(2).pages(5, 5).generate(0, 1);
+        try(final var async = new AsyncRepository(storage, Runnable::run, Runnable::run, Duration.ofMillis(200))) {
+            final var saved = async.saveLater(book);
+            async.saveLater(book);
+            saved.get(5, TimeUnit.SECONDS);
+            verify(storage, times(1)).save(book);
+        }
+    }
+
+    private static void drain(final Queue<Runnable> tasks) {
+        while(!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+}
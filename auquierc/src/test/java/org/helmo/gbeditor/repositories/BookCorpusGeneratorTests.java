@@ -0,0 +1,69 @@
+package org.helmo.gbeditor.repositories;
+
+import org.helmo.gbeditor.domains.Book;
+import org.helmo.gbeditor.domains.BookFieldName;
+import org.helmo.gbeditor.domains.ISBN;
+import org.helmo.gbeditor.domains.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookCorpusGeneratorTests {
+
+    @Test
+    void whenTwoGeneratorsHaveTheSameSeedThenTheyGenerateTheSameBooks() {
+        final var first = new BookCorpusGenerator(42).pages(50, 200).branching(4).generate(3, 7);
+        final var second = new BookCorpusGenerator(42).pages(50, 200).branching(4).generate(3, 7);
+        final var other = new BookCorpusGenerator(43).pages(50, 200).branching(4).generate(3, 7);
+        assertEquals(describe(first), describe(second));
+        assertNotEquals(describe(first), describe(other));
+    }
+
+    @Test
+    void whenBooksAreGeneratedThenTheyAreValidAndRespectTheConfiguration() {
+        final var generator = new BookCorpusGenerator(7).authors(3).booksByAuthor(4).pages(300, 500).branching(3);
+        final var isbns = new ArrayList<String>();
+        for(int author = 0; author < generator.getAuthors(); author++) {
+            final var books = generator.generateFor(author);
+            assertEquals(4, books.size());
+            for(final var b : books) {
+                assertNull(ISBN.isValid(b.get(BookFieldName.ISBN), generator.matriculeOf(author)));
+                assertEquals(generator.authorNameOf(author), b.get(BookFieldName.AUTHOR));
+                final var graph = b.toGraph();
+                assertTrue(graph.size() >= 300 && graph.size() <= 500);
+                for(int p = 0; p < graph.size(); p++) {
+                    assertTrue(graph.choicesEnd(p) - graph.choicesStart(p) <= 3);
+                }
+                final var analysis = b.analyze();
+                assertTrue(analysis.isFullyReachable());
+                assertFalse(analysis.getDeadEnds().isEmpty());
+                isbns.add(b.get(BookFieldName.ISBN));
+            }
+        }
+        assertEquals(12, isbns.stream().distinct().count());
+    }
+
+    @Test
+    void whenConfigurationIsNotValidThenAnExceptionIsThrown() {
+        final var generator = new BookCorpusGenerator(1);
+        assertThrows(IllegalArgumentException.class, () -> generator.authors(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.booksByAuthor(100));
+        assertThrows(IllegalArgumentException.class, () -> generator.pages(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> generator.branching(0));
+    }
+
+    private static List<String> describe(final Book book) {
+        final List<String> result = new ArrayList<>();
+        result.add(book.get(BookFieldName.ISBN) + " " + book.get(BookFieldName.TITLE));
+        for(final Page p : book) {
+            result.add(p.getContent());
+            for(final var choice : p) {
+                result.add(choice + " -> " + p.getPageForChoice(choice).getContent());
+            }
+        }
+        return result;
+    }
+}